@@ -0,0 +1,100 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * AtomicBoardModel keeps the packed cell states in an AtomicLongArray, so
+ * many threads can change cells of the same board at once without a lock.
+ *
+ * Eight cells share a long, cell i in byte (i % 8) of word (i / 8). A cell
+ * changes by compare-and-set on its word, retried while only the other
+ * cells of the word moved, so a change never loses a neighbor's change.
+ * Reads are volatile, so a thread sees every cell another thread set.
+ *
+ * Cell states are the same as in BoardModel. Bulk operations are not
+ * atomic as a whole and are meant for before the board is shared.
+ */
+public class AtomicBoardModel extends BoardModel {
+
+    private final AtomicLongArray words;
+
+    /*
+     * Constructor for AtomicBoardModel
+     *
+     * @param   length      The number of rows on the board
+     * @param   width       The number of columns on the board
+     */
+    public AtomicBoardModel(int length, int width) {
+        super(length, width, false);
+        words = new AtomicLongArray((int) (((long) length * width + 7) >>> 3));
+    }
+
+    public int get(int index) {
+        return (int) (words.get(index >>> 3) >>> ((index & 7) << 3)) & 0xFF;
+    }
+
+    public void set(int index, int state) {
+        int word = index >>> 3;
+        int shift = (index & 7) << 3;
+        long current;
+        do {
+            current = words.get(word);
+        } while (!words.compareAndSet(word, current, (current & ~(0xFFL << shift)) | ((long) (state & 0xFF) << shift)));
+        recordChange(index, state);
+    }
+
+    /*
+     * Changes a cell only if it is still in the expected state. Changes to
+     * the other cells sharing its word do not make it fail.
+     *
+     * @param   index       The cell index
+     * @param   expected    The packed state the cell must have
+     * @param   state       The packed state to change it to
+     * @return              Whether or not the cell was changed
+     */
+    public boolean compareAndSet(int index, int expected, int state) {
+        int word = index >>> 3;
+        int shift = (index & 7) << 3;
+        long mask = 0xFFL << shift;
+        for (;;) {
+            long current = words.get(word);
+            if ((int) ((current & mask) >>> shift) != expected) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, (current & ~mask) | ((long) (state & 0xFF) << shift))) {
+                return true;
+            }
+        }
+    }
+
+    public long getFootprint() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    public void reset() {
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, 0);
+        }
+    }
+
+    public void getStates(byte states[]) {
+        for (int i = 0; i < size(); i++) {
+            states[i] = (byte) get(i);
+        }
+    }
+
+    public void setStates(byte states[]) {
+        int size = size();
+        for (int word = 0; word < words.length(); word++) {
+            long packed = 0;
+            for (int i = Math.min(size - (word << 3), 8) - 1; i >= 0; i--) {
+                packed = (packed << 8) | (states[(word << 3) + i] & 0xFF);
+            }
+            words.set(word, packed);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+
+/*
+ * BoardCanvas paints the game board as a single component.
+ *
+ * The canvas is meant to live inside a JScrollPane. Only the cells inside
+ * the clip are painted, so the cost of a paint depends on the size of the
+ * viewport rather than the size of the board. Holding control while using
+ * the mouse wheel zooms, and dragging with the middle mouse button pans.
+ */
+public class BoardCanvas extends JComponent implements Scrollable {
+
+    private final static long serialVersionUID = 1L;
+
+    // Size of a single cell in pixels
+    public final static int CELL_SIZE = 30;
+    public final static int MIN_CELL_SIZE = 4;
+    public final static int MAX_CELL_SIZE = 60;
+
+    // The game board to paint
+    private GameBoard gameBoard;
+
+    // Current zoomed size of a cell in pixels
+    private int cellSize = CELL_SIZE;
+
+    // Shared tile sheet, scaled to the current cell size
+    private BufferedImage tileSheet;
+
+    // Last mouse position of a pan drag
+    private Point panStart;
+
+    /*
+     * Constructor for BoardCanvas
+     *
+     * @param   gameBoard       The game board to paint
+     */
+    BoardCanvas(GameBoard gameBoard) {
+        super();
+        this.gameBoard = gameBoard;
+        setOpaque(true);
+        tileSheet = TileAtlas.getInstance().getSheet(cellSize);
+
+        MouseAdapter navigationHandler = new NavigationHandler();
+        addMouseListener(navigationHandler);
+        addMouseMotionListener(navigationHandler);
+        addMouseWheelListener(navigationHandler);
+    }
+
+    /*
+     * Gets the size needed to show every cell of the board.
+     *
+     * @return          The preferred size of the canvas
+     */
+    public Dimension getPreferredSize() {
+        BoardModel model = gameBoard.getModel();
+        return new Dimension(model.getWidth() * cellSize, model.getLength() * cellSize);
+    }
+
+    /*
+     * Paints the cells inside the clip.
+     *
+     * @param   g       The graphics context to paint on
+     */
+    protected void paintComponent(Graphics g) {
+        BoardModel model = gameBoard.getModel();
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        // Cull every cell outside of the clip
+        int firstRow = Math.max(0, clip.y / cellSize);
+        int lastRow = Math.min(model.getLength() - 1, (clip.y + clip.height - 1) / cellSize);
+        int firstCol = Math.max(0, clip.x / cellSize);
+        int lastCol = Math.min(model.getWidth() - 1, (clip.x + clip.width - 1) / cellSize);
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            int index = model.index(r, firstCol);
+            for (int c = firstCol; c <= lastCol; c++, index++) {
+                TileAtlas.drawTile(g, tileSheet, TileAtlas.tileFor(model.get(index)), c * cellSize, r * cellSize, cellSize);
+            }
+        }
+    }
+
+    /*
+     * Repaints just the cells a move changed, as the one rectangle around
+     * them, so a click costs the same however big the board and the view.
+     *
+     * @param   delta   The cells changed
+     */
+    public void repaintCells(CellDelta delta) {
+        Rectangle bounds = getCellBounds(delta);
+        if (bounds != null) {
+            repaint(bounds);
+        }
+    }
+
+    /*
+     * Gets the rectangle around the changed cells, in canvas pixels.
+     *
+     * @param   delta   The cells changed
+     * @return          The bounds, or null if nothing changed
+     */
+    public Rectangle getCellBounds(CellDelta delta) {
+        if (delta.isEmpty()) {
+            return null;
+        }
+        BoardModel model = gameBoard.getModel();
+        if (delta.isAll()) {
+            return new Rectangle(0, 0, model.getWidth() * cellSize, model.getLength() * cellSize);
+        }
+        int firstRow = Integer.MAX_VALUE;
+        int lastRow = -1;
+        int firstCol = Integer.MAX_VALUE;
+        int lastCol = -1;
+        for (int i = 0; i < delta.size(); i++) {
+            int row = model.rowOf(delta.getIndex(i));
+            int col = model.colOf(delta.getIndex(i));
+            firstRow = Math.min(firstRow, row);
+            lastRow = Math.max(lastRow, row);
+            firstCol = Math.min(firstCol, col);
+            lastCol = Math.max(lastCol, col);
+        }
+        return new Rectangle(firstCol * cellSize, firstRow * cellSize,
+                (lastCol - firstCol + 1) * cellSize, (lastRow - firstRow + 1) * cellSize);
+    }
+
+    /*
+     * Gets the row under the given y coordinate.
+     *
+     * @param   y       The y coordinate on the canvas
+     * @return          The row, or -1 if the coordinate is off the board
+     */
+    public int rowAt(int y) {
+        int row = Math.floorDiv(y, cellSize);
+        return (row >= 0 && row < gameBoard.getModel().getLength()) ? row : -1;
+    }
+
+    /*
+     * Gets the column under the given x coordinate.
+     *
+     * @param   x       The x coordinate on the canvas
+     * @return          The column, or -1 if the coordinate is off the board
+     */
+    public int colAt(int x) {
+        int col = Math.floorDiv(x, cellSize);
+        return (col >= 0 && col < gameBoard.getModel().getWidth()) ? col : -1;
+    }
+
+    /*
+     * Gets the current size of a cell in pixels.
+     *
+     * @return          The zoomed cell size
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /*
+     * Zooms the board, keeping the cell under the anchor point in place.
+     *
+     * @param   newCellSize     The desired cell size in pixels
+     * @param   anchor          The point on the canvas to zoom around
+     */
+    public void zoom(int newCellSize, Point anchor) {
+        newCellSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, newCellSize));
+        if (newCellSize == cellSize) {
+            return;
+        }
+
+        JViewport viewport = getViewport();
+        Point viewPosition = (viewport != null) ? viewport.getViewPosition() : new Point();
+        int offsetX = anchor.x - viewPosition.x;
+        int offsetY = anchor.y - viewPosition.y;
+
+        double scale = (double) newCellSize / cellSize;
+        cellSize = newCellSize;
+        tileSheet = TileAtlas.getInstance().getSheet(cellSize);
+        revalidate();
+
+        if (viewport != null) {
+            // Lay the viewport out at the new size before moving it
+            viewport.validate();
+            Dimension extent = viewport.getExtentSize();
+            Dimension size = getPreferredSize();
+            int x = (int) Math.round(anchor.x * scale) - offsetX;
+            int y = (int) Math.round(anchor.y * scale) - offsetY;
+            x = Math.max(0, Math.min(x, size.width - extent.width));
+            y = Math.max(0, Math.min(y, size.height - extent.height));
+            viewport.setViewPosition(new Point(x, y));
+        }
+        repaint();
+    }
+
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return cellSize;
+    }
+
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        int extent = (orientation == SwingConstants.VERTICAL) ? visibleRect.height : visibleRect.width;
+        return Math.max(cellSize, extent - cellSize);
+    }
+
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /*
+     * Get the viewport the canvas is scrolled in.
+     *
+     * @return              The viewport, or null if the canvas is not scrolled
+     */
+    private JViewport getViewport() {
+        Container parent = getParent();
+        return (parent instanceof JViewport) ? (JViewport) parent : null;
+    }
+
+    // Inner Class for zooming with the wheel and panning with the middle button
+    private class NavigationHandler extends MouseAdapter {
+
+        public void mousePressed(MouseEvent e) {
+            if (SwingUtilities.isMiddleMouseButton(e)) {
+                panStart = e.getLocationOnScreen();
+            }
+        }
+
+        public void mouseReleased(MouseEvent e) {
+            if (SwingUtilities.isMiddleMouseButton(e)) {
+                panStart = null;
+            }
+        }
+
+        public void mouseDragged(MouseEvent e) {
+            JViewport viewport = getViewport();
+            if (panStart == null || viewport == null) {
+                return;
+            }
+            Point location = e.getLocationOnScreen();
+            Point viewPosition = viewport.getViewPosition();
+            Dimension extent = viewport.getExtentSize();
+            int x = viewPosition.x + panStart.x - location.x;
+            int y = viewPosition.y + panStart.y - location.y;
+            x = Math.max(0, Math.min(x, getWidth() - extent.width));
+            y = Math.max(0, Math.min(y, getHeight() - extent.height));
+            viewport.setViewPosition(new Point(x, y));
+            panStart = location;
+        }
+
+        public void mouseWheelMoved(MouseWheelEvent e) {
+            if (e.isControlDown()) {
+                int step = Math.max(1, cellSize / 5);
+                zoom(cellSize - e.getWheelRotation() * step, e.getPoint());
+            }
+            else {
+                // Let the scroll pane handle plain scrolling
+                Container scrollPane = SwingUtilities.getAncestorOfClass(JScrollPane.class, BoardCanvas.this);
+                if (scrollPane != null) {
+                    scrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(BoardCanvas.this, e, scrollPane));
+                }
+            }
+        }
+    }
+}
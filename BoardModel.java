@@ -0,0 +1,389 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+
+/*
+ * The headless state of a Bombs board.
+ *
+ * Every cell is packed into a single byte of a flat, row-major array:
+ *
+ *      bits 0-3    neighboring bomb count (0 - 8)
+ *      bit  4      bomb
+ *      bit  5      cleared
+ *      bit  6      flagged
+ *      bit  7      revealed (the board was shown at the end of a game)
+ *
+ * A cell is addressed by its index, row * width + col.
+ *
+ * The cells live in a byte array on the heap. Subclasses may keep them
+ * elsewhere by overriding get, set and the bulk operations.
+ */
+public class BoardModel {
+
+    // Cell State Bits
+    public static final int COUNT_MASK = 0x0F;
+    public static final int BOMB = 0x10;
+    public static final int CLEARED = 0x20;
+    public static final int FLAGGED = 0x40;
+    public static final int REVEALED = 0x80;
+
+    // Metadata
+    private final int length;
+    private final int width;
+
+    // Packed cell states, or null when a subclass stores them
+    private final byte cells[];
+
+    // Cells set since the delta was last cleared, or null
+    private CellDelta changes;
+
+    /*
+     * Constructor for BoardModel
+     *
+     * @param   length      The number of rows on the board
+     * @param   width       The number of columns on the board
+     */
+    public BoardModel(int length, int width) {
+        this(length, width, true);
+    }
+
+    /*
+     * Constructor for subclasses that store the cells themselves.
+     *
+     * @param   length      The number of rows on the board
+     * @param   width       The number of columns on the board
+     * @param   onHeap      Whether or not to allocate the cells on the heap
+     */
+    protected BoardModel(int length, int width, boolean onHeap) {
+        if (length <= 0 || width <= 0 || (long) length * width > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid board size: " + length + " x " + width);
+        }
+        this.length = length;
+        this.width = width;
+        this.cells = onHeap ? new byte[length * width] : null;
+    }
+
+    /*
+     * Gets the number of rows on the board.
+     *
+     * @return          The board length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /*
+     * Gets the number of columns on the board.
+     *
+     * @return          The board width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /*
+     * Gets the total number of cells on the board.
+     *
+     * @return          The number of cells
+     */
+    public int size() {
+        return length * width;
+    }
+
+    /*
+     * Gets the bytes the cells of the board take up, on the heap or mapped
+     * from a file.
+     *
+     * @return          The footprint of the cells
+     */
+    public long getFootprint() {
+        return size();
+    }
+
+    /*
+     * Converts a row and column to a cell index.
+     *
+     * @param   row     The row of the cell
+     * @param   col     The column of the cell
+     * @return          The row-major index of the cell
+     */
+    public int index(int row, int col) {
+        return row * width + col;
+    }
+
+    /*
+     * Gets the row of the given cell index.
+     *
+     * @param   index   The cell index
+     * @return          The row of the cell
+     */
+    public int rowOf(int index) {
+        return index / width;
+    }
+
+    /*
+     * Gets the column of the given cell index.
+     *
+     * @param   index   The cell index
+     * @return          The column of the cell
+     */
+    public int colOf(int index) {
+        return index % width;
+    }
+
+    /*
+     * Checks if the given row and column are on the board.
+     *
+     * @param   row     The row to check
+     * @param   col     The column to check
+     * @return          Whether or not the position is on the board
+     */
+    public boolean inBounds(int row, int col) {
+        return row >= 0 && row < length && col >= 0 && col < width;
+    }
+
+    /*
+     * Gets the packed state of a cell.
+     *
+     * @param   index   The cell index
+     * @return          The packed cell state
+     */
+    public int get(int index) {
+        return cells[index] & 0xFF;
+    }
+
+    /*
+     * Sets the packed state of a cell.
+     *
+     * @param   index   The cell index
+     * @param   state   The packed cell state
+     */
+    public void set(int index, int state) {
+        cells[index] = (byte) state;
+        recordChange(index, state);
+    }
+
+    /*
+     * Adds every cell set from now on to a delta, with its new state. Bulk
+     * operations such as reset and setStates are not tracked, and callers
+     * doing their own bulk operations stop tracking around them.
+     *
+     * @param   changes     The delta to add to, or null to stop tracking
+     */
+    public void trackChanges(CellDelta changes) {
+        this.changes = changes;
+    }
+
+    /*
+     * Gets the delta cells set are added to, so tracking can be put back
+     * after a bulk operation done without it.
+     *
+     * @return          The delta, or null if changes are not tracked
+     */
+    public CellDelta getChanges() {
+        return changes;
+    }
+
+    /*
+     * Adds a cell to the delta, if changes are tracked. Subclasses
+     * overriding set call it for every cell they set.
+     *
+     * @param   index   The cell index
+     * @param   state   The packed cell state set
+     */
+    protected final void recordChange(int index, int state) {
+        if (changes != null) {
+            changes.add(index, state);
+        }
+    }
+
+    /*
+     * Checks if different cells may be set from different threads at once,
+     * as when counting neighbors in parallel. Each cell is a byte of its
+     * own, so they may unless the cells set are added to a delta.
+     * Subclasses sharing storage between cells override it.
+     *
+     * @return          Whether or not set is safe to call in parallel on different cells
+     */
+    public boolean canSetInParallel() {
+        return changes == null;
+    }
+
+    /*
+     * Checks if changes are tracked, for subclasses that can skip finding
+     * them otherwise.
+     *
+     * @return          Whether or not cells set are added to a delta
+     */
+    protected final boolean isTracked() {
+        return changes != null;
+    }
+
+    /*
+     * Checks if the cell is a bomb.
+     *
+     * @param   index   The cell index
+     * @return          Whether or not the cell is a bomb
+     */
+    public boolean isBomb(int index) {
+        return (get(index) & BOMB) != 0;
+    }
+
+    /*
+     * Checks if the cell has been cleared.
+     *
+     * @param   index   The cell index
+     * @return          Whether or not the cell is cleared
+     */
+    public boolean isCleared(int index) {
+        return (get(index) & CLEARED) != 0;
+    }
+
+    /*
+     * Checks if the cell is flagged.
+     *
+     * @param   index   The cell index
+     * @return          Whether or not the cell is flagged
+     */
+    public boolean isFlagged(int index) {
+        return (get(index) & FLAGGED) != 0;
+    }
+
+    /*
+     * Checks if the cell can no longer be clicked, either because it was
+     * cleared or because the board was revealed.
+     *
+     * @param   index   The cell index
+     * @return          Whether or not the cell is pressed
+     */
+    public boolean isPressed(int index) {
+        return (get(index) & (CLEARED | REVEALED)) != 0;
+    }
+
+    /*
+     * Gets the neighboring bomb count for the cell.
+     *
+     * @param   index   The cell index
+     * @return          The number of neighboring bombs
+     */
+    public int getNeighboringBombCount(int index) {
+        return get(index) & COUNT_MASK;
+    }
+
+    /*
+     * Sets whether or not the cell is a bomb.
+     *
+     * @param   index   The cell index
+     * @param   isBomb  Whether or not the cell is a bomb
+     */
+    public void setBomb(int index, boolean isBomb) {
+        setBit(index, BOMB, isBomb);
+    }
+
+    /*
+     * Sets the neighboring bomb count for the cell.
+     *
+     * @param   index   The cell index
+     * @param   count   The number of neighboring bombs
+     */
+    public void setNeighboringBombCount(int index, int count) {
+        set(index, (get(index) & ~COUNT_MASK) | count);
+    }
+
+    /*
+     * Sets whether or not the cell is flagged.
+     *
+     * @param   index   The cell index
+     * @param   isFlag  Whether or not the cell is flagged
+     */
+    public void setFlag(int index, boolean isFlag) {
+        setBit(index, FLAGGED, isFlag);
+    }
+
+    /*
+     * Marks the cell as cleared.
+     *
+     * @param   index   The cell index
+     */
+    public void clear(int index) {
+        setBit(index, CLEARED, true);
+    }
+
+    /*
+     * Marks the cell as revealed.
+     *
+     * @param   index   The cell index
+     */
+    public void reveal(int index) {
+        setBit(index, REVEALED, true);
+    }
+
+    /*
+     * Resets every cell on the board to an empty, hidden cell.
+     */
+    public void reset() {
+        Arrays.fill(cells, (byte) 0);
+    }
+
+    /*
+     * Copies every packed cell state into an array, in index order.
+     *
+     * @param   states  The array to fill, at least size() long
+     */
+    public void getStates(byte states[]) {
+        System.arraycopy(cells, 0, states, 0, cells.length);
+    }
+
+    /*
+     * Sets every packed cell state from an array, in index order.
+     *
+     * @param   states  The states to copy, at least size() long
+     */
+    public void setStates(byte states[]) {
+        System.arraycopy(states, 0, cells, 0, cells.length);
+    }
+
+    /*
+     * Copies every cell of a board of the same size, shifted around the board
+     * like a torus: cell (r, c) of the source lands on cell
+     * ((r + rowShift) mod length, (c + colShift) mod width).
+     *
+     * @param   source      The board to copy
+     * @param   rowShift    The rows to shift down by, from 0 to length - 1
+     * @param   colShift    The columns to shift right by, from 0 to width - 1
+     */
+    public void copyShifted(BoardModel source, int rowShift, int colShift) {
+        if (source.length != length || source.width != width) {
+            throw new IllegalArgumentException("Cannot copy a " + source.length + " x " + source.width
+                    + " board onto a " + length + " x " + width + " board");
+        }
+        if (cells == null || source.cells == null) {
+            for (int i = 0; i < size(); i++) {
+                set(index((i / width + rowShift) % length, (i % width + colShift) % width), source.get(i));
+            }
+            return;
+        }
+        for (int r = 0; r < length; r++) {
+            int from = r * width;
+            int to = ((r + rowShift) % length) * width;
+            System.arraycopy(source.cells, from, cells, to + colShift, width - colShift);
+            System.arraycopy(source.cells, from + width - colShift, cells, to, colShift);
+        }
+    }
+
+    /*
+     * Sets or unsets a state bit on the cell.
+     *
+     * @param   index   The cell index
+     * @param   bit     The state bit to change
+     * @param   value   Whether to set or unset the bit
+     */
+    private void setBit(int index, int bit, boolean value) {
+        int state = get(index);
+        set(index, value ? (state | bit) : (state & ~bit));
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/*
+ * BoardPool keeps a few boards of the current level ready, with their bombs
+ * placed and counted on a background thread, so the first click does not
+ * wait for either.
+ *
+ * Boards are generated with the safe zone around the center and moved to
+ * the first click when they are taken:
+ *
+ *      plain       The board is shifted like a torus, so the center lands on
+ *                  the clicked cell. Only the counts along the seam and the
+ *                  edges of the board change, and only they are counted
+ *                  again. Away from the edges that is the same as generating
+ *                  for the click; next to an edge, the cells the safe zone
+ *                  wraps onto also stay free of bombs.
+ *      no-guess    Shifting would break the guarantee, so only flips and
+ *                  (on square boards) rotations are tried. They work when the
+ *                  click lands on an empty cell of the opening the board was
+ *                  solved from, since that reveals the same opening. If no
+ *                  pooled board fits, take returns null and the caller
+ *                  generates one for the click.
+ *
+ * The pool is bounded by count and by the cells it holds, so large boards
+ * keep fewer boards, and boards larger than that bound are not pooled at
+ * all. Changing the level drops the pooled boards.
+ */
+public class BoardPool {
+
+    // Most boards kept ready
+    private final static int CAPACITY = 4;
+
+    // Most cells kept in all pooled boards together, before CAPACITY is reduced to as few as none
+    private final static long MAX_POOLED_CELLS = 1 << 26;
+
+    // A ready board, with its bombs and counts in place
+    public static class Layout {
+        private final BoardModel model;
+        private final long seed;
+
+        // Empty cells of the opening the board is solved from, sorted, or null
+        private final int opening[];
+
+        // Whether or not the board was generated guess free
+        private final boolean guessFree;
+
+        // How the board is moved onto the first click, chosen when it is taken
+        private int rowShift, colShift;
+        private int symmetry = -1;
+
+        Layout(BoardModel model, long seed, int opening[], boolean guessFree) {
+            this.model = model;
+            this.seed = seed;
+            this.opening = opening;
+            this.guessFree = guessFree;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public boolean isGuessFree() {
+            return guessFree;
+        }
+
+        /*
+         * Copies the board, moved onto the first click, over a board of the same size.
+         *
+         * @param   target      The board to copy onto
+         */
+        public void copyTo(BoardModel target) {
+            if (symmetry == -1) {
+                target.copyShifted(model, rowShift, colShift);
+                recountSeams(target, rowShift, colShift);
+            }
+            else {
+                for (int i = 0; i < model.size(); i++) {
+                    target.set(toBoard(model, symmetry, i), model.get(i));
+                }
+            }
+        }
+    }
+
+    private final ArrayDeque<Layout> layouts = new ArrayDeque<Layout>();
+    private final SplittableRandom seeds = new SplittableRandom();
+    private Thread worker;
+
+    // Level being pooled, and a count bumped on every change so stale work is dropped
+    private int length, width, bombCount, safeRadius;
+    private boolean noGuess;
+    private boolean configured = false;
+    private int generation = 0;
+
+    /*
+     * Sets the level to keep boards for, dropping the pooled boards if it
+     * changed. Starts the background thread on first use.
+     *
+     * @param   length      The number of rows
+     * @param   width       The number of columns
+     * @param   bombCount   The number of bombs
+     * @param   safeRadius  How many cells around the first click stay free of bombs
+     * @param   noGuess     Whether or not boards must be guess free
+     */
+    public synchronized void configure(int length, int width, int bombCount, int safeRadius, boolean noGuess) {
+        if (configured && length == this.length && width == this.width && bombCount == this.bombCount
+                && safeRadius == this.safeRadius && noGuess == this.noGuess) {
+            return;
+        }
+        this.length = length;
+        this.width = width;
+        this.bombCount = bombCount;
+        this.safeRadius = safeRadius;
+        this.noGuess = noGuess;
+        configured = true;
+        generation++;
+        layouts.clear();
+
+        if (worker == null) {
+            worker = new Thread(this::refill, "BoardPool");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        notifyAll();
+    }
+
+    /*
+     * Takes a pooled board that can be moved so a first click on a cell is safe.
+     *
+     * @param   row         The row of the first click
+     * @param   col         The column of the first click
+     * @return              The board, ready to copy, or null if no pooled board fits
+     */
+    public synchronized Layout take(int row, int col) {
+        for (Iterator<Layout> it = layouts.iterator(); it.hasNext(); ) {
+            Layout layout = it.next();
+            if (noGuess) {
+                layout.symmetry = findSymmetry(layout, row, col);
+                if (layout.symmetry == -1) {
+                    continue;
+                }
+            }
+            else {
+                layout.rowShift = (row - length / 2 + length) % length;
+                layout.colShift = (col - width / 2 + width) % width;
+            }
+            it.remove();
+            notifyAll();
+            return layout;
+        }
+        return null;
+    }
+
+    /*
+     * Gets the number of boards ready.
+     *
+     * @return              The pool size
+     */
+    public synchronized int size() {
+        return layouts.size();
+    }
+
+    /*
+     * Generates boards on the background thread whenever the pool has room.
+     */
+    private void refill() {
+        NoGuessGenerator noGuessGenerator = new NoGuessGenerator();
+        FloodFill floodFill = new FloodFill();
+
+        while (true) {
+            int generation, length, width, bombCount, safeRadius;
+            boolean noGuess;
+            long seed;
+            synchronized (this) {
+                while (layouts.size() >= capacity()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                generation = this.generation;
+                length = this.length;
+                width = this.width;
+                bombCount = this.bombCount;
+                safeRadius = this.safeRadius;
+                noGuess = this.noGuess;
+                seed = seeds.nextLong();
+            }
+
+            BoardModel model = new BoardModel(length, width);
+            int centerRow = length / 2;
+            int centerCol = width / 2;
+            int opening[] = null;
+            boolean guessFree = false;
+            if (noGuess) {
+                noGuessGenerator.placeBombs(model, bombCount, centerRow, centerCol, safeRadius, seed);
+                guessFree = noGuessGenerator.isLastSolvable();
+                NeighborCounter.fill(model);
+                opening = openingOf(model, centerRow, centerCol, floodFill);
+            }
+            else {
+                MineGenerator.placeBombs(model, bombCount, centerRow, centerCol, safeRadius, seed);
+                NeighborCounter.fill(model);
+            }
+
+            synchronized (this) {
+                if (generation == this.generation) {
+                    layouts.add(new Layout(model, seed, opening, guessFree));
+                }
+            }
+        }
+    }
+
+    /*
+     * Gets the most boards to keep for the current level.
+     */
+    private int capacity() {
+        if (!configured) {
+            return 0;
+        }
+        return (int) Math.min(CAPACITY, MAX_POOLED_CELLS / ((long) length * width));
+    }
+
+    /*
+     * Finds a flip or rotation of a guess free board that puts a cell in its opening.
+     *
+     * @return              The symmetry, or -1 if none fits
+     */
+    private int findSymmetry(Layout layout, int row, int col) {
+        int symmetries = (length == width) ? 8 : 4;
+        for (int symmetry = 0; symmetry < symmetries; symmetry++) {
+            if (Arrays.binarySearch(layout.opening, toLayout(layout.model, symmetry, row * width + col)) >= 0) {
+                return symmetry;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Maps a board cell to the pooled cell it takes its state from. Bit 0 of
+     * the symmetry flips the rows, bit 1 the columns and bit 2 swaps rows and
+     * columns (square boards only).
+     */
+    private static int toLayout(BoardModel model, int symmetry, int index) {
+        int length = model.getLength();
+        int width = model.getWidth();
+        int r = index / width;
+        int c = index % width;
+        if ((symmetry & 1) != 0) {
+            r = length - 1 - r;
+        }
+        if ((symmetry & 2) != 0) {
+            c = width - 1 - c;
+        }
+        return ((symmetry & 4) != 0) ? c * width + r : r * width + c;
+    }
+
+    /*
+     * Maps a pooled cell to the board cell it ends up on, undoing toLayout.
+     */
+    private static int toBoard(BoardModel model, int symmetry, int index) {
+        int length = model.getLength();
+        int width = model.getWidth();
+        int r = index / width;
+        int c = index % width;
+        if ((symmetry & 4) != 0) {
+            int swap = r;
+            r = c;
+            c = swap;
+        }
+        if ((symmetry & 1) != 0) {
+            r = length - 1 - r;
+        }
+        if ((symmetry & 2) != 0) {
+            c = width - 1 - c;
+        }
+        return r * width + c;
+    }
+
+    /*
+     * Counts again the cells of a shifted board whose neighbors changed: the
+     * rows and columns on both sides of the seam, and the edges of the board.
+     */
+    private static void recountSeams(BoardModel model, int rowShift, int colShift) {
+        int length = model.getLength();
+        int width = model.getWidth();
+        int rows[] = {0, length - 1, (rowShift + length - 1) % length, rowShift};
+        int cols[] = {0, width - 1, (colShift + width - 1) % width, colShift};
+
+        for (int row : rows) {
+            for (int col = 0; col < width; col++) {
+                recount(model, row, col);
+            }
+        }
+        for (int col : cols) {
+            for (int row = 0; row < length; row++) {
+                recount(model, row, col);
+            }
+        }
+    }
+
+    /*
+     * Counts the bombs around a single cell.
+     */
+    private static void recount(BoardModel model, int row, int col) {
+        int index = model.index(row, col);
+        if (model.isBomb(index)) {
+            return;
+        }
+        int count = 0;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, model.getLength() - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, model.getWidth() - 1); c++) {
+                if (model.isBomb(model.index(r, c))) {
+                    count++;
+                }
+            }
+        }
+        model.setNeighboringBombCount(index, count);
+    }
+
+    /*
+     * Finds the empty cells of the opening a first click on a cell reveals,
+     * leaving the board hidden again.
+     */
+    private static int[] openingOf(BoardModel model, int row, int col, FloodFill floodFill) {
+        floodFill.fill(model, model.index(row, col));
+
+        IntList opening = new IntList(64);
+        for (int i = 0; i < model.size(); i++) {
+            if (model.isCleared(i)) {
+                if (model.getNeighboringBombCount(i) == 0) {
+                    opening.add(i);
+                }
+                model.set(i, model.get(i) & ~BoardModel.CLEARED);
+            }
+        }
+        return opening.toArray();
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+/*
+ * The boards of the engines sharing a GameMetrics, as seen over JMX.
+ */
+public interface BoardsMXBean {
+
+    // Boards laid out on a first reveal, and the time it took
+    long getSetups();
+    double getAverageSetupMillis();
+    double getLongestSetupMillis();
+
+    // Boards of the engines using these metrics, and the bytes their cells take
+    int getBoards();
+    long getBoardFootprint();
+}
@@ -7,20 +7,25 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class Bombs extends JFrame {
 
     // Board Size Constants
-    private final static int MAX_CELL_LENGTH = 10;
-    private final static int BEGINNER_LENGTH = 5;
-    private final static int INTERMEDIATE_LENGTH = 8;
-    private final static int EXPERT_LENGTH = 10;
+    private final static int MAX_CELL_LENGTH = CustomBombs.MAX_LENGTH;
+    private final static int NO_GUESS_LENGTH = (int) Math.sqrt(NoGuessGenerator.MAX_CELLS);
+    private final static int BEGINNER_LENGTH = GameConfig.BEGINNER.getLength();
+    private final static int INTERMEDIATE_LENGTH = GameConfig.INTERMEDIATE.getLength();
+    private final static int EXPERT_LENGTH = GameConfig.EXPERT.getLength();
 
     // Bomb Count Constants
-    private final static int MAX_BOMBS = 50;
-    private final static int BEGINNER_BOMBS = 5;
-    private final static int INTERMEDIATE_BOMBS = 15;
-    private final static int EXPERT_BOMBS = 30;
+    private final static int BEGINNER_BOMBS = GameConfig.BEGINNER.getBombCount();
+    private final static int INTERMEDIATE_BOMBS = GameConfig.INTERMEDIATE.getBombCount();
+    private final static int EXPERT_BOMBS = GameConfig.EXPERT.getBombCount();
 
     // Help Menu Text
     private final static String HELP_TEXT = "************ HOW TO PLAY ************"
@@ -41,25 +46,41 @@ public class Bombs extends JFrame {
             + "\n" + "- Beginner: " + BEGINNER_LENGTH + " x " + BEGINNER_LENGTH + ", " + BEGINNER_BOMBS + " Bombs"
             + "\n" + "- Intermediate: " + INTERMEDIATE_LENGTH + " x " + INTERMEDIATE_LENGTH + ", " + INTERMEDIATE_BOMBS + " Bombs"
             + "\n" + "- Expert: " + EXPERT_LENGTH + " x " + EXPERT_LENGTH + ", " + EXPERT_BOMBS + " Bombs"
-            + "\n" + "- Custom: Up to " + MAX_CELL_LENGTH + " x " + MAX_CELL_LENGTH + ", " + MAX_BOMBS + " Bombs";
+            + "\n" + "- Custom: Up to " + MAX_CELL_LENGTH + " x " + MAX_CELL_LENGTH + ", Bombs in up to half the cells"
+            + "\n" + "- No Guessing: Every board can be solved by logic alone."
+            + "\n" + "    If none is found in time, or the board is larger than"
+            + "\n" + "    " + NO_GUESS_LENGTH + " x " + NO_GUESS_LENGTH + ", Guessing shows by the timer."
+            + "\n\n"
+            + "** Practice **"
+            + "\n" + "- Turn on Practice to take back moves, even a lost one."
+            + "\n" + "- Ctrl+Z undoes a move, Ctrl+Y redoes it, and"
+            + "\n" + "    Jump to Move goes to any move of the game."
+            + "\n\n"
+            + "** Large Boards **"
+            + "\n" + "- Hold Ctrl and use the mouse wheel to zoom."
+            + "\n" + "- Drag with the middle mouse button to pan.";
 
-    // Window Size Constants
-    private final static int CELL_WIDTH = 31;
-    private final static int HEADER_HEIGHT = 75;
+    // System Property Constants: the folder to save a replay of every
+    // finished game in, set with -Dbombs.replays, and the server to play on
+    // instead of locally, as host:port, set with -Dbombs.server
+    private final static String REPLAY_FOLDER = System.getProperty("bombs.replays");
+    private final static String SERVER = System.getProperty("bombs.server");
 
     // Menu Option Constants
     private final static String EXIT = "Exit";
     private final static String HELP = "Help";
     private final static String NEW = "New";
+    private final static String NO_GUESS = "No Guessing";
+    private final static String PRACTICE = "Practice";
+    private final static String UNDO = "Undo";
+    private final static String REDO = "Redo";
+    private final static String JUMP = "Jump to Move...";
     private final static String BEGINNER = "Beginner";
     private final static String INTERMEDIATE = "Intermediate";
     private final static String EXPERT = "Expert";
     private final static String CUSTOM = "Custom";
 
-    private static int length = INTERMEDIATE_LENGTH;
-    private static int width = INTERMEDIATE_LENGTH;
-    private static int bombCount = INTERMEDIATE_BOMBS;
-    private static int bombsLeft = bombCount;
+    private static GameConfig config = GameConfig.INTERMEDIATE;
 
     // Layout Objects: Views of the board and the label area
     private static MenuView menuView;
@@ -68,7 +89,6 @@ public class Bombs extends JFrame {
 
     // Record Keeping Counts
     private int gameTime = 0;
-    private int cellsCleared = 0;
 
     private boolean gameStarted = false;
     private CustomBombs customBombs;
@@ -94,11 +114,20 @@ public class Bombs extends JFrame {
 
         // Allocate the panel to hold menu interface
         menuView = new MenuView(smileyHandler);    // Used to hold score and timer
-        menuView.initialSetup(bombsLeft);
+        menuView.initialSetup(config.getBombCount());
         menuView.fillView();
 
         // ------- GAME VIEW -------
-        gameView = new GameView(new GameBoard(length, width, bombCount, new GameMouseListener()));         // Used to hold main game board
+        gameView = new GameView(new GameEngine(config), new GameMouseListener());         // Used to hold main game board
+        if (SERVER != null) {
+            int colon = SERVER.lastIndexOf(':');
+            gameView.connect(new GameClient(SERVER.substring(0, colon), Integer.parseInt(SERVER.substring(colon + 1))));
+        }
+        else {
+            gameView.getEngine().getGameBoard().setPool(new BoardPool());    // Keeps layouts ready for the first click
+            gameView.getEngine().setRecorder(new ReplayRecorder());          // Records every game as a replay
+            gameView.getEngine().setMetrics(GameMetrics.register("game"));    // Counts games and moves for JMX
+        }
         gameView.initialSetup();
 
         // ------- CONTAINER -------
@@ -110,8 +139,7 @@ public class Bombs extends JFrame {
         c.add(gameView, BorderLayout.CENTER);
 
         // ------- PANEL -------
-        setSize(INTERMEDIATE_LENGTH * CELL_WIDTH, INTERMEDIATE_LENGTH * CELL_WIDTH + HEADER_HEIGHT);
-        setResizable(false);
+        fitToScreen();
         setVisible(true);
 
     }
@@ -123,6 +151,7 @@ public class Bombs extends JFrame {
 
         // Stop the Timer and Make Smiley Button Sunglasses Face
         menuView.gameWon();
+        saveReplay();
 
         // Reveal all the bombs
         gameView.revealBoard();
@@ -137,6 +166,7 @@ public class Bombs extends JFrame {
     private void gameLost() {
         // Stop the Timer and Make Smiley Button a Frowny Face
         menuView.gameLost();
+        saveReplay();
 
         // Reveal All the Bombs
         gameView.revealBoard();
@@ -144,24 +174,31 @@ public class Bombs extends JFrame {
         JOptionPane.showMessageDialog(Bombs.this, "You Lost After " + menuView.getTime() + " Seconds!");
     }
 
+    /*
+     * Saves the replay of the finished game, if a replay folder is set.
+     */
+    private void saveReplay() {
+        if (REPLAY_FOLDER == null || gameView.isRemote() || gameView.getEngine().getRecorder() == null) {
+            return;
+        }
+        try {
+            Path folder = Files.createDirectories(Paths.get(REPLAY_FOLDER));
+            gameView.getEngine().getRecorder().toReplay().save(folder.resolve("replay-" + System.currentTimeMillis() + ".bin"));
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Could not save replay: " + e.getMessage());
+        }
+    }
+
     /*
      * Resets the entire game.
      */
     private void resetGame() {
-        System.out.println("Resetting Game");
-
         gameStarted = false;
 
         // Reset Game Time
         gameTime = 0;
 
-        // Reset cellsCleared
-        cellsCleared = 0;
-
-        // Reset bombs left
-        bombsLeft = bombCount;
-
-        menuView.resetGame(bombsLeft);
+        menuView.resetGame(config.getBombCount());
 
         // Clear and reset cells
         gameView.resetGame();
@@ -170,30 +207,110 @@ public class Bombs extends JFrame {
         repaint();
     }
 
+    /*
+     * Tells the player when no guessing is on, but the board was laid out
+     * without the guarantee, as none was found in time or the board is too
+     * large.
+     */
+    private void showGuessing() {
+        if (gameView.isRemote()) {
+            return;
+        }
+        GameEngine engine = gameView.getEngine();
+        GameBoard board = engine.getGameBoard();
+        menuView.showGuessing(engine.getStatus() != GameEngine.Status.READY && board.isNoGuess() && !board.isGuessFree());
+    }
+
+    /*
+     * Turns practice on or off. Practice games keep every move so they can
+     * be taken back, and are not saved as replays.
+     *
+     * @param   practice    Whether or not to keep moves
+     */
+    private void setPractice(boolean practice) {
+        if (gameView.isRemote()) {
+            return;
+        }
+        GameEngine engine = gameView.getEngine();
+        engine.setRecorder(practice ? null : new ReplayRecorder());
+        engine.setHistory(practice ? new MoveHistory() : null);
+    }
+
+    /*
+     * Asks for a move of the game and puts the game back as it was after it.
+     */
+    private void jumpToMove() {
+        MoveHistory history = gameView.getEngine().getHistory();
+        if (history == null || history.getMoveCount() < 1 || gameView.isRemote()) {
+            return;
+        }
+        String answer = JOptionPane.showInputDialog(Bombs.this,
+                "Jump to move (0 - " + history.getMoveCount() + "):", history.getPosition());
+        if (answer == null) {
+            return;
+        }
+        try {
+            int move = Integer.parseInt(answer.trim());
+            if (move < 0 || move > history.getMoveCount()) {
+                return;
+            }
+            boolean wasOver = gameView.isGameOver();
+            gameView.jumpTo(move);
+            updateAfterJump(wasOver);
+        } catch (NumberFormatException e) {
+            // Not a move, so stay where the game is
+        }
+    }
+
+    /*
+     * Updates the menu view for a game whose moves were taken back or made again.
+     *
+     * @param   wasOver     Whether or not the game was over before
+     */
+    private void updateAfterJump(boolean wasOver) {
+        menuView.updateBombLabel(gameView.getBombsLeft());
+        if (gameView.getStatus() == GameEngine.Status.WON) {
+            menuView.gameWon();
+        }
+        else if (gameView.getStatus() == GameEngine.Status.LOST) {
+            menuView.gameLost();
+        }
+        else if (wasOver) {
+            menuView.resumeGame();
+        }
+    }
+
     /*
      * Changes the board to match the specs.
      *
-     * @param   length      The desired length of the board
-     * @param   width       The desired width of the board
-     * @paaram  bombCount   The desired bomb count for the board
+     * @param   config      The desired level of the board
      */
-    private void changeBoard(int length, int width, int bombCount) {
+    private void changeBoard(GameConfig config) {
 
-        this.length = length;
-        this.width = width;
-        this.bombCount = bombCount;
-        bombsLeft = bombCount;
+        Bombs.config = config;
 
         //menuView.changeBoard(bombCount);
-        menuView.updateBombLabel(bombCount);
+        menuView.updateBombLabel(config.getBombCount());
 
-        setSize(width * 31, length * 31 + 75);
-        gameView.refresh(length, width, bombCount);
+        gameView.refresh(config);
+        fitToScreen();
 
         revalidate();
         repaint();
     }
 
+    /*
+     * Sizes the window to the board, shrinking it to fit on the screen.
+     * Boards larger than the screen are scrolled and zoomed in the game view.
+     */
+    private void fitToScreen() {
+        pack();
+
+        Rectangle screen = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+        Dimension size = getSize();
+        setSize(Math.min(size.width, screen.width), Math.min(size.height, screen.height));
+    }
+
     /*
      * Opens the custom board menu.
      */
@@ -249,6 +366,29 @@ public class Bombs extends JFrame {
              else if (curMenuItem.getText().equals(HELP)) {
                  showHelpMenu();
              }
+             else if (curMenuItem.getText().equals(NO_GUESS)) {
+                 gameView.getEngine().getGameBoard().setNoGuess(curMenuItem.isSelected());
+                 resetGame();
+             }
+             else if (curMenuItem.getText().equals(PRACTICE)) {
+                 setPractice(curMenuItem.isSelected());
+                 resetGame();
+             }
+             else if (curMenuItem.getText().equals(UNDO)) {
+                 boolean wasOver = gameView.isGameOver();
+                 if (gameView.undo()) {
+                     updateAfterJump(wasOver);
+                 }
+             }
+             else if (curMenuItem.getText().equals(REDO)) {
+                 boolean wasOver = gameView.isGameOver();
+                 if (gameView.redo()) {
+                     updateAfterJump(wasOver);
+                 }
+             }
+             else if (curMenuItem.getText().equals(JUMP)) {
+                 jumpToMove();
+             }
         }
     }
 
@@ -262,13 +402,13 @@ public class Bombs extends JFrame {
             resetGame();
 
             if (curMenuItem.getText().equals(BEGINNER)) {
-                changeBoard(BEGINNER_LENGTH, BEGINNER_LENGTH, BEGINNER_BOMBS);
+                changeBoard(GameConfig.BEGINNER);
             }
             else if (curMenuItem.getText().equals(INTERMEDIATE)) {
-                changeBoard(INTERMEDIATE_LENGTH, INTERMEDIATE_LENGTH, INTERMEDIATE_BOMBS);
+                changeBoard(GameConfig.INTERMEDIATE);
             }
             else if (curMenuItem.getText().equals(EXPERT)) {
-                changeBoard(EXPERT_LENGTH, EXPERT_LENGTH, EXPERT_BOMBS);
+                changeBoard(GameConfig.EXPERT);
             }
             else if (curMenuItem.getText().equals(CUSTOM)) {
                 customBoard();
@@ -284,82 +424,85 @@ public class Bombs extends JFrame {
         public void mousePressed(MouseEvent e){}
         public void mouseClicked(MouseEvent e){
 
+            // Time the whole click on the event dispatch thread, for a flight recording
+            long queued = System.currentTimeMillis() - e.getWhen();
+            GameEvents.Click event = new GameEvents.Click();
+            event.begin();
+            boolean handled = handleClick(e);
+
+            // The dialog at the end of a game waits on the player, so is not timed
+            event.end();
+            if (event.shouldCommit()) {
+                BoardCanvas canvas = (BoardCanvas)e.getSource();
+                GameEngine engine = gameView.getEngine();
+                event.rows = engine.getModel().getLength();
+                event.columns = engine.getModel().getWidth();
+                event.row = canvas.rowAt(e.getY());
+                event.column = canvas.colAt(e.getX());
+                event.button = SwingUtilities.isRightMouseButton(e) ? "Right" : SwingUtilities.isMiddleMouseButton(e) ? "Middle" : "Left";
+                CellDelta delta = engine.getDelta();
+                event.cellsChanged = !handled ? 0 : delta.isAll() ? engine.getModel().size() : delta.size();
+                event.status = gameView.getStatus().toString();
+                event.queued = Math.max(queued, 0);
+                event.commit();
+            }
+
+            if (!handled) {
+                return;
+            }
+            if (gameView.getStatus() == GameEngine.Status.LOST) {
+                // Explode the bomb
+                gameLost();
+            }
+            else if (gameView.getStatus() == GameEngine.Status.WON) {
+                gameWon();
+            }
+        }
+
+        /*
+         * Handles a click on the board.
+         *
+         * @param   e           The click
+         * @return              Whether or not the click was a move
+         */
+        private boolean handleClick(MouseEvent e){
+
+            // Middle button is reserved for panning the board
+            if (SwingUtilities.isMiddleMouseButton(e)) {
+                return false;
+            }
+
             // Get the cell clicked on
-            Cell curCell = (Cell)e.getSource();
+            BoardCanvas canvas = (BoardCanvas)e.getSource();
+            int row = canvas.rowAt(e.getY());
+            int col = canvas.colAt(e.getX());
+            if (row < 0 || col < 0) {
+                return false;
+            }
+
+            // Ignore clicks once the game is over
+            if (gameView.isGameOver()) {
+                return false;
+            }
 
-            // Start the Game Timer and Setup the Board
+            // Start the Game Timer, the board is set up by the first reveal
             if (!gameStarted) {
-                cellsCleared = 0;
                 menuView.startTimer();
-                gameView.setup(curCell);
                 gameStarted = true;
             }
 
             // Check if the user right clicked for flag
             if (SwingUtilities.isRightMouseButton(e)) {
-                if (curCell.isPressed()) {
-                    return;
-                }
-                gameView.toggleFlag(curCell);
-                if (curCell.isFlagged()) {
-                    // Decrease bomb count by one
-                    bombsLeft--;
-                }
-                else {
-                    bombsLeft++;
-                }
-                menuView.updateBombLabel(bombsLeft);
+                gameView.toggleFlag(row, col);
+                menuView.updateBombLabel(gameView.getBombsLeft());
             }
             else { // Left Clicked
 
-                // Clear neighboring cells if number cell is clicked
-                int neighboringBombCount = curCell.getNeighboringBombCount();
-                if ((neighboringBombCount > 0) && (curCell.isCleared()) && (neighboringBombCount == gameView.getNeighboringFlagCount(curCell))) {
-                    int neighboringCells = gameView.revealNeighboringCells(curCell);
-
-                    // Check if one of the cleared cells are bombs
-                    if (neighboringCells == -1) {
-                        // Explode the bomb
-                        gameLost();
-                        return;
-                    }
-                    cellsCleared += neighboringCells;
-                }
-                else if (curCell.isPressed() || curCell.isFlagged()) {
-                    // Otherwise, Don't let a user click on a cell that is already pressed
-                    return;
-                }
-                else { // Else, normal, unclicked cell is clicked
-
-                    // Show the Pressed Icon
-                    curCell.showIcon();
-
-                    // Check if the cell is a bomb
-                    if (curCell.isBomb()) {
-
-                        // Explode the bomb
-                        gameLost();
-
-                    } else if (curCell.isNeighbor()) {
-
-                        // If the cell is an ordinary number cell, just reveal it
-                        cellsCleared += gameView.clearCell(curCell);
-
-                    } else {
-
-                        // Turn over all Neighboring non-bomb cells
-                        int i = gameView.clearBombPath(curCell);
-                        cellsCleared += i;
-                    }
-                }
-
-                if (cellsCleared >= (length * width - bombCount)) {
-                    gameWon();
-                }
-
-                revalidate();
-                repaint();
+                // Reveal the cell, or its neighbors if it is a number with all its flags placed
+                gameView.click(row, col);
+                showGuessing();
             }
+            return true;
         }
     };
 
@@ -378,7 +521,7 @@ public class Bombs extends JFrame {
         // Handle button event
         public void actionPerformed(ActionEvent event) {
 
-            changeBoard(customBombs.getLength(), customBombs.getWidth(), customBombs.getBombCount());
+            changeBoard(GameConfig.custom(customBombs.getLength(), customBombs.getWidth(), customBombs.getBombCount()));
 
             // Close the Window
             customBombs.close();
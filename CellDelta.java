@@ -0,0 +1,126 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+
+/*
+ * CellDelta lists the cells changed by a move and their packed states
+ * afterwards, in the order they changed. A cell changed twice is listed
+ * twice, and its later entry holds its final state.
+ *
+ * It is filled by a BoardModel tracking changes, and cleared by the
+ * GameEngine at the start of every move, so the arrays are reused and a
+ * move allocates nothing once they have grown to fit the largest move.
+ *
+ * Bulk operations, such as showing the whole board at the end of a game,
+ * do not list their cells. They mark the delta as changing every cell
+ * instead, and whoever reads it looks at the whole board.
+ */
+public class CellDelta {
+
+    private int indices[];
+    private byte states[];
+    private int size = 0;
+
+    // Whether or not every cell of the board changed
+    private boolean all = false;
+
+    /*
+     * Constructor for CellDelta
+     */
+    public CellDelta() {
+        this(64);
+    }
+
+    /*
+     * Constructor for CellDelta
+     *
+     * @param   capacity    The number of cells to hold before growing
+     */
+    public CellDelta(int capacity) {
+        indices = new int[Math.max(capacity, 4)];
+        states = new byte[indices.length];
+    }
+
+    /*
+     * Adds a changed cell.
+     *
+     * @param   index       The index of the cell
+     * @param   state       The packed state of the cell after the change
+     */
+    public void add(int index, int state) {
+        if (size == indices.length) {
+            indices = Arrays.copyOf(indices, size * 2);
+            states = Arrays.copyOf(states, size * 2);
+        }
+        indices[size] = index;
+        states[size] = (byte) state;
+        size++;
+    }
+
+    /*
+     * Marks every cell of the board as changed, by a bulk operation that
+     * does not add them one by one.
+     */
+    public void markAll() {
+        all = true;
+    }
+
+    /*
+     * Checks if every cell of the board changed, besides the cells listed.
+     *
+     * @return              Whether or not the whole board must be looked at
+     */
+    public boolean isAll() {
+        return all;
+    }
+
+    /*
+     * Gets the index of a changed cell.
+     *
+     * @param   i           The position in the delta
+     * @return              The index of the cell
+     */
+    public int getIndex(int i) {
+        return indices[i];
+    }
+
+    /*
+     * Gets the state of a changed cell after the change.
+     *
+     * @param   i           The position in the delta
+     * @return              The packed cell state
+     */
+    public int getState(int i) {
+        return states[i] & 0xFF;
+    }
+
+    /*
+     * Gets the number of changes listed.
+     *
+     * @return              The size of the delta
+     */
+    public int size() {
+        return size;
+    }
+
+    /*
+     * Checks if nothing changed.
+     *
+     * @return              Whether or not the delta is empty
+     */
+    public boolean isEmpty() {
+        return size == 0 && !all;
+    }
+
+    /*
+     * Removes every change, keeping the allocated capacity.
+     */
+    public void clear() {
+        size = 0;
+        all = false;
+    }
+}
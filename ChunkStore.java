@@ -0,0 +1,112 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * ChunkStore keeps the chunks of an InfiniteBoard that the player changed
+ * on disk, one file of packed cell states per chunk, so they can be evicted
+ * from memory and loaded back exactly as they were left.
+ *
+ * Files are named after the chunk coordinates. The chunks already in the
+ * directory are listed once when the store is opened, so checking for a
+ * stored chunk does not touch the disk. A store belongs to one world: open
+ * it again with the same seed and density to carry on.
+ */
+public class ChunkStore {
+
+    private final static String PREFIX = "chunk_";
+    private final static String SUFFIX = ".bin";
+
+    private final Path directory;
+
+    // Keys of the chunks written to the directory
+    private final Set<Long> stored = new HashSet<Long>();
+
+    /*
+     * Constructor for ChunkStore
+     *
+     * @param   directory   The directory to keep chunks in, created if missing
+     */
+    public ChunkStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    String coordinates[] = name.substring(PREFIX.length(), name.length() - SUFFIX.length()).split("_");
+                    stored.add(InfiniteBoard.key(Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1])));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open chunk store: " + directory, e);
+        }
+    }
+
+    /*
+     * Checks if a chunk has been written.
+     *
+     * @param   chunkRow    The row of the chunk
+     * @param   chunkCol    The column of the chunk
+     * @return              Whether or not the chunk is stored
+     */
+    public boolean contains(int chunkRow, int chunkCol) {
+        return stored.contains(InfiniteBoard.key(chunkRow, chunkCol));
+    }
+
+    /*
+     * Reads the cell states of a stored chunk.
+     *
+     * @param   chunkRow    The row of the chunk
+     * @param   chunkCol    The column of the chunk
+     * @return              The packed cell states
+     */
+    public byte[] read(int chunkRow, int chunkCol) {
+        Path file = fileOf(chunkRow, chunkCol);
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read chunk: " + file, e);
+        }
+    }
+
+    /*
+     * Writes the cell states of a chunk, replacing any earlier copy.
+     *
+     * @param   chunkRow    The row of the chunk
+     * @param   chunkCol    The column of the chunk
+     * @param   states      The packed cell states
+     */
+    public void write(int chunkRow, int chunkCol, byte states[]) {
+        Path file = fileOf(chunkRow, chunkCol);
+        try {
+            Files.write(file, states);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write chunk: " + file, e);
+        }
+        stored.add(InfiniteBoard.key(chunkRow, chunkCol));
+    }
+
+    /*
+     * Gets the number of chunks stored.
+     *
+     * @return              The stored chunk count
+     */
+    public int size() {
+        return stored.size();
+    }
+
+    private Path fileOf(int chunkRow, int chunkCol) {
+        return directory.resolve(PREFIX + chunkRow + "_" + chunkCol + SUFFIX);
+    }
+}
@@ -13,14 +13,22 @@ import java.awt.event.WindowEvent;
 
 /*
  * CustomBombs allows the user to enter their custom board size and bomb count.
+ *
+ * Each value has a slider for a rough setting and a spinner next to it to
+ * type or step the exact number, as a slider over thousands of values moves
+ * by many at a time. The two are kept in step both ways.
  */
 public class CustomBombs implements ChangeListener {
 
+    // Board Size Limits
+    public final static int MIN_LENGTH = 5;
+    public final static int MAX_LENGTH = 10000;
+
     private JFrame customFrame;
     private JSlider heightSlider, widthSlider, bombSlider;
     private JButton acceptButton;
     private JLabel heightLabel, widthLabel, bombLabel;
-    private JLabel heightValueLabel, widthValueLabel, bombValueLabel;
+    private JSpinner heightSpinner, widthSpinner, bombSpinner;
 
     private JPanel sliderView, labelView, valueView, acceptView;
 
@@ -38,7 +46,7 @@ public class CustomBombs implements ChangeListener {
         Container c = customFrame.getContentPane();
 
         // Allocate two major panels to hold interface
-        valueView = new JPanel();     // Used to hole slider values
+        valueView = new JPanel();     // Used to hold the spinners for exact values
         sliderView = new JPanel();    // Used to hold main game board
         labelView = new JPanel();     // Used to hold slider labels
         acceptView = new JPanel();    // Used to hold the accept button
@@ -54,16 +62,16 @@ public class CustomBombs implements ChangeListener {
         acceptButton.addActionListener(CBH);
 
         // Allocate Sliders
-        heightSlider = new JSlider(JSlider.HORIZONTAL, 5, 10, 5);
-        widthSlider = new JSlider(JSlider.HORIZONTAL, 5, 10, 5);
+        heightSlider = new JSlider(JSlider.HORIZONTAL, MIN_LENGTH, MAX_LENGTH, MIN_LENGTH);
+        widthSlider = new JSlider(JSlider.HORIZONTAL, MIN_LENGTH, MAX_LENGTH, MIN_LENGTH);
         bombSlider = new JSlider(JSlider.HORIZONTAL, 1, 50, 1);
 
         // Customize Sliders
-        heightSlider.setMajorTickSpacing(5);
+        heightSlider.setMajorTickSpacing(MAX_LENGTH - MIN_LENGTH);
         heightSlider.setPaintLabels(true);
         heightSlider.addChangeListener(this);
 
-        widthSlider.setMajorTickSpacing(5);
+        widthSlider.setMajorTickSpacing(MAX_LENGTH - MIN_LENGTH);
         widthSlider.setPaintLabels(true);
         widthSlider.addChangeListener(this);
 
@@ -71,21 +79,20 @@ public class CustomBombs implements ChangeListener {
         bombSlider.setPaintLabels(true);
         bombSlider.addChangeListener(this);
 
+        // Allocate Spinners
+        heightSpinner = newSpinner(MIN_LENGTH, MIN_LENGTH, MAX_LENGTH);
+        widthSpinner = newSpinner(MIN_LENGTH, MIN_LENGTH, MAX_LENGTH);
+        bombSpinner = newSpinner(1, 1, 50);
+
         // Allocate Labels
         heightLabel = new JLabel("Height");
         widthLabel = new JLabel("Width");
         bombLabel = new JLabel("Bombs");
-        heightValueLabel = new JLabel("5");
-        widthValueLabel = new JLabel("5");
-        bombValueLabel = new JLabel("1");
 
         // Customize Labels
         heightLabel.setHorizontalAlignment(SwingConstants.CENTER);
         widthLabel.setHorizontalAlignment(SwingConstants.CENTER);
         bombLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        heightValueLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        widthValueLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        bombValueLabel.setHorizontalAlignment(SwingConstants.CENTER);
 
         // Add the interface elements to the label view
         labelView.setLayout(new GridLayout(3, 1, 25, 5));
@@ -101,9 +108,9 @@ public class CustomBombs implements ChangeListener {
 
         // Add the interface elements to the value view
         valueView.setLayout(new GridLayout(3, 1, 25, 5));
-        valueView.add(heightValueLabel);
-        valueView.add(widthValueLabel);
-        valueView.add(bombValueLabel);
+        valueView.add(heightSpinner);
+        valueView.add(widthSpinner);
+        valueView.add(bombSpinner);
 
         // Add the interface element to the accept view
         acceptView.setLayout(new GridLayout(1, 1, 5, 5));
@@ -115,42 +122,68 @@ public class CustomBombs implements ChangeListener {
         c.add(valueView, BorderLayout.EAST);
         c.add(acceptView, BorderLayout.SOUTH);
 
-        customFrame.setSize(400, 300);
+        customFrame.setSize(480, 300);
         customFrame.setResizable(false);
         customFrame.setVisible(true);
     }
 
     /*
-     * Responds to the state change from the slider
+     * Creates a spinner for whole numbers, wide enough for the largest.
+     *
+     * @param   value       The starting value
+     * @param   min         The smallest value
+     * @param   max         The largest value
+     * @return              The spinner, listened to by this console
+     */
+    private JSpinner newSpinner(int value, int min, int max) {
+        JSpinner spinner = new JSpinner(new SpinnerNumberModel(value, min, max, 1));
+        ((JSpinner.DefaultEditor)spinner.getEditor()).getTextField().setColumns(8);
+        spinner.addChangeListener(this);
+        return spinner;
+    }
+
+    /*
+     * Responds to the state change from a slider or spinner, moving the
+     * other one of the pair to the same value.
      *
      * @param   e       The change event occur which called the function
      */
     public void stateChanged(ChangeEvent e) {
-        JSlider curSlider = (JSlider)e.getSource();
+        Object source = e.getSource();
 
-        int value = curSlider.getValue();
+        int value = (source instanceof JSlider) ? ((JSlider)source).getValue() : (Integer)((JSpinner)source).getValue();
 
-        if (curSlider == heightSlider) {
-            heightValueLabel.setText(Integer.toString(value));
+        if (source == heightSlider || source == heightSpinner) {
             length = value;
+            heightSlider.setValue(value);
+            heightSpinner.setValue(value);
         }
-        else if (curSlider == widthSlider) {
-            widthValueLabel.setText(Integer.toString(value));
+        else if (source == widthSlider || source == widthSpinner) {
             width = value;
+            widthSlider.setValue(value);
+            widthSpinner.setValue(value);
         }
-        else if (curSlider == bombSlider) {
-            bombValueLabel.setText(Integer.toString(value));
+        else if (source == bombSlider || source == bombSpinner) {
             bombCount = value;
+            bombSlider.setValue(value);
+            bombSpinner.setValue(value);
         }
 
-        // Update Bomb Slider Range
+        // Update Bomb Slider Range, which moves the bomb count down to fit
         int max = length * width / 2;
-        bombSlider.setMaximum(max);
+        if (max != bombSlider.getMaximum()) {
+            bombSlider.setMaximum(max);
+            ((SpinnerNumberModel)bombSpinner.getModel()).setMaximum(max);
+
+            // Only label the ends, large boards would otherwise need millions of labels
+            bombSlider.setMajorTickSpacing(max - 1);
+            bombSlider.setLabelTable(bombSlider.createStandardLabels(max - 1, 1));
+        }
         customFrame.repaint();
     }
 
     /*
-     * Retrieves the length set from the slider.
+     * Retrieves the length set from the slider or spinner.
      *
      * @return      the desired board length
      */
@@ -159,7 +192,7 @@ public class CustomBombs implements ChangeListener {
     }
 
     /*
-     * Retrieves the width set from the slider.
+     * Retrieves the width set from the slider or spinner.
      *
      * @return      the desired board width
      */
@@ -168,7 +201,7 @@ public class CustomBombs implements ChangeListener {
     }
 
     /*
-     * Retrieves the bomb count from the slider.
+     * Retrieves the bomb count from the slider or spinner.
      *
      * @return      the desired bomb count
      */
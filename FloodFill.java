@@ -0,0 +1,178 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+/*
+ * FloodFill clears the connected empty area around a cell, and the
+ * numbered cells bordering it.
+ *
+ * The fill works a row span at a time: a queued empty cell is grown left
+ * and right into the longest run of hidden empty cells, the whole run is
+ * cleared, and the rows above and below it are swept once, clearing the
+ * numbers and queueing the start of every hidden empty run. Pending cells
+ * are plain int indices on a stack that is reused between clicks, so once
+ * the stack has grown to fit the largest opening seen, a fill allocates
+ * nothing. The cleared bit of the model is the visited mark, so cells
+ * queued by several starting points are still only cleared once.
+ */
+public class FloodFill {
+
+    // Stack of hidden empty cells to grow spans from
+    private int stack[] = new int[64];
+    private int size = 0;
+
+    /*
+     * Clears the cell at the given index and its whole empty area.
+     *
+     * @param   model       The board to clear cells on
+     * @param   index       The index of the cell to start from
+     * @return              The number of cells cleared
+     */
+    public int fill(BoardModel model, int index) {
+        return clear(model, index) + drain(model);
+    }
+
+    /*
+     * Clears a single numbered cell, or queues an empty cell so its area is
+     * cleared by the next drain. The cell must not be a bomb.
+     *
+     * @param   model       The board to clear cells on
+     * @param   index       The index of the cell to clear
+     * @return              The number of cells cleared right away (0 or 1)
+     */
+    public int clear(BoardModel model, int index) {
+        int state = model.get(index);
+        if ((state & BoardModel.CLEARED) != 0) {
+            return 0;
+        }
+        if ((state & BoardModel.COUNT_MASK) == 0) {
+            push(index);
+            return 0;
+        }
+        model.set(index, state | BoardModel.CLEARED);
+        return 1;
+    }
+
+    /*
+     * Clears the area of every queued empty cell.
+     *
+     * @param   model       The board to clear cells on
+     * @return              The number of cells cleared
+     */
+    public int drain(BoardModel model) {
+        int length = model.getLength();
+        int width = model.getWidth();
+        int cellsCleared = 0;
+
+        while (size > 0) {
+            int index = stack[--size];
+            if (!isHiddenEmpty(model.get(index))) {
+                // Already cleared as part of another span
+                continue;
+            }
+
+            int row = index / width;
+            int rowStart = row * width;
+            int col = index - rowStart;
+
+            // Grow the span over the hidden empty cells on both sides
+            int firstCol = col;
+            while (firstCol > 0 && isHiddenEmpty(model.get(rowStart + firstCol - 1))) {
+                firstCol--;
+            }
+            int lastCol = col;
+            while (lastCol < width - 1 && isHiddenEmpty(model.get(rowStart + lastCol + 1))) {
+                lastCol++;
+            }
+
+            // The span and the numbers at either end of it
+            int sweepFirst = Math.max(firstCol - 1, 0);
+            int sweepLast = Math.min(lastCol + 1, width - 1);
+            for (int c = sweepFirst; c <= sweepLast; c++) {
+                int state = model.get(rowStart + c);
+                if ((state & (BoardModel.BOMB | BoardModel.CLEARED)) == 0) {
+                    model.set(rowStart + c, state | BoardModel.CLEARED);
+                    cellsCleared++;
+                }
+            }
+
+            // The rows above and below the span
+            if (row > 0) {
+                cellsCleared += sweep(model, rowStart - width, sweepFirst, sweepLast);
+            }
+            if (row < length - 1) {
+                cellsCleared += sweep(model, rowStart + width, sweepFirst, sweepLast);
+            }
+        }
+
+        return cellsCleared;
+    }
+
+    /*
+     * Drops every queued cell without clearing its area, for when a chord
+     * hits a bomb part way through.
+     */
+    public void discard() {
+        size = 0;
+    }
+
+    /*
+     * Clears the numbered cells in part of a row, and queues the first cell
+     * of every run of hidden empty cells.
+     *
+     * @param   model       The board to clear cells on
+     * @param   rowStart    The index of the first cell in the row
+     * @param   firstCol    The first column to sweep
+     * @param   lastCol     The last column to sweep
+     * @return              The number of cells cleared
+     */
+    private int sweep(BoardModel model, int rowStart, int firstCol, int lastCol) {
+        int cellsCleared = 0;
+        boolean inRun = false;
+
+        for (int c = firstCol; c <= lastCol; c++) {
+            int state = model.get(rowStart + c);
+            if (isHiddenEmpty(state)) {
+                if (!inRun) {
+                    push(rowStart + c);
+                    inRun = true;
+                }
+            }
+            else {
+                inRun = false;
+                if ((state & (BoardModel.BOMB | BoardModel.CLEARED)) == 0) {
+                    model.set(rowStart + c, state | BoardModel.CLEARED);
+                    cellsCleared++;
+                }
+            }
+        }
+
+        return cellsCleared;
+    }
+
+    /*
+     * Checks if a cell is empty and not cleared yet.
+     *
+     * @param   state       The packed cell state
+     * @return              Whether or not the cell is a hidden empty cell
+     */
+    private static boolean isHiddenEmpty(int state) {
+        return (state & (BoardModel.BOMB | BoardModel.CLEARED | BoardModel.COUNT_MASK)) == 0;
+    }
+
+    /*
+     * Pushes an empty cell onto the stack, growing it if needed.
+     *
+     * @param   index       The index of the empty cell
+     */
+    private void push(int index) {
+        if (size == stack.length) {
+            int grown[] = new int[stack.length * 2];
+            System.arraycopy(stack, 0, grown, 0, size);
+            stack = grown;
+        }
+        stack[size++] = index;
+    }
+}
@@ -4,17 +4,13 @@
  * Date: October 1st, 2017
  */
 
-import javax.swing.*;
-import javax.swing.border.EmptyBorder;
-import java.util.LinkedList;
+import java.util.SplittableRandom;
 
 /*
  * The game board for the Bombs game.
  */
 public class GameBoard {
 
-    private final static int MAX_CELL_LENGTH = 10;
-
     // Metadata
     private int length;
     private int width;
@@ -24,189 +20,164 @@ public class GameBoard {
     private static final int R_NEIGHBOR_COORDINATES[] = {1, 1, 1, 0, -1, -1, -1, 0};
     private static final int C_NEIGHBOR_COORDINATES[] = {-1, 0, 1, 1, 1, 0, -1, -1};
 
-    // Game Board Array
-    private Cell cells[][] = new Cell[MAX_CELL_LENGTH][MAX_CELL_LENGTH];
+    // Game State: One packed byte per cell
+    private BoardModel model;
 
-    // Icon Constants
-    private static final int BOMB_ICON = -1;
-    private static final int ICON_0 = 0;
+    // Layout Generation
+    private SplittableRandom seeds = new SplittableRandom();
+    private long seed;
+    private long nextSeed;
+    private boolean hasNextSeed = false;
+    private boolean seeded = false;
+    private int safeRadius = MineGenerator.DEFAULT_SAFE_RADIUS;
 
-    /*
-     * Constructor for GameBoard
-     *
-     * @param   length      The length of the GameBoard
-     * @param   width       The width of the GameBoard
-     */
-    public GameBoard(int length, int width, int totalBombCount, Bombs.GameMouseListener GML) {
+    // Bombs requested for the next layout, or null to generate one
+    private int nextBombs[];
 
-        // Fill in the metadata
-        this.length = length;
-        this.width = width;
-        this.bombCount = totalBombCount;
+    // Generator of guess free layouts, or null when any layout will do
+    private NoGuessGenerator noGuessGenerator;
 
-        // Fill the Cell array
-        Cell cell;
-        for (int r = 0; r < MAX_CELL_LENGTH; r++) {
-            for (int c = 0; c < MAX_CELL_LENGTH; c++) {
+    // Whether or not the current layout was generated guess free
+    private boolean guessFree = false;
 
-                cell = new Cell();
+    // Layouts generated in the background, or null to generate on the first click
+    private BoardPool pool;
 
-                // Set Up Button
-                cell.addMouseListener(GML);
-                cell.setRow(r);
-                cell.setCol(c);
+    // Openings of the current layout, or null before setup
+    private Openings openings;
 
-                // Strip Unnecessary Border
-                cell.setBorder(new EmptyBorder(0, 0, 0, 0));
+    // Whether or not the openings of a pooled layout are still to be labeled
+    private boolean openingsPending = false;
 
-                cells[r][c] = cell;
-            }
-        }
-    }
+    // Reusable flood fill for clearing empty areas without labeled openings
+    private FloodFill floodFill = new FloodFill();
+
+    // Whether or not new boards keep their past states, in a PersistentBoardModel
+    private boolean persistent = false;
 
     /*
-     * Set up the game board from around the starting cell.
+     * Constructor for GameBoard
      *
-     * @param   cell        The current cell to set up from
+     * @param   length      The length of the GameBoard
+     * @param   width       The width of the GameBoard
      */
-    public void setup(Cell cell) {
-
-        // Fill Cells With Bombs
-        fillCellsWithBombs(cell.getRow(), cell.getCol());
-
-        // Randomize Cells
-        randomizeCells(cell.getRow(), cell.getCol());
-
-        // Fill in Count for All Non-Bomb Cells
-        fillNeighborCount();
+    public GameBoard(int length, int width, int totalBombCount) {
+        changeBoard(length, width, totalBombCount);
     }
 
     /*
-     * Fill the entire board with the appropriate bomb neighbor counts.
+     * Constructor for a GameBoard on an existing board model, such as a
+     * MappedBoardModel. The model keeps its cells, so a game in progress
+     * carries on. Changing the board size later moves it to the heap.
+     *
+     * @param   model       The board model to play on
+     * @param   bombCount   The number of bombs on the board
      */
-    private void fillNeighborCount() {
-
-        for (int r = 0; r < length; r++) {
-            for (int c = 0; c < width; c++) {
-                Cell curCell = cells[r][c];
-
-                if (curCell.isBomb()) {
-
-                    // Increase all the neighbor's bomb counts by 1
-                    for (int n = 0; n < R_NEIGHBOR_COORDINATES.length; n++) {
-                        int newR = r + R_NEIGHBOR_COORDINATES[n];
-                        int newC = c + C_NEIGHBOR_COORDINATES[n];
-
-                        // Check to make sure cell is not out of bounds or already a bomb
-                        if (newR >= 0 && newR < length && newC >= 0 && newC < width
-                                && !cells[newR][newC].isBomb()) {
-
-                            // Add a bomb to the neighbor
-                            cells[newR][newC].addBomb();
-                            //cells[newR][newC].setText(Integer.toString(cells[newR][newC].getNeighboringBombCount()));
-                            cells[newR][newC].setHiddenIcon(cells[newR][newC].getNeighboringBombCount());
-                        }
-                    }
-                }
-            }
-        }
+    public GameBoard(BoardModel model, int bombCount) {
+        this.length = model.getLength();
+        this.width = model.getWidth();
+        this.bombCount = bombCount;
+        this.model = model;
     }
 
     /*
-     * Fills the board view with cells
+     * Set up the game board from around the starting cell.
      *
-     * @param   view        The view to fill with cells
+     * @param   row         The row of the starting cell
+     * @param   col         The column of the starting cell
      */
-    public void fillBoardView(JPanel view) {
-        for (int r = 0; r < length; r++) {
-            for (int c = 0; c < width; c++) {
-                view.add(cells[r][c]);
-            }
+    public void setup(int row, int col) {
+        GameEvents.Setup event = new GameEvents.Setup();
+        event.begin();
+
+        // Laying out the board writes every cell, none of them visible, so it is not tracked
+        CellDelta changes = model.getChanges();
+        model.trackChanges(null);
+        boolean pooled;
+        try {
+            pooled = layOut(row, col);
+        } finally {
+            model.trackChanges(changes);
+        }
+        if (event.shouldCommit()) {
+            event.rows = length;
+            event.columns = width;
+            event.bombs = bombCount;
+            event.pooled = pooled;
+            event.noGuess = (noGuessGenerator != null);
+            event.commit();
         }
     }
 
     /*
-     * Checks if the selected cell position is neighboring the cell position to avoid.
+     * Lay out the bombs around the starting cell, and count their neighbors.
      *
-     * @param   rowToAvoid      The row of the cell position to avoid
-     * @param   colToAvoid      The col of the cell position to avoid
-     * @param   row             The row of the current cell position
-     * @param   col             The col of the current cell position
-     * @returns                 Whether or not the cell position is neighboring the cell to avoid
+     * @param   row         The row of the starting cell
+     * @param   col         The column of the starting cell
+     * @return              Whether or not the layout was taken from the pool
      */
-    private boolean isAroundClicked(int rowToAvoid, int colToAvoid, int row, int col) {
-        for (int i = 0; i < R_NEIGHBOR_COORDINATES.length; i++) {
-            if ((row == (rowToAvoid + R_NEIGHBOR_COORDINATES[i])) && (col == (colToAvoid + C_NEIGHBOR_COORDINATES[i]))) {
-                return true;
-            }
-        }
-        if (row == rowToAvoid && col == colToAvoid) {
+    private boolean layOut(int row, int col) {
+
+        // Take a ready layout from the pool, unless a seed or layout was requested
+        BoardPool.Layout layout = (pool != null && !hasNextSeed && nextBombs == null) ? pool.take(row, col) : null;
+
+        // Pick the seed for this layout, unless one was requested
+        seed = hasNextSeed ? nextSeed : (layout != null) ? layout.getSeed() : seeds.nextLong();
+        seeded = (layout == null && nextBombs == null);
+        hasNextSeed = false;
+
+        // A pooled layout comes with its counts, and its openings are labeled at the first clear
+        if (layout != null) {
+            layout.copyTo(model);
+            guessFree = layout.isGuessFree();
+            openings = null;
+            openingsPending = true;
             return true;
         }
-        return false;
-    }
 
-    /*
-     * Fills the cells with bombs, avoiding the first cell clicked on.
-     *
-     * @param   rowToAvoid      The row of the cell to avoid
-     * @param   colToAvoid      The column of the cell to avoid
-     */
-    private void fillCellsWithBombs(int rowToAvoid, int colToAvoid) {
+        // Fill Cells With Bombs, avoiding the safe zone around the starting cell
+        guessFree = false;
+        if (nextBombs != null) {
+            for (int bomb : nextBombs) {
+                model.setBomb(bomb, true);
+            }
+            nextBombs = null;
+        }
+        else if (isGuessFreeLevel()) {
+            noGuessGenerator.placeBombs(model, bombCount, row, col, safeRadius, seed);
+            guessFree = noGuessGenerator.isLastSolvable();
+        }
+        else {
+            MineGenerator.placeBombs(model, bombCount, row, col, safeRadius, seed);
+        }
 
-        int bombCounter = 0;
+        // Fill in Count for All Non-Bomb Cells
+        fillNeighborCount();
 
-        // Iterate through cells, filling the first cells with bombs
-        for (int r = 0; r < length; r++) {
-            for (int c = 0; c < width; c++) {
-                if (bombCounter < bombCount
-                        && !isAroundClicked(rowToAvoid, colToAvoid, r, c)) {
-                    cells[r][c].setBomb(true);
-                    bombCounter++;
-                    cells[r][c].setHiddenIcon(BOMB_ICON);
-                }
-                else {
-                    cells[r][c].setHiddenIcon(ICON_0);
-                }
-            }
+        // Label the openings, so clicking an empty cell needs no search. The
+        // labels take an int per cell on the heap, which a mapped board avoids.
+        if (model instanceof MappedBoardModel) {
+            openings = null;
+            openingsPending = true;
         }
+        else {
+            openings = Openings.label(model);
+            openingsPending = false;
+        }
+        return false;
     }
 
     /*
-     * Randomize the cell order, avoiding placing a bomb near the first cell clicked on.
-     *
-     * @param   rowToAvoid      The row of the cell to avoid
-     * @param   colToAvoid      The column of the cell to avoid
+     * Fill the entire board with the appropriate bomb neighbor counts.
      */
-    private void randomizeCells(int rowToAvoid, int colToAvoid) {
-
-        // Shuffle the cells
-        for (int r = 0; r < length; r++) {
-            for (int c = 0; c < width; c++) {
-                if (!isAroundClicked(rowToAvoid, colToAvoid, r, c)) {
-                    int randRIndex, randCIndex;
-                    do {
-                        randRIndex = (int) (Math.random() * length);
-                        randCIndex = (int) (Math.random() * width);
-                    } while (isAroundClicked(rowToAvoid, colToAvoid, randRIndex, randCIndex));
-
-                    boolean tempIsBomb = cells[r][c].isBomb();
-                    cells[r][c].setBomb(cells[randRIndex][randCIndex].isBomb());
-                    cells[randRIndex][randCIndex].setBomb(tempIsBomb);
-
-                    if (cells[r][c].isBomb()) {
-                        cells[r][c].setHiddenIcon(BOMB_ICON);
-                    } else {
-                        cells[r][c].setHiddenIcon(ICON_0);
-                    }
-
-                    if (cells[randRIndex][randCIndex].isBomb()) {
-                        cells[randRIndex][randCIndex].setHiddenIcon(BOMB_ICON);
-                    } else {
-                        cells[randRIndex][randCIndex].setHiddenIcon(ICON_0);
-                    }
-                }
-            }
+    private void fillNeighborCount() {
+        GameEvents.FillNeighborCount event = new GameEvents.FillNeighborCount();
+        event.begin();
+        NeighborCounter.fill(model);
+        if (event.shouldCommit()) {
+            event.rows = length;
+            event.columns = width;
+            event.commit();
         }
     }
 
@@ -215,83 +186,93 @@ public class GameBoard {
      */
     public void revealBoard() {
 
+        // Every cell changes, so the delta is marked as changing all of them instead of listing them
+        CellDelta changes = model.getChanges();
+        model.trackChanges(null);
+
         // Make Every Cell Unlickable and Visible
-        for (int r = 0; r < length; r++) {
-            for (int c = 0; c < length; c++) {
-                //cells[r][c].setEnabled(false);
-                cells[r][c].press();
-                cells[r][c].showIcon();
-            }
+        for (int i = 0; i < model.size(); i++) {
+            model.reveal(i);
+        }
+
+        model.trackChanges(changes);
+        if (changes != null) {
+            changes.markAll();
         }
     }
 
     /*
      * Clear the bomb path for a given cell.
      *
-     * @param   cell        The cell to clear a path for
+     * @param   row         The row of the cell to clear a path for
+     * @param   col         The column of the cell to clear a path for
      * @return              The number of cells cleared
      */
-    public int clearBombPath(Cell cell) {
-
-        int cellsCleared = 0;
-
-        // Clear cell clicked
-        cell.clear();
-        cellsCleared++;
-
-        // Add cell to adjacency list
-        LinkedList<Cell> adj = new LinkedList();
-        adj.add(cell);
-
-        while (adj.size() != 0) {
-            Cell tempCell = adj.getFirst();
-            adj.removeFirst();
-
-            for (int i = 0; i < C_NEIGHBOR_COORDINATES.length; i++) {
-                int newR = tempCell.getRow() + R_NEIGHBOR_COORDINATES[i];
-                int newC = tempCell.getCol() + C_NEIGHBOR_COORDINATES[i];
+    public int clearBombPath(int row, int col) {
+        return clearBombPath(model.index(row, col));
+    }
 
-                if (newR >= 0 && newR < length && newC >= 0 && newC < width
-                        && !cells[newR][newC].isBomb()
-                        && !cells[newR][newC].isCleared()) {
-                    if (!cells[newR][newC].isNeighbor()) {
-                        adj.add(cells[newR][newC]);
-                    }
-                    cells[newR][newC].clear();
-                    cellsCleared++;
-                }
-            }
+    /*
+     * Clear the bomb path starting at the given cell index.
+     *
+     * @param   index       The index of the cell to clear a path for
+     * @return              The number of cells cleared
+     */
+    private int clearBombPath(int index) {
+        GameEvents.ClearBombPath event = new GameEvents.ClearBombPath();
+        event.begin();
+        Openings openings = clearingOpenings();
+        boolean labeled = (openings != null && openings.getOpening(index) != 0);
+        int cleared = labeled ? openings.reveal(model, index) : floodFill.fill(model, index);
+        if (event.shouldCommit()) {
+            event.rows = length;
+            event.columns = width;
+            event.cellsRevealed = cleared;
+            event.labeled = labeled;
+            event.commit();
         }
-
-        return cellsCleared;
-
+        return cleared;
     }
 
     /*
      * Make a given cell unclickable and clear it.
      *
-     * @param   cell        The cell to clear
+     * @param   row         The row of the cell to clear
+     * @param   col         The column of the cell to clear
      * @return              The number of cells cleared (0 or 1)
      */
-    public int clearCell(Cell cell) {
-        if (cell.isCleared()) {
+    public int clearCell(int row, int col) {
+        int index = model.index(row, col);
+        if (model.isCleared(index)) {
             return 0;
         }
-        cell.clear();
+        clear(index);
         return 1;
     }
 
+    /*
+     * Clear the cell at the given index.
+     *
+     * @param   index       The index of the cell to clear
+     */
+    private void clear(int index) {
+        model.clear(index);
+    }
+
     /*
      * Reset the game board for a new game.
      */
     public void resetGame() {
 
-        // Reset Cells
-        for (int r = 0; r < length; r++) {
-            for (int c = 0; c < width; c++) {
-                cells[r][c].reset();
-            }
+        // Reset Cells, on a board of the requested kind
+        if (persistent != (model instanceof PersistentBoardModel)) {
+            model = newModel(length, width);
         }
+        else {
+            model.reset();
+        }
+        openings = null;
+        openingsPending = false;
 
     }
 
@@ -308,40 +289,98 @@ public class GameBoard {
         this.length = length;
         this.width = width;
         this.bombCount = bombCount;
+
+        // Allocate the state for the new size
+        model = newModel(length, width);
+        nextBombs = null;
+        openings = null;
+        openingsPending = false;
+        configurePool();
     }
 
     /*
-     * Toggle the flad for the given cell
+     * Change the bomb count for the next layout, keeping the board size.
      *
-     * @param   curCell     The cell to toggle flag
+     * @param   bombCount   The new desired bomb count
      */
-    public void toggleFlag(Cell curCell) {
-        // Set flag on cell
-        if (curCell.isFlagged()) {
-            curCell.setFlag(false);
+    public void changeBombCount(int bombCount) {
+        this.bombCount = bombCount;
+        configurePool();
+    }
+
+    /*
+     * Turns the no-guess mode on or off for the next layouts. In no-guess mode
+     * every layout can be cleared from the first click without guessing, as
+     * long as one is found in time. Boards larger than the generator allows
+     * get plain layouts.
+     *
+     * @param   noGuess     Whether or not layouts must be guess free
+     */
+    public void setNoGuess(boolean noGuess) {
+        if (noGuess && noGuessGenerator == null) {
+            noGuessGenerator = new NoGuessGenerator();
         }
-        else {
-            curCell.setFlag(true);
+        else if (!noGuess) {
+            noGuessGenerator = null;
         }
+        configurePool();
+    }
+
+    /*
+     * Checks if the no-guess mode is on.
+     *
+     * @return              Whether or not layouts are guess free
+     */
+    public boolean isNoGuess() {
+        return noGuessGenerator != null;
+    }
+
+    /*
+     * Checks if the current layout was generated guess free. In no-guess mode
+     * a layout is not when none was found in time, or the board is too large.
+     *
+     * @return              Whether or not the layout can be solved without guessing
+     */
+    public boolean isGuessFree() {
+        return guessFree;
+    }
+
+    /*
+     * Gets the generator of guess free layouts.
+     *
+     * @return              The generator, or null when the no-guess mode is off
+     */
+    public NoGuessGenerator getNoGuessGenerator() {
+        return noGuessGenerator;
+    }
+
+    /*
+     * Toggle the flad for the given cell
+     *
+     * @param   row         The row of the cell to toggle flag
+     * @param   col         The column of the cell to toggle flag
+     */
+    public void toggleFlag(int row, int col) {
+        int index = model.index(row, col);
+
+        // Set flag on cell
+        model.setFlag(index, !model.isFlagged(index));
     }
 
     /*
      * Retrieves the number of neighboring cells with flags
      *
-     * @param   curCell     The cell to count around
+     * @param   row         The row of the cell to count around
+     * @param   col         The column of the cell to count around
      * @return              The number of neighboring flag cells
      */
-    public int getNeighboringFlagCount(Cell curCell) {
+    public int getNeighboringFlagCount(int row, int col) {
         int flagCount = 0;
         for (int i = 0; i < C_NEIGHBOR_COORDINATES.length; i++) {
-            int tempRow = curCell.getRow() + R_NEIGHBOR_COORDINATES[i];
-            int tempCol = curCell.getCol() + C_NEIGHBOR_COORDINATES[i];
-            if (tempRow >= 0 && tempRow < length && tempCol >= 0 && tempCol < width) {
-                Cell neighborCell = cells[tempRow][tempCol];
-
-                if (neighborCell.isFlagged()) {
-                    flagCount++;
-                }
+            int tempRow = row + R_NEIGHBOR_COORDINATES[i];
+            int tempCol = col + C_NEIGHBOR_COORDINATES[i];
+            if (model.inBounds(tempRow, tempCol) && model.isFlagged(model.index(tempRow, tempCol))) {
+                flagCount++;
             }
         }
         return flagCount;
@@ -350,29 +389,257 @@ public class GameBoard {
     /*
      * Reveals the neighboring cells without flags.
      *
-     * @param   curCell     The current cell to reveal around
+     * @param   row         The row of the cell to reveal around
+     * @param   col         The column of the cell to reveal around
      * @return              The number of cells revealed, or -1 if a bomb is revealed
      */
-    public int revealNeighboringCells(Cell curCell) {
+    public int revealNeighboringCells(int row, int col) {
+        GameEvents.RevealNeighboringCells event = new GameEvents.RevealNeighboringCells();
+        event.begin();
+        int revealed = revealNeighbors(row, col);
+        if (event.shouldCommit()) {
+            event.rows = length;
+            event.columns = width;
+            event.cellsRevealed = revealed;
+            event.commit();
+        }
+        return revealed;
+    }
+
+    /*
+     * Reveals the neighbors without flags, clearing the empty areas among
+     * them in one flood fill, and stops at the first bomb.
+     *
+     * @param   row         The row of the cell to reveal around
+     * @param   col         The column of the cell to reveal around
+     * @return              The number of cells cleared, or -1 if a bomb is revealed
+     */
+    private int revealNeighbors(int row, int col) {
+        Openings openings = clearingOpenings();
         int clearCount = 0;
         for (int i = 0; i < C_NEIGHBOR_COORDINATES.length; i++) {
-            int tempRow = curCell.getRow() + R_NEIGHBOR_COORDINATES[i];
-            int tempCol = curCell.getCol() + C_NEIGHBOR_COORDINATES[i];
-            if (tempRow >= 0 && tempRow < length && tempCol >= 0 && tempCol < width) {
-                Cell neighborCell = cells[tempRow][tempCol];
-                if (!neighborCell.isCleared() && !neighborCell.isFlagged()) {
-                    clearCount++;
-                    if (neighborCell.isBomb()) {
+            int tempRow = row + R_NEIGHBOR_COORDINATES[i];
+            int tempCol = col + C_NEIGHBOR_COORDINATES[i];
+            if (model.inBounds(tempRow, tempCol)) {
+                int neighbor = model.index(tempRow, tempCol);
+                if (!model.isCleared(neighbor) && !model.isFlagged(neighbor)) {
+                    if (model.isBomb(neighbor)) {
+                        floodFill.discard();
                         return -1;
                     }
-                    neighborCell.clear();
-                    if (neighborCell.getNeighboringBombCount() == 0) {
-                        clearCount += clearBombPath(neighborCell) - 1;
+
+                    if (openings != null && openings.getOpening(neighbor) != 0) {
+                        // Revealing an opening clears all of its empty cells, so it is never revealed twice
+                        clearCount += openings.reveal(model, neighbor);
+                    }
+                    else {
+                        // Empty neighbors are queued, so all of their areas are cleared in one fill
+                        clearCount += floodFill.clear(model, neighbor);
                     }
                 }
             }
         }
-        return clearCount;
+        return clearCount + floodFill.drain(model);
+    }
+
+    /*
+     * Checks if the given cell is a bomb.
+     *
+     * @param   row         The row of the cell to check
+     * @param   col         The column of the cell to check
+     * @return              Whether or not the cell is a bomb
+     */
+    public boolean isBomb(int row, int col) {
+        return model.isBomb(model.index(row, col));
+    }
+
+    /*
+     * Checks if the given cell has been cleared.
+     *
+     * @param   row         The row of the cell to check
+     * @param   col         The column of the cell to check
+     * @return              Whether or not the cell is cleared
+     */
+    public boolean isCleared(int row, int col) {
+        return model.isCleared(model.index(row, col));
+    }
+
+    /*
+     * Checks if the given cell is flagged.
+     *
+     * @param   row         The row of the cell to check
+     * @param   col         The column of the cell to check
+     * @return              Whether or not the cell is flagged
+     */
+    public boolean isFlagged(int row, int col) {
+        return model.isFlagged(model.index(row, col));
+    }
+
+    /*
+     * Checks if the given cell can no longer be clicked.
+     *
+     * @param   row         The row of the cell to check
+     * @param   col         The column of the cell to check
+     * @return              Whether or not the cell is pressed
+     */
+    public boolean isPressed(int row, int col) {
+        return model.isPressed(model.index(row, col));
+    }
+
+    /*
+     * Gets the neighboring bomb count of the given cell.
+     *
+     * @param   row         The row of the cell to check
+     * @param   col         The column of the cell to check
+     * @return              The number of neighboring bombs
+     */
+    public int getNeighboringBombCount(int row, int col) {
+        return model.getNeighboringBombCount(model.index(row, col));
+    }
+
+    /*
+     * Sets the seed for the next layout, so a board can be played again.
+     *
+     * @param   seed        The seed to use for the next setup
+     */
+    public void setSeed(long seed) {
+        this.nextSeed = seed;
+        this.hasNextSeed = true;
+    }
+
+    /*
+     * Gets the seed of the current layout. A pooled layout was generated from
+     * the seed around the center and then moved to the starting cell.
+     *
+     * @return              The seed used by the last setup
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /*
+     * Sets the bombs of the next layout, so a board can be played again
+     * exactly, wherever the first click is. Takes priority over a seed.
+     *
+     * @param   bombs       The indices of the bomb cells
+     */
+    public void setLayout(int bombs[]) {
+        this.nextBombs = bombs.clone();
+    }
+
+    /*
+     * Checks if the current layout is generated again by setting its seed,
+     * with the same safe zone and mode, and clicking the same starting cell.
+     * Pooled and requested layouts are not.
+     *
+     * @return              Whether or not the seed reproduces the layout
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /*
+     * Gets how many cells around the starting cell are kept free of bombs.
+     *
+     * @return              The radius of the safe zone
+     */
+    public int getSafeRadius() {
+        return safeRadius;
+    }
+
+    /*
+     * Sets how many cells around the starting cell are kept free of bombs.
+     *
+     * @param   safeRadius  The radius of the safe zone, 0 for just the starting cell
+     */
+    public void setSafeRadius(int safeRadius) {
+        this.safeRadius = safeRadius;
+        configurePool();
+    }
+
+    /*
+     * Sets a pool to take ready layouts from, so the first click does not
+     * wait for bomb placement. A requested seed still generates its own layout.
+     *
+     * @param   pool        The pool, or null to generate on the first click
+     */
+    public void setPool(BoardPool pool) {
+        this.pool = pool;
+        configurePool();
+    }
+
+    /*
+     * Sets whether or not boards keep their past states, so moves can be
+     * taken back. It takes effect with the next game.
+     *
+     * @param   persistent  Whether or not to play on a PersistentBoardModel
+     */
+    public void setPersistent(boolean persistent) {
+        this.persistent = persistent;
+    }
+
+    /*
+     * Allocates the cells of a new board, of the kind games are played on.
+     *
+     * @param   length      The length of the board
+     * @param   width       The width of the board
+     * @return              A PersistentBoardModel if past states are kept, a BoardModel otherwise
+     */
+    private BoardModel newModel(int length, int width) {
+        return persistent ? new PersistentBoardModel(length, width) : new BoardModel(length, width);
+    }
+
+    /*
+     * Tells the pool which layouts the next setup needs.
+     */
+    private void configurePool() {
+        if (pool != null) {
+            pool.configure(length, width, bombCount, safeRadius, isGuessFreeLevel());
+        }
+    }
+
+    /*
+     * Checks if layouts of the current level are generated guess free: the
+     * no-guess mode is on, and the board is small enough for the generator.
+     */
+    private boolean isGuessFreeLevel() {
+        return noGuessGenerator != null && NoGuessGenerator.supports(length, width);
+    }
+
+    /*
+     * Gets the openings to clear empty areas with, labeling those of a pooled
+     * layout on the first clear. A mapped board has none, and is cleared by
+     * flood fills.
+     *
+     * @return              The openings, or null to flood fill
+     */
+    private Openings clearingOpenings() {
+        if (openingsPending && !(model instanceof MappedBoardModel)) {
+            return getOpenings();
+        }
+        return openings;
+    }
+
+    /*
+     * Gets the openings of the current layout, for opening and 3BV statistics.
+     *
+     * @return              The openings, or null before the board is set up
+     */
+    public Openings getOpenings() {
+        if (openingsPending) {
+            openings = Openings.label(model);
+            openingsPending = false;
+        }
+        return openings;
+    }
+
+    /*
+     * Gets the headless model holding the board state.
+     *
+     * @return              The board model
+     */
+    public BoardModel getModel() {
+        return model;
     }
 
     public void printBoard() {
@@ -385,7 +652,7 @@ public class GameBoard {
         for (int r = 0; r < length; r++) {
             System.out.print(r + "\t");
             for (int c = 0; c < width; c++) {
-                if (cells[r][c].isBomb()) {
+                if (model.isBomb(model.index(r, c))) {
                     System.out.print("X\t");
                 }
                 else {
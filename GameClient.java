@@ -0,0 +1,182 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/*
+ * GameClient plays a game on a GameServer, one blocking request at a time.
+ *
+ * The client keeps its own copy of the board, updated from the cells in
+ * every reply, so it can be painted like a local game. Hidden cells only
+ * show their flags until the game is over, when the server sends the
+ * whole board.
+ */
+public class GameClient implements Closeable {
+
+    private final SocketChannel channel;
+
+    // Request and reply buffers, kept between requests
+    private ByteBuffer out = ByteBuffer.allocate(GameProtocol.MAX_REQUEST);
+    private ByteBuffer in = ByteBuffer.allocate(1 << 12);
+
+    // The game as last replied by the server
+    private GameConfig config;
+    private BoardModel board;
+    private GameEngine.Status status = GameEngine.Status.READY;
+    private int flagCount = 0;
+
+    /*
+     * Constructor for GameClient, which connects to the server.
+     *
+     * @param   host        The host of the server
+     * @param   port        The port of the server
+     */
+    public GameClient(String host, int port) {
+        try {
+            channel = SocketChannel.open(new InetSocketAddress(host, port));
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not connect to " + host + ":" + port, e);
+        }
+    }
+
+    /*
+     * Starts a new game with a random layout.
+     *
+     * @param   config      The level to play
+     * @param   board       The board to keep the game on, of the level's size
+     */
+    public void newGame(GameConfig config, BoardModel board) {
+        if (board.getLength() != config.getLength() || board.getWidth() != config.getWidth()) {
+            throw new IllegalArgumentException("Board does not fit " + config);
+        }
+        this.config = config;
+        this.board = board;
+        board.reset();
+        flagCount = 0;
+        out.clear();
+        GameProtocol.putNewGame(out, config, false, 0);
+        send();
+    }
+
+    public void reveal(int row, int col) {
+        move(GameProtocol.REVEAL, row, col);
+    }
+
+    public void flag(int row, int col) {
+        move(GameProtocol.FLAG, row, col);
+    }
+
+    public void chord(int row, int col) {
+        move(GameProtocol.CHORD, row, col);
+    }
+
+    /*
+     * Performs a left click: chords on a satisfied number, reveals anything else.
+     *
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
+     */
+    public void click(int row, int col) {
+        move(GameProtocol.CLICK, row, col);
+    }
+
+    /*
+     * Gets the state of the game after the last reply.
+     *
+     * @return              The status
+     */
+    public GameEngine.Status getStatus() {
+        return status;
+    }
+
+    /*
+     * Checks if the game has been won or lost.
+     *
+     * @return              Whether or not the game is over
+     */
+    public boolean isOver() {
+        return status == GameEngine.Status.WON || status == GameEngine.Status.LOST;
+    }
+
+    /*
+     * Gets the number of bombs minus the number of flags, as shown to the player.
+     *
+     * @return              The bombs left
+     */
+    public int getBombsLeft() {
+        return config.getBombCount() - flagCount;
+    }
+
+    public BoardModel getBoard() {
+        return board;
+    }
+
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close connection", e);
+        }
+    }
+
+    private void move(int type, int row, int col) {
+        if (board == null) {
+            throw new IllegalStateException("No game started");
+        }
+        out.clear();
+        GameProtocol.putMove(out, type, row, col);
+        send();
+    }
+
+    /*
+     * Sends the request in the out buffer and applies the reply.
+     */
+    private void send() {
+        try {
+            out.flip();
+            ByteBuffer frame = ByteBuffer.allocate(GameProtocol.varintSize(out.remaining()) + out.remaining());
+            GameProtocol.putVarint(frame, out.remaining());
+            frame.put(out);
+            frame.flip();
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+
+            // Read until the whole reply is in
+            in.clear();
+            in.flip();
+            int length;
+            while ((length = GameProtocol.startFrame(in)) < 0) {
+                in.compact();
+                if (!in.hasRemaining()) {
+                    in.flip();
+                    in = ByteBuffer.allocate(in.capacity() * 2).put(in);
+                }
+                if (channel.read(in) < 0) {
+                    throw new IOException("Server closed the connection");
+                }
+                in.flip();
+            }
+            in.limit(in.position() + length);
+
+            int state = in.get() & 0xFF;
+            if (state == GameProtocol.ERROR) {
+                throw new IllegalStateException("Server error: " + GameProtocol.readError(in));
+            }
+            status = GameEngine.Status.values()[state];
+            flagCount += GameProtocol.readCells(in, board);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not reach server", e);
+        }
+    }
+}
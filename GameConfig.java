@@ -0,0 +1,92 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+/*
+ * GameConfig describes the size and bomb count of a board.
+ */
+public class GameConfig {
+
+    // Pre-set Levels
+    public final static GameConfig BEGINNER = new GameConfig("Beginner", 5, 5, 5);
+    public final static GameConfig INTERMEDIATE = new GameConfig("Intermediate", 8, 8, 15);
+    public final static GameConfig EXPERT = new GameConfig("Expert", 10, 10, 30);
+
+    private final String name;
+    private final int length;
+    private final int width;
+    private final int bombCount;
+
+    /*
+     * Constructor for GameConfig
+     *
+     * @param   name        The name of the level
+     * @param   length      The number of rows
+     * @param   width       The number of columns
+     * @param   bombCount   The number of bombs
+     */
+    public GameConfig(String name, int length, int width, int bombCount) {
+        if (length <= 0 || width <= 0 || bombCount < 0 || bombCount >= (long) length * width) {
+            throw new IllegalArgumentException("Invalid board: " + length + " x " + width + ", " + bombCount + " bombs");
+        }
+        this.name = name;
+        this.length = length;
+        this.width = width;
+        this.bombCount = bombCount;
+    }
+
+    /*
+     * Creates a custom level.
+     *
+     * @param   length      The number of rows
+     * @param   width       The number of columns
+     * @param   bombCount   The number of bombs
+     * @return              The custom level
+     */
+    public static GameConfig custom(int length, int width, int bombCount) {
+        return new GameConfig("Custom", length, width, bombCount);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getBombCount() {
+        return bombCount;
+    }
+
+    /*
+     * Gets the number of cells that have to be cleared to win.
+     *
+     * @return          The number of non-bomb cells
+     */
+    public int getSafeCellCount() {
+        return length * width - bombCount;
+    }
+
+    public boolean equals(Object other) {
+        if (!(other instanceof GameConfig)) {
+            return false;
+        }
+        GameConfig config = (GameConfig) other;
+        return length == config.length && width == config.width && bombCount == config.bombCount;
+    }
+
+    public int hashCode() {
+        return (length * 31 + width) * 31 + bombCount;
+    }
+
+    public String toString() {
+        return name + " " + length + "x" + width + "/" + bombCount;
+    }
+}
@@ -0,0 +1,565 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.nio.file.Path;
+
+/*
+ * GameEngine plays a game of Bombs without any display.
+ *
+ * It owns the GameBoard and keeps the state of the game around it: whether
+ * it has started or ended, how many cells are cleared and how many flags are
+ * placed. The board is laid out on the first reveal, so the first click is
+ * always safe. Moves made after the game has ended are ignored.
+ *
+ * A game created on a board file keeps its cells in a MappedBoardModel and
+ * saves its state into the file header after every move, so it can be
+ * resumed from the file.
+ */
+public class GameEngine {
+
+    // State of a game
+    public enum Status { READY, PLAYING, WON, LOST }
+
+    private GameConfig config;
+    private GameBoard gameBoard;
+    private Status status;
+
+    // Record Keeping Counts
+    private int cellsCleared;
+    private int flagCount;
+
+    // Records every game as a replay, or null
+    private ReplayRecorder recorder;
+
+    // Cells changed by the last move, or null when not tracked
+    private CellDelta delta;
+
+    // Publishes every move to spectators, or null
+    private SpectatorStream spectators;
+
+    // Keeps every point of the game for undo and redo, or null
+    private MoveHistory history;
+
+    // Counts games and moves for JMX, or null
+    private GameMetrics metrics;
+
+    /*
+     * Constructor for GameEngine
+     *
+     * @param   config      The level of the first game
+     */
+    public GameEngine(GameConfig config) {
+        this(config, new GameBoard(config.getLength(), config.getWidth(), config.getBombCount()));
+        resetCounts();
+    }
+
+    private GameEngine(GameConfig config, GameBoard gameBoard) {
+        this.config = config;
+        this.gameBoard = gameBoard;
+    }
+
+    /*
+     * Creates a game whose board lives in a memory-mapped file instead of on
+     * the heap, replacing any existing file. The game is saved to the file as
+     * it is played, so it can be resumed later.
+     *
+     * @param   file        The board file to create
+     * @param   config      The level of the first game
+     * @return              The game, ready for the first reveal
+     */
+    public static GameEngine create(Path file, GameConfig config) {
+        MappedBoardModel model = MappedBoardModel.create(file, config.getLength(), config.getWidth());
+        GameEngine engine = new GameEngine(config, new GameBoard(model, config.getBombCount()));
+        engine.resetCounts();
+        return engine;
+    }
+
+    /*
+     * Resumes the game saved in a board file, in the same time at any board
+     * size, since cells are only read as they are touched.
+     *
+     * @param   file        The board file to open
+     * @return              The game, as it was left
+     */
+    public static GameEngine resume(Path file) {
+        MappedBoardModel model = MappedBoardModel.open(file);
+        GameConfig config = GameConfig.custom(model.getLength(), model.getWidth(), model.getHeader(MappedBoardModel.BOMB_COUNT));
+        GameEngine engine = new GameEngine(config, new GameBoard(model, config.getBombCount()));
+        engine.status = Status.values()[model.getHeader(MappedBoardModel.STATUS)];
+        engine.cellsCleared = model.getHeader(MappedBoardModel.CELLS_CLEARED);
+        engine.flagCount = model.getHeader(MappedBoardModel.FLAG_COUNT);
+        return engine;
+    }
+
+    /*
+     * Starts a new game with a random layout.
+     *
+     * @param   config      The level to play
+     */
+    public void newGame(GameConfig config) {
+        if (config.getLength() == this.config.getLength() && config.getWidth() == this.config.getWidth()) {
+            // Same size, so the board state can be reused
+            gameBoard.resetGame();
+            gameBoard.changeBombCount(config.getBombCount());
+        }
+        else {
+            gameBoard.changeBoard(config.getLength(), config.getWidth(), config.getBombCount());
+        }
+        gameBoard.getModel().trackChanges(delta);
+        this.config = config;
+        resetCounts();
+    }
+
+    /*
+     * Starts a new game with the layout given by a seed.
+     *
+     * @param   config      The level to play
+     * @param   seed        The seed of the layout
+     */
+    public void newGame(GameConfig config, long seed) {
+        newGame(config);
+        gameBoard.setSeed(seed);
+    }
+
+    /*
+     * Reveals a hidden cell, laying out the board if it is the first reveal.
+     *
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
+     * @return              The number of cells cleared, or -1 if a bomb was revealed
+     */
+    public int reveal(int row, int col) {
+        clearChanges();
+        if (isOver() || gameBoard.isPressed(row, col) || gameBoard.isFlagged(row, col)) {
+            return 0;
+        }
+
+        // The first reveal lays out the board around the clicked cell
+        if (status == Status.READY) {
+            long start = (metrics != null) ? System.nanoTime() : 0;
+            gameBoard.setup(row, col);
+            if (metrics != null) {
+                metrics.gameStarted(config, System.nanoTime() - start);
+            }
+            clearChanges();
+            status = Status.PLAYING;
+            save();
+            if (recorder != null) {
+                recorder.recordLayout(gameBoard);
+            }
+        }
+        record(Replay.REVEAL, row, col);
+
+        if (gameBoard.isBomb(row, col)) {
+            end(Status.LOST);
+            return -1;
+        }
+
+        int cleared;
+        if (gameBoard.getNeighboringBombCount(row, col) > 0) {
+            cleared = gameBoard.clearCell(row, col);
+        }
+        else {
+            cleared = gameBoard.clearBombPath(row, col);
+            if (metrics != null) {
+                metrics.floodFilled(cleared);
+            }
+        }
+        return addCleared(cleared);
+    }
+
+    /*
+     * Toggles the flag on a hidden cell.
+     *
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
+     * @return              Whether or not the cell is flagged afterwards
+     */
+    public boolean flag(int row, int col) {
+        clearChanges();
+        if (isOver() || gameBoard.isPressed(row, col)) {
+            return gameBoard.isFlagged(row, col);
+        }
+        record(Replay.FLAG, row, col);
+        gameBoard.toggleFlag(row, col);
+        boolean flagged = gameBoard.isFlagged(row, col);
+        flagCount += flagged ? 1 : -1;
+        save();
+        endMove();
+        return flagged;
+    }
+
+    /*
+     * Reveals the neighbors of a cleared number whose bombs are all flagged.
+     *
+     * @param   row         The row of the number
+     * @param   col         The column of the number
+     * @return              The number of cells cleared, or -1 if a bomb was revealed
+     */
+    public int chord(int row, int col) {
+        clearChanges();
+        if (!canChord(row, col)) {
+            return 0;
+        }
+        record(Replay.CHORD, row, col);
+        int cleared = gameBoard.revealNeighboringCells(row, col);
+        if (cleared == -1) {
+            end(Status.LOST);
+            return -1;
+        }
+        return addCleared(cleared);
+    }
+
+    /*
+     * Performs a left click: chords on a satisfied number, reveals anything else.
+     *
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
+     * @return              The number of cells cleared, or -1 if a bomb was revealed
+     */
+    public int click(int row, int col) {
+        return canChord(row, col) ? chord(row, col) : reveal(row, col);
+    }
+
+    /*
+     * Takes back the last move.
+     *
+     * @return              Whether or not there was a move to take back
+     */
+    public boolean undo() {
+        if (history == null || !history.canUndo()) {
+            return false;
+        }
+        jumpTo(history.getPosition() - 1);
+        return true;
+    }
+
+    /*
+     * Makes the last move taken back again.
+     *
+     * @return              Whether or not there was a move to make again
+     */
+    public boolean redo() {
+        if (history == null || !history.canRedo()) {
+            return false;
+        }
+        jumpTo(history.getPosition() + 1);
+        return true;
+    }
+
+    /*
+     * Puts the game back as it was after a number of moves, in the same time
+     * however far away the move is. Going back to move 0, before the first
+     * reveal, lays out a new board on the next reveal. A move that ended the
+     * game shows the whole board again, as the end of the game did. If
+     * changes are tracked, the delta holds every cell that differs, or is
+     * marked as changing all of them when the board is shown.
+     *
+     * @param   move        The number of moves into the game, from 0 to the moves kept
+     */
+    public void jumpTo(int move) {
+        if (history == null || history.getMoveCount() < 0) {
+            throw new IllegalStateException("No moves kept for this game");
+        }
+        if (recorder != null) {
+            throw new IllegalStateException("Cannot take back moves of a game being recorded");
+        }
+        history.moveTo(move);
+        clearChanges();
+        ((PersistentBoardModel) gameBoard.getModel()).restore(history.getVersion(move));
+        status = history.getStatus(move);
+        cellsCleared = history.getCellsCleared(move);
+        flagCount = history.getFlagCount(move);
+
+        // The point was kept before the board was shown, so show it again
+        if (isOver()) {
+            gameBoard.revealBoard();
+        }
+        save();
+        if (spectators != null) {
+            spectators.publish(delta, status);
+        }
+    }
+
+    /*
+     * Checks if a cell is a cleared number with as many flags around it as bombs.
+     *
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
+     * @return              Whether or not a chord on the cell does anything
+     */
+    public boolean canChord(int row, int col) {
+        if (isOver() || !gameBoard.isCleared(row, col)) {
+            return false;
+        }
+        int count = gameBoard.getNeighboringBombCount(row, col);
+        return count > 0 && count == gameBoard.getNeighboringFlagCount(row, col);
+    }
+
+    /*
+     * Gets the state of the game.
+     *
+     * @return              The status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /*
+     * Checks if the game has been won or lost.
+     *
+     * @return              Whether or not the game is over
+     */
+    public boolean isOver() {
+        return status == Status.WON || status == Status.LOST;
+    }
+
+    public int getCellsCleared() {
+        return cellsCleared;
+    }
+
+    public int getFlagCount() {
+        return flagCount;
+    }
+
+    /*
+     * Gets the number of bombs minus the number of flags, as shown to the player.
+     *
+     * @return              The bombs left
+     */
+    public int getBombsLeft() {
+        return config.getBombCount() - flagCount;
+    }
+
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /*
+     * Sets a recorder to record every game as a replay, starting with the
+     * current game if it has not started yet.
+     *
+     * @param   recorder    The recorder, or null to stop recording
+     */
+    public void setRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+        if (recorder != null && status == Status.READY) {
+            recorder.begin(config);
+        }
+    }
+
+    public ReplayRecorder getRecorder() {
+        return recorder;
+    }
+
+    /*
+     * Sets a delta to hold the cells changed by each move and their new
+     * states, so a view or a client can be updated without looking at the
+     * whole board. The delta is cleared at the start of every reveal, flag
+     * and chord, so after a move it holds just what that move changed.
+     * Laying out the board on the first reveal is not included.
+     *
+     * @param   delta       The delta to fill, or null to stop tracking changes
+     */
+    public void setDelta(CellDelta delta) {
+        if (delta == null && spectators != null) {
+            throw new IllegalStateException("Spectators need changes tracked");
+        }
+        this.delta = delta;
+        gameBoard.getModel().trackChanges(delta);
+    }
+
+    /*
+     * Gets the cells changed by the last move.
+     *
+     * @return              The delta, or null if changes are not tracked
+     */
+    public CellDelta getDelta() {
+        return delta;
+    }
+
+    /*
+     * Sets a stream to publish every move to, starting over from the
+     * current game. Changes are tracked from then on, in a new delta if
+     * there is none yet.
+     *
+     * @param   spectators  The stream, or null to stop publishing
+     */
+    public void setSpectators(SpectatorStream spectators) {
+        if (spectators != null) {
+            if (delta == null) {
+                setDelta(new CellDelta());
+            }
+            spectators.newGame(gameBoard.getModel());
+        }
+        this.spectators = spectators;
+    }
+
+    public SpectatorStream getSpectators() {
+        return spectators;
+    }
+
+    /*
+     * Sets a history to keep every point of the games in, for undo, redo
+     * and jumping to a move. It starts with the next game, which is played
+     * on a PersistentBoardModel so every point shares the cells it did not
+     * change. Games being recorded as replays cannot be taken back.
+     *
+     * @param   history     The history, or null to stop keeping moves
+     */
+    public void setHistory(MoveHistory history) {
+        this.history = history;
+        gameBoard.setPersistent(history != null);
+        if (history != null) {
+            history.clear();
+        }
+    }
+
+    public MoveHistory getHistory() {
+        return history;
+    }
+
+    /*
+     * Sets metrics to count the games and moves of this engine in, which
+     * any number of engines may share. The board counts towards their
+     * footprint until the metrics are replaced.
+     *
+     * @param   metrics     The metrics, or null to stop counting
+     */
+    public void setMetrics(GameMetrics metrics) {
+        if (this.metrics != null) {
+            this.metrics.detach(this);
+        }
+        this.metrics = metrics;
+        if (metrics != null) {
+            metrics.attach(this);
+        }
+    }
+
+    public GameMetrics getMetrics() {
+        return metrics;
+    }
+
+    public GameBoard getGameBoard() {
+        return gameBoard;
+    }
+
+    public BoardModel getModel() {
+        return gameBoard.getModel();
+    }
+
+    /*
+     * Adds cleared cells to the count and checks for a win.
+     *
+     * @param   cleared     The number of cells just cleared
+     * @return              The number of cells just cleared
+     */
+    private int addCleared(int cleared) {
+        cellsCleared += cleared;
+        if (metrics != null) {
+            metrics.cleared(cleared);
+        }
+        if (cellsCleared >= config.getSafeCellCount()) {
+            end(Status.WON);
+        }
+        else {
+            save();
+            endMove();
+        }
+        return cleared;
+    }
+
+    /*
+     * Ends the game.
+     */
+    private void end(Status outcome) {
+        status = outcome;
+        save();
+        if (recorder != null) {
+            recorder.recordEnd(outcome);
+        }
+        if (metrics != null) {
+            metrics.gameEnded(config, outcome);
+        }
+        endMove();
+    }
+
+    /*
+     * Resets the state kept for a game.
+     */
+    private void resetCounts() {
+        status = Status.READY;
+        cellsCleared = 0;
+        flagCount = 0;
+        save();
+        if (recorder != null) {
+            recorder.begin(config);
+        }
+        if (spectators != null) {
+            spectators.newGame(gameBoard.getModel());
+        }
+        if (history != null) {
+            history.clear();
+            keepPoint();
+        }
+    }
+
+    /*
+     * Keeps the game after a move in the history, and publishes the cells
+     * it changed if anyone is watching.
+     */
+    private void endMove() {
+        keepPoint();
+        if (spectators != null) {
+            spectators.publish(delta, status);
+        }
+    }
+
+    /*
+     * Adds the game as it is now to the history, if moves are kept and the
+     * board can keep them.
+     */
+    private void keepPoint() {
+        if (history != null && gameBoard.getModel() instanceof PersistentBoardModel) {
+            history.record(((PersistentBoardModel) gameBoard.getModel()).snapshot(), status, cellsCleared, flagCount);
+        }
+    }
+
+    /*
+     * Empties the delta, if changes are tracked.
+     */
+    private void clearChanges() {
+        if (delta != null) {
+            delta.clear();
+        }
+    }
+
+    /*
+     * Records a move, if games are being recorded, and counts it.
+     */
+    private void record(int type, int row, int col) {
+        if (recorder != null) {
+            recorder.record(type, row * config.getWidth() + col);
+        }
+        if (metrics != null) {
+            metrics.moved(type);
+        }
+    }
+
+    /*
+     * Writes the state of the game into the header of a mapped board, so
+     * it can be resumed from the file.
+     */
+    private void save() {
+        if (gameBoard.getModel() instanceof MappedBoardModel) {
+            MappedBoardModel model = (MappedBoardModel) gameBoard.getModel();
+            model.setHeader(MappedBoardModel.BOMB_COUNT, config.getBombCount());
+            model.setHeader(MappedBoardModel.STATUS, status.ordinal());
+            model.setHeader(MappedBoardModel.CELLS_CLEARED, cellsCleared);
+            model.setHeader(MappedBoardModel.FLAG_COUNT, flagCount);
+        }
+    }
+}
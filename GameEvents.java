@@ -0,0 +1,148 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/*
+ * GameEvents holds the JDK Flight Recorder events of the game, so a flight
+ * recording shows where the time of a click goes: the click on the event
+ * dispatch thread, and within it laying out the board, counting neighbors,
+ * flood fills and chords.
+ *
+ * Each event times the work it wraps, as its duration. The code emitting
+ * one begins it, does the work, and only fills in the fields and commits
+ * if shouldCommit says the event is being recorded and is long enough, so
+ * without a recording an event costs a check of a flag. Record with, for
+ * example:
+ *
+ *      java -XX:StartFlightRecording=filename=bombs.jfr,settings=profile -cp out Bombs
+ *
+ * and open the file in JDK Mission Control, or print it with
+ * jfr print --categories Minesweeper bombs.jfr.
+ */
+public class GameEvents {
+
+    private GameEvents() {
+    }
+
+    @Name("minesweeper.Click")
+    @Label("Click")
+    @Category("Minesweeper")
+    @Description("A click on the board, handled on the event dispatch thread")
+    @StackTrace(false)
+    public static class Click extends Event {
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Columns")
+        public int columns;
+
+        @Label("Row")
+        public int row;
+
+        @Label("Column")
+        public int column;
+
+        @Label("Button")
+        public String button;
+
+        @Label("Cells Changed")
+        @Description("Cells the click changed, which are repainted")
+        public int cellsChanged;
+
+        @Label("Status")
+        @Description("Status of the game after the click")
+        public String status;
+
+        @Label("Queued")
+        @Description("Time from the click to the start of handling it on the event dispatch thread")
+        @Timespan(Timespan.MILLISECONDS)
+        public long queued;
+    }
+
+    @Name("minesweeper.Setup")
+    @Label("Board Setup")
+    @Category("Minesweeper")
+    @Description("Laying out the bombs around the first click, and counting their neighbors")
+    @StackTrace(false)
+    public static class Setup extends Event {
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Columns")
+        public int columns;
+
+        @Label("Bombs")
+        public int bombs;
+
+        @Label("Pooled")
+        @Description("Whether or not the layout was taken ready made from the pool")
+        public boolean pooled;
+
+        @Label("No Guessing")
+        public boolean noGuess;
+    }
+
+    @Name("minesweeper.FillNeighborCount")
+    @Label("Fill Neighbor Count")
+    @Category("Minesweeper")
+    @StackTrace(false)
+    public static class FillNeighborCount extends Event {
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Columns")
+        public int columns;
+    }
+
+    @Name("minesweeper.ClearBombPath")
+    @Label("Clear Bomb Path")
+    @Category("Minesweeper")
+    @Description("Clearing the empty area around a revealed empty cell")
+    @StackTrace(false)
+    public static class ClearBombPath extends Event {
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Columns")
+        public int columns;
+
+        @Label("Cells Revealed")
+        public int cellsRevealed;
+
+        @Label("Labeled Opening")
+        @Description("Whether or not the area was a labeled opening, which needs no search")
+        public boolean labeled;
+    }
+
+    @Name("minesweeper.RevealNeighboringCells")
+    @Label("Reveal Neighboring Cells")
+    @Category("Minesweeper")
+    @Description("A chord, revealing the neighbors of a number")
+    @StackTrace(false)
+    public static class RevealNeighboringCells extends Event {
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Columns")
+        public int columns;
+
+        @Label("Cells Revealed")
+        @Description("Cells cleared, or -1 if a bomb was revealed")
+        public int cellsRevealed;
+    }
+}
@@ -0,0 +1,437 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/*
+ * GameMetrics counts what the game engines sharing it do, for JConsole,
+ * VisualVM or any other JMX client.
+ *
+ * Engines update the counts as they play, from any number of threads, so
+ * every count is a LongAdder or LongAccumulator: an update only touches a
+ * cell of its own thread and never waits, and the cells are summed when
+ * the count is read. Registering the metrics adds three MXBeans under the
+ * Minesweeper domain, one per view:
+ *
+ *      type=Games      games started, won and lost, per level
+ *      type=Moves      clicks, cells cleared and flood fill sizes
+ *      type=Boards     time to set up a board and memory taken by boards
+ *
+ * Gauges are worked out when they are read. The rate of cleared cells is
+ * sampled once a second by a daemon timer shared by all metrics, so reading
+ * it changes nothing and every client sees the same rate.
+ *
+ * Games are counted per pre-set level, and every custom level together
+ * under "Custom", so clients sending many sizes cannot grow the counts.
+ */
+public class GameMetrics {
+
+    // Domain of the registered MXBeans
+    public final static String DOMAIN = "Minesweeper";
+
+    // Time between samples of the rate of cleared cells
+    private final static long RATE_WINDOW_NANOS = 1000000000L;
+
+    // Level name all custom levels are counted under
+    public final static String CUSTOM = "Custom";
+
+    // Games per level, in an entry of a few counts
+    private final static int STARTED = 0;
+    private final static int WON = 1;
+    private final static int LOST = 2;
+
+    // Views of the counts, one MXBean each
+    private final Games games = new Games();
+    private final Moves moves = new Moves();
+    private final Boards boards = new Boards();
+
+    // Games
+    private final ConcurrentHashMap<String, LongAdder[]> levels = new ConcurrentHashMap<String, LongAdder[]>();
+
+    // Moves
+    private final LongAdder reveals = new LongAdder();
+    private final LongAdder flags = new LongAdder();
+    private final LongAdder chords = new LongAdder();
+    private final LongAdder cellsCleared = new LongAdder();
+    private final LongAdder floodFills = new LongAdder();
+    private final LongAdder floodFillCells = new LongAdder();
+    private final LongAccumulator largestFloodFill = new LongAccumulator(Math::max, 0);
+    private final LongAdder floodFillSizes[] = new LongAdder[32];
+
+    // Boards
+    private final LongAdder setups = new LongAdder();
+    private final LongAdder setupNanos = new LongAdder();
+    private final LongAccumulator longestSetupNanos = new LongAccumulator(Math::max, 0);
+    private final Set<GameEngine> engines = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<GameEngine, Boolean>()));
+
+    // Cells cleared at the last sample and when, written by the sampler only,
+    // and the rate between the last two samples
+    private long rateCells = 0;
+    private long rateNanos = System.nanoTime();
+    private volatile double rate = 0;
+
+    // Metrics whose rate is sampled, dropped once nothing else holds them
+    private final static Set<GameMetrics> SAMPLED = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<GameMetrics, Boolean>()));
+
+    // Timer taking the samples
+    private final static ScheduledExecutorService SAMPLER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "GameMetrics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        SAMPLER.scheduleAtFixedRate(GameMetrics::sampleAll, RATE_WINDOW_NANOS, RATE_WINDOW_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /*
+     * Constructor for GameMetrics, which are not registered.
+     */
+    public GameMetrics() {
+        for (int i = 0; i < floodFillSizes.length; i++) {
+            floodFillSizes[i] = new LongAdder();
+        }
+        SAMPLED.add(this);
+    }
+
+    /*
+     * Creates metrics and registers their MXBeans with the platform MBean
+     * server, so JMX clients can see them.
+     *
+     * @param   name        The name of what the metrics are for, unique in the JVM
+     * @return              The metrics
+     */
+    public static GameMetrics register(String name) {
+        GameMetrics metrics = new GameMetrics();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new StandardMBean(metrics.games, GamesMXBean.class, true), objectName("Games", name));
+            server.registerMBean(new StandardMBean(metrics.moves, MovesMXBean.class, true), objectName("Moves", name));
+            server.registerMBean(new StandardMBean(metrics.boards, BoardsMXBean.class, true), objectName("Boards", name));
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics: " + name, e);
+        }
+        return metrics;
+    }
+
+    /*
+     * Removes the MXBeans of registered metrics.
+     *
+     * @param   name        The name the metrics were registered with
+     */
+    public static void unregister(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (String type : new String[] {"Games", "Moves", "Boards"}) {
+                ObjectName objectName = objectName(type, name);
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister metrics: " + name, e);
+        }
+    }
+
+    private static ObjectName objectName(String type, String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+    }
+
+    public GamesMXBean getGames() {
+        return games;
+    }
+
+    public MovesMXBean getMoves() {
+        return moves;
+    }
+
+    public BoardsMXBean getBoards() {
+        return boards;
+    }
+
+    // ------- UPDATES, from the engines -------
+
+    /*
+     * Adds an engine whose board counts towards the footprint.
+     */
+    void attach(GameEngine engine) {
+        engines.add(engine);
+    }
+
+    void detach(GameEngine engine) {
+        engines.remove(engine);
+    }
+
+    /*
+     * Counts a game laid out by its first reveal, and the time that took.
+     *
+     * @param   config      The level of the game
+     * @param   nanos       The time taken to lay out the board
+     */
+    public void gameStarted(GameConfig config, long nanos) {
+        counts(config)[STARTED].increment();
+        setups.increment();
+        setupNanos.add(nanos);
+        longestSetupNanos.accumulate(nanos);
+    }
+
+    /*
+     * Counts a game won or lost.
+     *
+     * @param   config      The level of the game
+     * @param   outcome     WON or LOST
+     */
+    public void gameEnded(GameConfig config, GameEngine.Status outcome) {
+        counts(config)[outcome == GameEngine.Status.WON ? WON : LOST].increment();
+    }
+
+    /*
+     * Counts a move that changed the board.
+     *
+     * @param   type        The kind of move: Replay.REVEAL, FLAG or CHORD
+     */
+    public void moved(int type) {
+        if (type == Replay.FLAG) {
+            flags.increment();
+        }
+        else if (type == Replay.CHORD) {
+            chords.increment();
+        }
+        else {
+            reveals.increment();
+        }
+    }
+
+    /*
+     * Counts cells cleared by a move.
+     *
+     * @param   cleared     The number of cells cleared
+     */
+    public void cleared(int cleared) {
+        if (cleared > 0) {
+            cellsCleared.add(cleared);
+        }
+    }
+
+    /*
+     * Counts a flood fill from an empty cell.
+     *
+     * @param   size        The number of cells it cleared
+     */
+    public void floodFilled(int size) {
+        floodFills.increment();
+        floodFillCells.add(size);
+        largestFloodFill.accumulate(size);
+        floodFillSizes[31 - Integer.numberOfLeadingZeros(Math.max(size, 1))].increment();
+    }
+
+    // The games, as seen over JMX
+    private class Games implements GamesMXBean {
+
+        public Map<String, Long> getGamesStarted() {
+            return byLevel(STARTED);
+        }
+
+        public Map<String, Long> getGamesWon() {
+            return byLevel(WON);
+        }
+
+        public Map<String, Long> getGamesLost() {
+            return byLevel(LOST);
+        }
+
+        public long getTotalGamesStarted() {
+            return total(STARTED);
+        }
+
+        public long getTotalGamesWon() {
+            return total(WON);
+        }
+
+        public long getTotalGamesLost() {
+            return total(LOST);
+        }
+    }
+
+    // The moves, as seen over JMX
+    private class Moves implements MovesMXBean {
+
+        public long getClicks() {
+            return reveals.sum() + flags.sum() + chords.sum();
+        }
+
+        public long getReveals() {
+            return reveals.sum();
+        }
+
+        public long getFlags() {
+            return flags.sum();
+        }
+
+        public long getChords() {
+            return chords.sum();
+        }
+
+        public long getCellsCleared() {
+            return cellsCleared.sum();
+        }
+
+        /*
+         * Gets the cells cleared per second, over the last second sampled.
+         *
+         * @return              The rate of cleared cells
+         */
+        public double getCellsClearedPerSecond() {
+            return rate;
+        }
+
+        public long getFloodFills() {
+            return floodFills.sum();
+        }
+
+        public long getFloodFillCells() {
+            return floodFillCells.sum();
+        }
+
+        public long getLargestFloodFill() {
+            return largestFloodFill.get();
+        }
+
+        public double getAverageFloodFillSize() {
+            long fills = floodFills.sum();
+            return (fills == 0) ? 0 : (double) floodFillCells.sum() / fills;
+        }
+
+        public long[] getFloodFillSizeHistogram() {
+            int used = floodFillSizes.length;
+            while (used > 1 && floodFillSizes[used - 1].sum() == 0) {
+                used--;
+            }
+            long histogram[] = new long[used];
+            for (int i = 0; i < used; i++) {
+                histogram[i] = floodFillSizes[i].sum();
+            }
+            return histogram;
+        }
+    }
+
+    // The boards, as seen over JMX
+    private class Boards implements BoardsMXBean {
+
+        public long getSetups() {
+            return setups.sum();
+        }
+
+        public double getAverageSetupMillis() {
+            long count = setups.sum();
+            return (count == 0) ? 0 : setupNanos.sum() / 1e6 / count;
+        }
+
+        public double getLongestSetupMillis() {
+            return longestSetupNanos.get() / 1e6;
+        }
+
+        public int getBoards() {
+            return engines.size();
+        }
+
+        /*
+         * Gets the bytes the cells of every board take, on the heap or mapped
+         * from a file. Boards are read while they may be played, so the sum is
+         * a close estimate.
+         *
+         * @return              The footprint of the boards
+         */
+        public long getBoardFootprint() {
+            List<GameEngine> live;
+            synchronized (engines) {
+                live = new ArrayList<GameEngine>(engines);
+            }
+            long bytes = 0;
+            for (GameEngine engine : live) {
+                bytes += engine.getModel().getFootprint();
+            }
+            return bytes;
+        }
+    }
+
+    /*
+     * Samples the rate of cleared cells of every metrics, on the timer.
+     */
+    private static void sampleAll() {
+        List<GameMetrics> sampled;
+        synchronized (SAMPLED) {
+            sampled = new ArrayList<GameMetrics>(SAMPLED);
+        }
+        for (GameMetrics metrics : sampled) {
+            metrics.sample();
+        }
+    }
+
+    /*
+     * Works out the rate of cleared cells since the last sample.
+     */
+    private void sample() {
+        long now = System.nanoTime();
+        long cells = cellsCleared.sum();
+        rate = (cells - rateCells) * 1e9 / Math.max(now - rateNanos, 1);
+        rateCells = cells;
+        rateNanos = now;
+    }
+
+    private LongAdder[] counts(GameConfig config) {
+        String level = levelOf(config);
+        LongAdder counts[] = levels.get(level);
+        if (counts == null) {
+            counts = levels.computeIfAbsent(level, l -> new LongAdder[] {new LongAdder(), new LongAdder(), new LongAdder()});
+        }
+        return counts;
+    }
+
+    /*
+     * Gets the name a level is counted under: its own for a pre-set level,
+     * and CUSTOM for any other.
+     */
+    private static String levelOf(GameConfig config) {
+        if (config.equals(GameConfig.BEGINNER) || config.equals(GameConfig.INTERMEDIATE) || config.equals(GameConfig.EXPERT)) {
+            return config.toString();
+        }
+        return CUSTOM;
+    }
+
+    private Map<String, Long> byLevel(int count) {
+        Map<String, Long> byLevel = new TreeMap<String, Long>();
+        for (Map.Entry<String, LongAdder[]> entry : levels.entrySet()) {
+            byLevel.put(entry.getKey(), entry.getValue()[count].sum());
+        }
+        return byLevel;
+    }
+
+    private long total(int count) {
+        long total = 0;
+        for (LongAdder counts[] : levels.values()) {
+            total += counts[count].sum();
+        }
+        return total;
+    }
+}
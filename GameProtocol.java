@@ -0,0 +1,248 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * GameProtocol is the binary protocol spoken between the GameServer and
+ * its clients. Every message is a frame: its length as a varint, then the
+ * body. A client sends one request at a time and gets one reply for it.
+ *
+ * Requests start with their type:
+ *
+ *      NEW_GAME    the length, width and bomb count, then 1 and the seed of
+ *                  the layout, or 0 for a random layout
+ *      REVEAL, FLAG, CHORD, CLICK
+ *                  the row and column of the cell
+ *
+ * A reply is the status of the game after the request, then the number of
+ * cells that changed and each cell: its index as a zigzag encoded step
+ * from the last one, and its state as the player sees it. Only cleared
+ * cells show their count and hidden cells only show their flag, until the
+ * game is over and every hidden cell is sent once more with REVEALED set.
+ * A request the server cannot handle gets the ERROR status and a message,
+ * and the connection is closed.
+ *
+ * Numbers are unsigned varints, as in a Replay.
+ */
+public class GameProtocol {
+
+    // Request Types
+    public final static int NEW_GAME = 0;
+    public final static int REVEAL = 1;
+    public final static int FLAG = 2;
+    public final static int CHORD = 3;
+    public final static int CLICK = 4;
+
+    // Status of a reply the server could not handle
+    public final static int ERROR = 0xFF;
+
+    // Largest frame accepted, which bounds the buffer kept for a connection
+    public final static int MAX_REQUEST = 64;
+
+    // Bits of a cleared cell a player may see, keeping a flag the fill cleared under
+    private final static int VISIBLE_BITS = BoardModel.COUNT_MASK | BoardModel.CLEARED | BoardModel.FLAGGED;
+
+    /*
+     * Gets the state of a cell as a player sees it.
+     *
+     * @param   state       The packed cell state
+     * @param   over        Whether or not the game is over, which reveals the cell
+     * @return              The state to send
+     */
+    public static int visibleState(int state, boolean over) {
+        if (over || (state & BoardModel.REVEALED) != 0) {
+            return state | BoardModel.REVEALED;
+        }
+        if ((state & BoardModel.CLEARED) != 0) {
+            return state & VISIBLE_BITS;
+        }
+        return state & BoardModel.FLAGGED;
+    }
+
+    /*
+     * Reads the cells of a reply into a board, from just after the status.
+     *
+     * @param   body        The body of the reply, positioned at the cell count
+     * @param   board       The board to update
+     * @return              The number of flags placed, minus the flags removed
+     */
+    public static int readCells(ByteBuffer body, BoardModel board) {
+        int count = (int) getVarint(body);
+        int index = 0;
+        int flagChange = 0;
+        for (int i = 0; i < count; i++) {
+            long step = getVarint(body);
+            index += (int) ((step >>> 1) ^ -(step & 1));
+            int state = body.get() & 0xFF;
+            if (((board.get(index) ^ state) & BoardModel.FLAGGED) != 0 && (state & BoardModel.REVEALED) == 0) {
+                flagChange += ((state & BoardModel.FLAGGED) != 0) ? 1 : -1;
+            }
+            board.set(index, state);
+        }
+        return flagChange;
+    }
+
+    /*
+     * Reads the message of an ERROR reply, from just after the status.
+     *
+     * @param   body        The body of the reply
+     * @return              The message
+     */
+    public static String readError(ByteBuffer body) {
+        byte message[] = new byte[(int) getVarint(body)];
+        body.get(message);
+        return new String(message, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Writes an ERROR reply body.
+     *
+     * @param   body        The buffer to write to, with room for the message
+     * @param   message     What went wrong
+     */
+    public static void putError(ByteBuffer body, String message) {
+        byte bytes[] = message.getBytes(StandardCharsets.UTF_8);
+        body.put((byte) ERROR);
+        putVarint(body, bytes.length);
+        body.put(bytes);
+    }
+
+    /*
+     * Writes a NEW_GAME request body.
+     *
+     * @param   body        The buffer to write to
+     * @param   config      The level to play
+     * @param   seeded      Whether or not the layout comes from the seed
+     * @param   seed        The seed of the layout
+     */
+    public static void putNewGame(ByteBuffer body, GameConfig config, boolean seeded, long seed) {
+        body.put((byte) NEW_GAME);
+        putVarint(body, config.getLength());
+        putVarint(body, config.getWidth());
+        putVarint(body, config.getBombCount());
+        body.put((byte) (seeded ? 1 : 0));
+        if (seeded) {
+            putVarint(body, seed);
+        }
+    }
+
+    /*
+     * Writes a move request body.
+     *
+     * @param   body        The buffer to write to
+     * @param   type        REVEAL, FLAG, CHORD or CLICK
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
+     */
+    public static void putMove(ByteBuffer body, int type, int row, int col) {
+        body.put((byte) type);
+        putVarint(body, row);
+        putVarint(body, col);
+    }
+
+    /*
+     * Checks for a whole frame at the position of a buffer, and if there is
+     * one, moves the position past its length.
+     *
+     * @param   buffer      The buffer being read
+     * @return              The length of the frame body, or -1 if it is not all there yet
+     */
+    public static int startFrame(ByteBuffer buffer) {
+        return startFrame(buffer, Integer.MAX_VALUE);
+    }
+
+    /*
+     * Checks for a whole frame at the position of a buffer, and if there is
+     * one, moves the position past its length. A frame longer than the
+     * maximum is returned as soon as its length is read, without waiting for
+     * a body that may never fit the buffer, so it can be refused.
+     *
+     * @param   buffer      The buffer being read
+     * @param   maxLength   The longest frame body to wait for
+     * @return              The length of the frame body, or -1 if it is not all there yet
+     */
+    public static int startFrame(ByteBuffer buffer, int maxLength) {
+        int start = buffer.position();
+        long length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (!buffer.hasRemaining() || shift > 28) {
+                buffer.position(start);
+                return (shift > 28) ? Integer.MAX_VALUE : -1;
+            }
+            int b = buffer.get() & 0xFF;
+            length |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (length > Integer.MAX_VALUE - 5) {
+            buffer.position(start);
+            return Integer.MAX_VALUE;
+        }
+        if (length > maxLength) {
+            return (int) length;
+        }
+        if (buffer.remaining() < length) {
+            buffer.position(start);
+            return -1;
+        }
+        return (int) length;
+    }
+
+    /*
+     * Gets the number of bytes a varint takes.
+     *
+     * @param   value       The unsigned value
+     * @return              The encoded size, from 1 to 10
+     */
+    public static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /*
+     * Writes an unsigned value seven bits at a time, lowest first, with the
+     * top bit of each byte set when more follow.
+     */
+    public static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /*
+     * Reads an unsigned varint.
+     */
+    public static long getVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 63) {
+                throw new IllegalArgumentException("Bad varint");
+            }
+            int b = buffer.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    /*
+     * Writes a signed value as a zigzag encoded varint, so small steps of
+     * either sign take one byte.
+     */
+    public static void putZigzag(ByteBuffer buffer, long value) {
+        putVarint(buffer, (value << 1) ^ (value >> 63));
+    }
+}
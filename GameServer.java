@@ -0,0 +1,490 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/*
+ * GameServer hosts many games of Bombs at once over TCP, speaking the
+ * GameProtocol. Every connection plays its own game on its own GameEngine.
+ *
+ * Connections are spread over a few event loops, one thread each, which
+ * wait on a Selector and handle whichever connections have data. A
+ * connection only ever runs on its own loop, so its engine needs no locks,
+ * and a thread serves thousands of players. Engines track the CellDelta of
+ * each move, so a reply holds only those cells however big the board.
+ * A connection is not read again while its last reply is still being
+ * written, so a slow client cannot make the server buffer without limit.
+ *
+ * Usage: java GameServer [port] [threads]
+ */
+public class GameServer implements Closeable {
+
+    public final static int DEFAULT_PORT = 7717;
+
+    // Largest board a client may start a game on
+    public final static int MAX_CELLS = 1 << 20;
+
+    // Connections waiting to be accepted
+    private final static int BACKLOG = 4096;
+
+    private final ServerSocketChannel server;
+    private final EventLoop loops[];
+    private volatile boolean running = true;
+
+    // Counts the games of every connection, or null
+    private volatile GameMetrics metrics;
+
+    // The loop given the next connection, on the accepting loop only
+    private int nextLoop = 0;
+
+    /*
+     * Constructor for GameServer, which binds the port. Call start to serve.
+     *
+     * @param   port        The port on localhost, or 0 for any free port
+     * @param   threads     The number of event loops
+     */
+    public GameServer(int port, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Invalid thread count: " + threads);
+        }
+        try {
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress("localhost", port), BACKLOG);
+            server.configureBlocking(false);
+
+            loops = new EventLoop[threads];
+            for (int i = 0; i < threads; i++) {
+                loops[i] = new EventLoop();
+            }
+            // The first loop accepts connections too
+            server.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start server on port " + port, e);
+        }
+    }
+
+    /*
+     * Starts serving on the event loop threads.
+     */
+    public void start() {
+        for (int i = 0; i < loops.length; i++) {
+            Thread thread = new Thread(loops[i], "game-server-" + i);
+            thread.start();
+        }
+    }
+
+    /*
+     * Sets metrics to count the games of every connection in, from the next
+     * game started on each.
+     *
+     * @param   metrics     The metrics, or null to stop counting
+     */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /*
+     * Gets the port the server listens on.
+     *
+     * @return              The local port
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /*
+     * Gets the number of connected clients.
+     *
+     * @return              The open connections
+     */
+    public int getConnectionCount() {
+        int count = 0;
+        for (EventLoop loop : loops) {
+            count += loop.connections;
+        }
+        return count;
+    }
+
+    /*
+     * Stops serving and closes every connection.
+     */
+    public void close() {
+        running = false;
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+    }
+
+    /*
+     * Accepts every waiting connection, handing them to the loops in turn.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            EventLoop loop = loops[nextLoop];
+            nextLoop = (nextLoop + 1) % loops.length;
+            loop.pending.add(channel);
+            loop.selector.wakeup();
+        }
+    }
+
+    // A thread serving its share of the connections
+    private class EventLoop implements Runnable {
+
+        private final Selector selector;
+
+        // Connections accepted for this loop, not registered yet
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<SocketChannel>();
+
+        // Reply body being built, shared by the connections of the loop
+        private ByteBuffer body = ByteBuffer.allocate(1 << 12);
+
+        private volatile int connections = 0;
+
+        EventLoop() throws IOException {
+            selector = Selector.open();
+        }
+
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    register();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Session session = (Session) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                session.read();
+                            }
+                            else if (key.isWritable()) {
+                                session.flush();
+                            }
+                        } catch (IOException e) {
+                            // The client went away
+                            session.close();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Event loop failed", e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    closeQuietly(key.channel());
+                }
+                closeQuietly(selector);
+                if (this == loops[0]) {
+                    closeQuietly(server);
+                }
+            }
+        }
+
+        /*
+         * Registers the connections accepted for this loop.
+         */
+        private void register() throws IOException {
+            SocketChannel channel;
+            while ((channel = pending.poll()) != null) {
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new Session(this, channel, key));
+                connections++;
+            }
+        }
+
+        GameMetrics getMetrics() {
+            return metrics;
+        }
+
+        /*
+         * Makes sure the reply body has room for a number of bytes.
+         */
+        ByteBuffer body(int capacity) {
+            if (body.capacity() < capacity) {
+                body = ByteBuffer.allocate(Math.max(capacity, body.capacity() * 2));
+            }
+            body.clear();
+            return body;
+        }
+    }
+
+    // A connected client and its game
+    private static class Session {
+
+        private final EventLoop loop;
+        private final SocketChannel channel;
+        private final SelectionKey key;
+
+        // Bytes read but not handled yet, and bytes still to write
+        private ByteBuffer in = ByteBuffer.allocate(GameProtocol.MAX_REQUEST * 2);
+        private ByteBuffer out = ByteBuffer.allocate(256);
+
+        // The game, from the first NEW_GAME on
+        private GameEngine engine;
+        private final CellDelta delta = new CellDelta();
+
+        // Whether or not to close once the last reply is written
+        private boolean closing = false;
+
+        Session(EventLoop loop, SocketChannel channel, SelectionKey key) {
+            this.loop = loop;
+            this.channel = channel;
+            this.key = key;
+        }
+
+        /*
+         * Reads what the client sent and handles every whole request.
+         */
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            in.flip();
+            int length;
+            while (!closing && (length = GameProtocol.startFrame(in, GameProtocol.MAX_REQUEST)) >= 0) {
+                if (length > GameProtocol.MAX_REQUEST) {
+                    reply(error("Request too long"));
+                    break;
+                }
+                int end = in.position() + length;
+                int limit = in.limit();
+                in.limit(end);
+                reply(handle(in));
+                in.limit(limit);
+                in.position(end);
+            }
+            in.compact();
+            flush();
+        }
+
+        /*
+         * Writes as much of the pending replies as the socket takes, and
+         * waits to write the rest before reading again.
+         */
+        void flush() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            if (out.position() > 0) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            }
+            else if (closing) {
+                close();
+            }
+            else {
+                // Let go of the room a game over reply on a big board took
+                if (out.capacity() > 1 << 12) {
+                    out = ByteBuffer.allocate(256);
+                }
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        void close() {
+            if (key.isValid()) {
+                key.cancel();
+                loop.connections--;
+            }
+            if (engine != null) {
+                engine.setMetrics(null);
+            }
+            closeQuietly(channel);
+        }
+
+        /*
+         * Handles a request, leaving the body of the reply in the loop buffer.
+         */
+        private ByteBuffer handle(ByteBuffer request) {
+            try {
+                int type = request.get();
+                if (type == GameProtocol.NEW_GAME) {
+                    return newGame(request);
+                }
+                if (engine == null) {
+                    return error("No game started");
+                }
+                int row = (int) GameProtocol.getVarint(request);
+                int col = (int) GameProtocol.getVarint(request);
+                if (!engine.getModel().inBounds(row, col)) {
+                    return error("Cell off the board: " + row + ", " + col);
+                }
+
+                boolean wasOver = engine.isOver();
+                switch (type) {
+                    case GameProtocol.REVEAL:
+                        engine.reveal(row, col);
+                        break;
+                    case GameProtocol.FLAG:
+                        engine.flag(row, col);
+                        break;
+                    case GameProtocol.CHORD:
+                        engine.chord(row, col);
+                        break;
+                    case GameProtocol.CLICK:
+                        engine.click(row, col);
+                        break;
+                    default:
+                        return error("Unknown request: " + type);
+                }
+                return changes(!wasOver && engine.isOver());
+            } catch (RuntimeException e) {
+                return error("Bad request: " + e);
+            }
+        }
+
+        /*
+         * Starts a new game, on the same engine if there is one.
+         */
+        private ByteBuffer newGame(ByteBuffer request) {
+            int length = (int) GameProtocol.getVarint(request);
+            int width = (int) GameProtocol.getVarint(request);
+            int bombCount = (int) GameProtocol.getVarint(request);
+            boolean seeded = request.get() != 0;
+            long seed = seeded ? GameProtocol.getVarint(request) : 0;
+            if (length <= 0 || width <= 0 || (long) length * width > MAX_CELLS) {
+                return error("Board too large: " + length + " x " + width);
+            }
+
+            GameConfig config = GameConfig.custom(length, width, bombCount);
+            if (engine == null) {
+                engine = new GameEngine(config);
+                engine.setDelta(delta);
+            }
+            else {
+                engine.newGame(config);
+            }
+            if (engine.getMetrics() != loop.getMetrics()) {
+                engine.setMetrics(loop.getMetrics());
+            }
+            if (seeded) {
+                engine.getGameBoard().setSeed(seed);
+            }
+
+            ByteBuffer body = loop.body(2);
+            body.put((byte) engine.getStatus().ordinal());
+            GameProtocol.putVarint(body, 0);
+            return body;
+        }
+
+        /*
+         * Builds a reply with the cells changed by the last move, and every
+         * hidden cell if the move ended the game. A move that changed the
+         * whole board sends every cell.
+         */
+        private ByteBuffer changes(boolean ended) {
+            BoardModel model = engine.getModel();
+            boolean all = delta.isAll();
+            int count = all ? model.size() : delta.size();
+            if (ended && !all) {
+                for (int i = 0; i < model.size(); i++) {
+                    if (!model.isCleared(i)) {
+                        count++;
+                    }
+                }
+            }
+
+            // At most a status, the count and a ten byte step and state per cell
+            ByteBuffer body = loop.body(6 + count * 11);
+            body.put((byte) engine.getStatus().ordinal());
+            GameProtocol.putVarint(body, count);
+
+            boolean over = engine.isOver();
+            int last = 0;
+            if (all) {
+                for (int index = 0; index < model.size(); index++) {
+                    GameProtocol.putZigzag(body, index - last);
+                    body.put((byte) GameProtocol.visibleState(model.get(index), over && !model.isCleared(index)));
+                    last = index;
+                }
+                return body;
+            }
+            for (int i = 0; i < delta.size(); i++) {
+                int index = delta.getIndex(i);
+                GameProtocol.putZigzag(body, index - last);
+                body.put((byte) GameProtocol.visibleState(delta.getState(i), over));
+                last = index;
+            }
+            if (ended) {
+                for (int index = 0; index < model.size(); index++) {
+                    if (!model.isCleared(index)) {
+                        GameProtocol.putZigzag(body, index - last);
+                        body.put((byte) GameProtocol.visibleState(model.get(index), true));
+                        last = index;
+                    }
+                }
+            }
+            return body;
+        }
+
+        /*
+         * Builds an ERROR reply, and closes the connection once it is sent.
+         */
+        private ByteBuffer error(String message) {
+            closing = true;
+            ByteBuffer body = loop.body(16 + message.length() * 3);
+            GameProtocol.putError(body, message);
+            return body;
+        }
+
+        /*
+         * Queues a reply body as a frame.
+         */
+        private void reply(ByteBuffer body) {
+            body.flip();
+            int size = GameProtocol.varintSize(body.remaining()) + body.remaining();
+            if (out.remaining() < size) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + size));
+                out.flip();
+                bigger.put(out);
+                out = bigger;
+            }
+            GameProtocol.putVarint(out, body.remaining());
+            out.put(body);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing left to do with it
+        }
+    }
+
+    public static void main(String args[]) {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        GameServer server = new GameServer(port, threads);
+        server.setMetrics(GameMetrics.register("server"));
+        server.start();
+        System.out.println("Serving Bombs on localhost:" + server.getPort() + " with " + threads + " threads");
+    }
+}
@@ -9,89 +9,136 @@ import java.awt.*;
 
 public class GameView extends JPanel {
 
-    // Board Size Constants
-    private final static int BEGINNER_LENGTH = 5;
-    private final static int INTERMEDIATE_LENGTH = 8;
-    private final static int EXPERT_LENGTH = 10;
-
-    // Bomb Count Constants
-    private final static int BEGINNER_BOMBS = 5;
-    private final static int INTERMEDIATE_BOMBS = 15;
-    private final static int EXPERT_BOMBS = 30;
+    // Core game play objects
+    private GameEngine engine;
+    private GameBoard gameBoard;
 
-    // Default Value Constants
-    private final static int DEFAULT_LENGTH = INTERMEDIATE_LENGTH;
-    private final static int DEFAULT_BOMBS = INTERMEDIATE_BOMBS;
+    // Connection to the server playing the game, or null to play locally
+    private GameClient client;
 
-    // Core game play objects
-    private static GameBoard gameBoard;
+    // Cells changed by the last move, which are all that is repainted
+    private CellDelta delta = new CellDelta();
 
+    // Single component painting every cell of the board
+    private BoardCanvas boardCanvas;
 
-    private static int length, width, bombCount;
+    // Scrollable viewport onto the board canvas
+    private JScrollPane boardScrollPane;
 
     /*
      * Constructor for Game View
      *
-     * @param   gameBoard       The game board to add to view
+     * @param   engine          The game engine to add to view
+     * @param   GML             The listener for clicks on the board
      */
-    GameView(GameBoard gameBoard) {
+    GameView(GameEngine engine, Bombs.GameMouseListener GML) {
         super();
-        this.gameBoard = gameBoard;
+        this.engine = engine;
+        this.gameBoard = engine.getGameBoard();
+        engine.setDelta(delta);
 
+        boardCanvas = new BoardCanvas(gameBoard);
+        boardCanvas.addMouseListener(GML);
+
+        // Reuse already painted pixels when scrolling, so only the exposed strip is painted
+        boardScrollPane = new JScrollPane(boardCanvas);
+        boardScrollPane.setBorder(BorderFactory.createEmptyBorder());
+        boardScrollPane.getViewport().setScrollMode(JViewport.BLIT_SCROLL_MODE);
     }
 
     /*
-     * Sets up the game view board.
+     * Gets the canvas the board is painted on.
+     *
+     * @return      The board canvas
      */
-    public void initialSetup() {
-        // Add the game board to the board layout area
-        setLayout(new GridLayout(DEFAULT_LENGTH, DEFAULT_LENGTH, 0, 0));
-        gameBoard.fillBoardView(this);
+    public BoardCanvas getBoardCanvas() {
+        return boardCanvas;
     }
 
     /*
-     * Refreshes the game with new metadata.
+     * Gets the engine playing the game.
      *
-     * @param   length      The new desired length
-     * @param   width       The new desired width
-     * @param   bombCount   The new desired bomb count
+     * @return      The game engine
      */
-    public void refresh(int length, int width, int bombCount) {
-        removeAll();
-        setLayout(new GridLayout(length, width, 0, 0));
-        gameBoard.changeBoard(length, width, bombCount);
-        gameBoard.fillBoardView(this);
+    public GameEngine getEngine() {
+        return engine;
     }
 
     /*
-     * Clea the bomb path surrounding the current cell.
+     * Plays the game on a server instead of on the local engine. The board
+     * of the local engine keeps the cells sent back by the server.
      *
-     * @param   curCell     The cell to clear a path for
+     * @param   client      The connection to the server
      */
-    public int clearBombPath(Cell curCell) {
+    public void connect(GameClient client) {
+        this.client = client;
+        client.newGame(engine.getConfig(), engine.getModel());
+        boardCanvas.repaint();
+    }
 
-        // Make all non-bomb neighboring cells unclickable
-        return gameBoard.clearBombPath(curCell);
+    /*
+     * Checks if the game is played on a server.
+     *
+     * @return      Whether or not the view is connected
+     */
+    public boolean isRemote() {
+        return client != null;
+    }
 
+    /*
+     * Sets up the game view board.
+     */
+    public void initialSetup() {
+        // Add the scrollable board canvas to the board layout area
+        setLayout(new BorderLayout());
+        add(boardScrollPane, BorderLayout.CENTER);
     }
 
     /*
-     * Clear the given cell.
+     * Refreshes the game with a new level.
      *
-     * @param   curCell     The cell to clear
+     * @param   config      The new desired level
      */
-    public int clearCell(Cell curCell) {
+    public void refresh(GameConfig config) {
+        engine.newGame(config);
+        if (client != null) {
+            client.newGame(config, engine.getModel());
+        }
+        boardCanvas.revalidate();
+        boardScrollPane.getViewport().setViewPosition(new Point(0, 0));
+        boardCanvas.repaint();
+    }
 
-        // Clear current cell
-        return gameBoard.clearCell(curCell);
+    /*
+     * Left click the given cell: chord a satisfied number, reveal anything else.
+     *
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
+     * @return              The number of cells cleared, or -1 if a bomb was revealed (0 on a server)
+     */
+    public int click(int row, int col) {
+        int cleared = 0;
+        if (client != null) {
+            // The cells sent back are set on the engine's board, which fills the delta
+            delta.clear();
+            client.click(row, col);
+        }
+        else {
+            cleared = engine.click(row, col);
+        }
+        boardCanvas.repaintCells(delta);
+        return cleared;
     }
 
     /*
      * Reveal the entire board.
      */
     public void revealBoard() {
-        // Reveal all the bombs
-        gameBoard.revealBoard();
+        // Reveal all the bombs, which a server has already sent
+        if (client == null) {
+            gameBoard.revealBoard();
+        }
+        boardCanvas.repaint();
     }
 
     /*
@@ -99,43 +146,85 @@ public class GameView extends JPanel {
      */
     public void resetGame() {
         // Clear and reset cells
-        gameBoard.resetGame();
+        engine.newGame(engine.getConfig());
+        if (client != null) {
+            client.newGame(engine.getConfig(), engine.getModel());
+        }
+        boardCanvas.repaint();
     }
 
     /*
-     * Setup the game board with the starting cell
+     * Toggle the flag at the current cell.
      *
-     * @param   curCell     The starting cell for the game
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
      */
-    public void setup(Cell curCell) {
-        gameBoard.setup(curCell);
+    public void toggleFlag(int row, int col) {
+        if (client != null) {
+            delta.clear();
+            client.flag(row, col);
+        }
+        else {
+            engine.flag(row, col);
+        }
+        boardCanvas.repaintCells(delta);
     }
 
     /*
-     * Toggle the flag at the current cell.
+     * Takes back the last move, if moves are kept.
      *
-     * @param   curCell     The cell to toggle
+     * @return              Whether or not a move was taken back
      */
-    public void toggleFlag(Cell curCell) {
-        gameBoard.toggleFlag(curCell);
+    public boolean undo() {
+        if (client != null || !engine.undo()) {
+            return false;
+        }
+        boardCanvas.repaintCells(delta);
+        return true;
     }
 
     /*
-     * Reveal the neighboring cells from the current cell
+     * Makes the last move taken back again, if moves are kept.
      *
-     * @param   curCell     The current cell to reveal neighboring cells to
+     * @return              Whether or not a move was made again
      */
-    public int revealNeighboringCells(Cell curCell) {
-        return gameBoard.revealNeighboringCells(curCell);
+    public boolean redo() {
+        if (client != null || !engine.redo()) {
+            return false;
+        }
+        boardCanvas.repaintCells(delta);
+        return true;
     }
 
     /*
-     * Retrieve the count of all neighboring flag cells.
+     * Puts the game back as it was after a number of moves.
      *
-     * @param   curCell     The current cell to count from
+     * @param   move        The number of moves into the game
+     */
+    public void jumpTo(int move) {
+        engine.jumpTo(move);
+        boardCanvas.repaintCells(delta);
+    }
+
+    /*
+     * Gets the state of the game.
+     */
+    public GameEngine.Status getStatus() {
+        return (client != null) ? client.getStatus() : engine.getStatus();
+    }
+
+    /*
+     * Checks if the game has been won or lost.
+     */
+    public boolean isGameOver() {
+        return (client != null) ? client.isOver() : engine.isOver();
+    }
+
+    /*
+     * Gets the number of bombs minus the number of flags.
      */
-    public int getNeighboringFlagCount(Cell curCell) {
-        return gameBoard.getNeighboringFlagCount(curCell);
+    public int getBombsLeft() {
+        return (client != null) ? client.getBombsLeft() : engine.getBombsLeft();
     }
 
 }
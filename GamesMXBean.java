@@ -0,0 +1,24 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Map;
+
+/*
+ * The games played by the engines sharing a GameMetrics, as seen over JMX.
+ * Pre-set levels are named as GameConfig names them, such as
+ * "Expert 10x10/30", and every custom level is counted as "Custom".
+ */
+public interface GamesMXBean {
+
+    // Games started, won and lost, by level
+    Map<String, Long> getGamesStarted();
+    Map<String, Long> getGamesWon();
+    Map<String, Long> getGamesLost();
+
+    long getTotalGamesStarted();
+    long getTotalGamesWon();
+    long getTotalGamesLost();
+}
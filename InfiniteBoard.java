@@ -0,0 +1,419 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/*
+ * InfiniteBoard is an unbounded board, made of square chunks that are only
+ * generated once a cell in them is looked at.
+ *
+ * Whether a cell is a bomb is a hash of the seed and its coordinates, so
+ * any chunk can be generated on its own, in any order, and the counts along
+ * its edges come from the bombs just outside of it without generating its
+ * neighbors. The cells around the origin stay free of bombs, so the game
+ * starts by revealing (0, 0). The density must stay above MIN_DENSITY, or
+ * the empty areas could go on forever.
+ *
+ * Chunks are kept in least recently used order. Once more than the maximum
+ * are loaded, the oldest ones outside of the view are evicted: a chunk the
+ * player never changed is simply dropped and generated again when needed,
+ * and a changed chunk is written to the ChunkStore first. Without a store,
+ * changed chunks stay in memory. Memory then grows with the area explored,
+ * not with the size of the world.
+ *
+ * Cells are addressed by (row, col), which may be negative.
+ */
+public class InfiniteBoard {
+
+    // Chunks are CHUNK_SIZE x CHUNK_SIZE cells
+    public final static int CHUNK_BITS = 5;
+    public final static int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private final static int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Lowest density where the empty areas are still bounded
+    public final static double MIN_DENSITY = 0.12;
+
+    private final static int R_NEIGHBOR_COORDINATES[] = {1, 1, 1, 0, -1, -1, -1, 0};
+    private final static int C_NEIGHBOR_COORDINATES[] = {-1, 0, 1, 1, 1, 0, -1, -1};
+
+    // A loaded chunk, with its bombs, counts and player state
+    private static class Chunk {
+        private final int chunkRow;
+        private final int chunkCol;
+        private final BoardModel model = new BoardModel(CHUNK_SIZE, CHUNK_SIZE);
+
+        // Whether the player changed a cell, and whether that is not written yet
+        private boolean modified;
+        private boolean dirty;
+
+        Chunk(int chunkRow, int chunkCol) {
+            this.chunkRow = chunkRow;
+            this.chunkCol = chunkCol;
+        }
+    }
+
+    private final double density;
+    private final long seed;
+    private final long bombThreshold;
+    private final int safeRadius = MineGenerator.DEFAULT_SAFE_RADIUS;
+
+    // Loaded chunks by key, least recently used first
+    private final LinkedHashMap<Long, Chunk> chunks = new LinkedHashMap<Long, Chunk>(64, 0.75f, true);
+    private final int maxChunks;
+    private final ChunkStore store;
+    private Chunk last;
+
+    // Chunks in view, which are never evicted
+    private int firstViewChunkRow, lastViewChunkRow = -1;
+    private int firstViewChunkCol, lastViewChunkCol = -1;
+
+    // Reusable state for generating chunks and clearing empty areas
+    private final boolean halo[] = new boolean[(CHUNK_SIZE + 2) * (CHUNK_SIZE + 2)];
+    private final IntList stackRows = new IntList(64);
+    private final IntList stackCols = new IntList(64);
+
+    private long cellsCleared;
+    private boolean lost;
+
+    /*
+     * Constructor for InfiniteBoard
+     *
+     * @param   density     The chance of each cell being a bomb
+     * @param   seed        The seed for the world
+     * @param   maxChunks   The number of chunks to keep loaded before evicting
+     * @param   store       Where to write changed chunks, or null to keep them in memory
+     */
+    public InfiniteBoard(double density, long seed, int maxChunks, ChunkStore store) {
+        if (!(density >= MIN_DENSITY && density < 1) || maxChunks <= 0) {
+            throw new IllegalArgumentException("Invalid infinite board: density " + density + ", " + maxChunks + " chunks");
+        }
+        this.density = density;
+        this.seed = seed;
+        this.bombThreshold = (long) (density * (1L << 53));
+        this.maxChunks = maxChunks;
+        this.store = store;
+    }
+
+    /*
+     * Gets the packed state of a cell, generating its chunk if needed.
+     *
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
+     * @return              The packed cell state, as in BoardModel
+     */
+    public int get(int row, int col) {
+        return chunkAt(row, col).model.get(localIndex(row, col));
+    }
+
+    /*
+     * Clears a cell, and the whole empty area around it across chunks.
+     *
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
+     * @return              The number of cells cleared, or -1 if the cell was a bomb
+     */
+    public int reveal(int row, int col) {
+        return clearCell(row, col);
+    }
+
+    /*
+     * Clears every hidden neighbor of a cleared number whose bombs are all flagged.
+     *
+     * @param   row         The row of the number
+     * @param   col         The column of the number
+     * @return              The number of cells cleared, or -1 if a bomb was hit
+     */
+    public int chord(int row, int col) {
+        int state = get(row, col);
+        int count = state & BoardModel.COUNT_MASK;
+        if ((state & BoardModel.CLEARED) == 0 || count == 0 || getNeighboringFlagCount(row, col) != count) {
+            return 0;
+        }
+
+        int cleared = 0;
+        for (int i = 0; i < R_NEIGHBOR_COORDINATES.length && cleared != -1; i++) {
+            int result = clearCell(row + R_NEIGHBOR_COORDINATES[i], col + C_NEIGHBOR_COORDINATES[i]);
+            cleared = (result == -1) ? -1 : cleared + result;
+        }
+        return cleared;
+    }
+
+    /*
+     * Flags or unflags a hidden cell.
+     *
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
+     * @param   isFlag      Whether or not the cell is flagged
+     */
+    public void setFlag(int row, int col, boolean isFlag) {
+        Chunk chunk = chunkAt(row, col);
+        int index = localIndex(row, col);
+        int state = chunk.model.get(index);
+        if ((state & BoardModel.CLEARED) == 0) {
+            change(chunk, index, isFlag ? state | BoardModel.FLAGGED : state & ~BoardModel.FLAGGED);
+        }
+    }
+
+    /*
+     * Sets the cells in view, whose chunks are never evicted.
+     *
+     * @param   firstRow    The top row in view
+     * @param   firstCol    The left column in view
+     * @param   length      The number of rows in view
+     * @param   width       The number of columns in view
+     */
+    public void setView(int firstRow, int firstCol, int length, int width) {
+        firstViewChunkRow = firstRow >> CHUNK_BITS;
+        lastViewChunkRow = (firstRow + length - 1) >> CHUNK_BITS;
+        firstViewChunkCol = firstCol >> CHUNK_BITS;
+        lastViewChunkCol = (firstCol + width - 1) >> CHUNK_BITS;
+        trim(maxChunks);
+    }
+
+    /*
+     * Writes every changed chunk still in memory to the store.
+     */
+    public void flush() {
+        if (store == null) {
+            return;
+        }
+        for (Chunk chunk : chunks.values()) {
+            if (chunk.dirty) {
+                write(chunk);
+            }
+        }
+    }
+
+    /*
+     * Gets the number of chunks in memory.
+     *
+     * @return              The loaded chunk count
+     */
+    public int getLoadedChunkCount() {
+        return chunks.size();
+    }
+
+    /*
+     * Gets the number of cells cleared since the board was created.
+     *
+     * @return              The cells cleared
+     */
+    public long getCellsCleared() {
+        return cellsCleared;
+    }
+
+    /*
+     * Checks if a bomb has been revealed.
+     *
+     * @return              Whether or not the game is lost
+     */
+    public boolean isLost() {
+        return lost;
+    }
+
+    public double getDensity() {
+        return density;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /*
+     * Packs chunk coordinates into a single key.
+     */
+    static long key(int chunkRow, int chunkCol) {
+        return ((long) chunkRow << 32) | (chunkCol & 0xFFFFFFFFL);
+    }
+
+    /*
+     * Clears a hidden cell and its empty area.
+     */
+    private int clearCell(int row, int col) {
+        Chunk chunk = chunkAt(row, col);
+        int index = localIndex(row, col);
+        int state = chunk.model.get(index);
+        if ((state & (BoardModel.CLEARED | BoardModel.FLAGGED)) != 0) {
+            return 0;
+        }
+        if ((state & BoardModel.BOMB) != 0) {
+            change(chunk, index, state | BoardModel.CLEARED);
+            lost = true;
+            return -1;
+        }
+        return fill(row, col);
+    }
+
+    /*
+     * Clears the empty area around a safe cell, following it into
+     * neighboring chunks.
+     */
+    private int fill(int row, int col) {
+        int cleared = 0;
+        stackRows.add(row);
+        stackCols.add(col);
+
+        while (stackRows.size() > 0) {
+            int r = stackRows.removeLast();
+            int c = stackCols.removeLast();
+            Chunk chunk = chunkAt(r, c);
+            int index = localIndex(r, c);
+            int state = chunk.model.get(index);
+            if ((state & (BoardModel.CLEARED | BoardModel.FLAGGED | BoardModel.BOMB)) != 0) {
+                continue;
+            }
+
+            change(chunk, index, state | BoardModel.CLEARED);
+            cleared++;
+
+            // The neighbors of an empty cell are never bombs
+            if ((state & BoardModel.COUNT_MASK) == 0) {
+                for (int i = 0; i < R_NEIGHBOR_COORDINATES.length; i++) {
+                    stackRows.add(r + R_NEIGHBOR_COORDINATES[i]);
+                    stackCols.add(c + C_NEIGHBOR_COORDINATES[i]);
+                }
+            }
+        }
+        cellsCleared += cleared;
+        return cleared;
+    }
+
+    private int getNeighboringFlagCount(int row, int col) {
+        int flags = 0;
+        for (int i = 0; i < R_NEIGHBOR_COORDINATES.length; i++) {
+            if ((get(row + R_NEIGHBOR_COORDINATES[i], col + C_NEIGHBOR_COORDINATES[i]) & BoardModel.FLAGGED) != 0) {
+                flags++;
+            }
+        }
+        return flags;
+    }
+
+    private void change(Chunk chunk, int index, int state) {
+        chunk.model.set(index, state);
+        chunk.modified = true;
+        chunk.dirty = true;
+    }
+
+    private static int localIndex(int row, int col) {
+        return ((row & CHUNK_MASK) << CHUNK_BITS) | (col & CHUNK_MASK);
+    }
+
+    /*
+     * Gets the chunk holding a cell, loading or generating it if needed.
+     * Loading a chunk may evict others, so a chunk is only used until the
+     * next call.
+     */
+    private Chunk chunkAt(int row, int col) {
+        int chunkRow = row >> CHUNK_BITS;
+        int chunkCol = col >> CHUNK_BITS;
+        if (last != null && last.chunkRow == chunkRow && last.chunkCol == chunkCol) {
+            return last;
+        }
+
+        long key = key(chunkRow, chunkCol);
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = new Chunk(chunkRow, chunkCol);
+            if (store != null && store.contains(chunkRow, chunkCol)) {
+                chunk.model.setStates(store.read(chunkRow, chunkCol));
+                chunk.modified = true;
+            }
+            else {
+                generate(chunk);
+            }
+            trim(maxChunks - 1);
+            chunks.put(key, chunk);
+        }
+        last = chunk;
+        return chunk;
+    }
+
+    /*
+     * Places the bombs and counts of a new chunk, looking one cell past its
+     * edges for the counts.
+     */
+    private void generate(Chunk chunk) {
+        int firstRow = chunk.chunkRow << CHUNK_BITS;
+        int firstCol = chunk.chunkCol << CHUNK_BITS;
+        int haloWidth = CHUNK_SIZE + 2;
+
+        for (int r = 0; r < haloWidth; r++) {
+            for (int c = 0; c < haloWidth; c++) {
+                halo[r * haloWidth + c] = isBombAt(firstRow + r - 1, firstCol + c - 1);
+            }
+        }
+
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            for (int c = 0; c < CHUNK_SIZE; c++) {
+                int center = (r + 1) * haloWidth + c + 1;
+                int index = (r << CHUNK_BITS) | c;
+                if (halo[center]) {
+                    chunk.model.set(index, BoardModel.BOMB);
+                    continue;
+                }
+                int count = 0;
+                for (int dr = -haloWidth; dr <= haloWidth; dr += haloWidth) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        if (halo[center + dr + dc]) {
+                            count++;
+                        }
+                    }
+                }
+                chunk.model.set(index, count);
+            }
+        }
+    }
+
+    /*
+     * Decides if a cell is a bomb from the seed and its coordinates alone.
+     */
+    private boolean isBombAt(int row, int col) {
+        if (Math.abs(row) <= safeRadius && Math.abs(col) <= safeRadius) {
+            return false;
+        }
+
+        // Mix the coordinates into the seed, as SplittableRandom mixes its state
+        long z = seed + row * 0x9E3779B97F4A7C15L + col * 0xC2B2AE3D27D4EB4FL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) < bombThreshold;
+    }
+
+    /*
+     * Evicts the least recently used chunks outside of the view until no
+     * more than a number are loaded, writing changed ones to the store.
+     */
+    private void trim(int keep) {
+        Iterator<Chunk> it = chunks.values().iterator();
+        while (chunks.size() > keep && it.hasNext()) {
+            Chunk chunk = it.next();
+            if (isInView(chunk) || (chunk.modified && store == null)) {
+                continue;
+            }
+            if (chunk.dirty) {
+                write(chunk);
+            }
+            it.remove();
+            if (chunk == last) {
+                last = null;
+            }
+        }
+    }
+
+    private boolean isInView(Chunk chunk) {
+        return chunk.chunkRow >= firstViewChunkRow && chunk.chunkRow <= lastViewChunkRow
+                && chunk.chunkCol >= firstViewChunkCol && chunk.chunkCol <= lastViewChunkCol;
+    }
+
+    private void write(Chunk chunk) {
+        byte states[] = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        chunk.model.getStates(states);
+        store.write(chunk.chunkRow, chunk.chunkCol, states);
+        chunk.dirty = false;
+    }
+}
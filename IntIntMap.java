@@ -0,0 +1,114 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+
+/*
+ * IntIntMap is an open addressing hash map from non-negative int keys to int
+ * values, without boxing.
+ */
+public class IntIntMap {
+
+    private final static int EMPTY = -1;
+
+    private int keys[];
+    private int values[];
+    private int size;
+
+    /*
+     * Constructor for IntIntMap
+     *
+     * @param   expectedSize    The number of entries the map should hold without growing
+     */
+    public IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /*
+     * Gets the value for a key.
+     *
+     * @param   key             The non-negative key to look up
+     * @param   defaultValue    The value to return if the key is missing
+     * @return                  The value for the key
+     */
+    public int get(int key, int defaultValue) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            if (keys[slot] == EMPTY) {
+                return defaultValue;
+            }
+        }
+    }
+
+    /*
+     * Sets the value for a key.
+     *
+     * @param   key         The non-negative key
+     * @param   value       The value to store
+     */
+    public void put(int key, int value) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        values[slot] = value;
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+    }
+
+    /*
+     * Gets the number of entries in the map.
+     *
+     * @return          The number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /*
+     * Removes every entry, keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /*
+     * Doubles the capacity of the map.
+     */
+    private void grow() {
+        int oldKeys[] = keys;
+        int oldValues[] = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /*
+     * Spreads the bits of a key so sequential keys do not cluster.
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+
+/*
+ * IntList is a growable list of ints, without boxing. It is also used as a
+ * stack through add and removeLast.
+ */
+public class IntList {
+
+    private int values[];
+    private int size;
+
+    /*
+     * Constructor for IntList
+     *
+     * @param   capacity    The number of values to hold before growing
+     */
+    public IntList(int capacity) {
+        values = new int[Math.max(capacity, 4)];
+    }
+
+    /*
+     * Adds a value to the end of the list.
+     *
+     * @param   value       The value to add
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[size++] = value;
+    }
+
+    /*
+     * Gets the value at a position.
+     *
+     * @param   i           The position in the list
+     * @return              The value
+     */
+    public int get(int i) {
+        return values[i];
+    }
+
+    /*
+     * Removes and returns the last value.
+     *
+     * @return              The last value
+     */
+    public int removeLast() {
+        return values[--size];
+    }
+
+    /*
+     * Gets the number of values in the list.
+     *
+     * @return              The size of the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /*
+     * Removes every value, keeping the allocated capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /*
+     * Copies the values into an array of exactly the list size.
+     *
+     * @return              The values
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
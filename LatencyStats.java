@@ -0,0 +1,95 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+
+/*
+ * LatencyStats records latencies in nanoseconds and reports their
+ * distribution. Samples are kept exactly, so percentiles are exact. It is
+ * not thread safe; give every thread its own and merge them at the end.
+ */
+public class LatencyStats {
+
+    private long samples[] = new long[1024];
+    private int size = 0;
+    private boolean sorted = true;
+
+    /*
+     * Records a latency.
+     *
+     * @param   nanos       The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+        sorted = false;
+    }
+
+    /*
+     * Adds every sample of another recorder to this one.
+     *
+     * @param   other       The recorder to merge in
+     */
+    public void merge(LatencyStats other) {
+        if (size + other.size > samples.length) {
+            samples = Arrays.copyOf(samples, Math.max(size + other.size, size * 2));
+        }
+        System.arraycopy(other.samples, 0, samples, size, other.size);
+        size += other.size;
+        sorted = false;
+    }
+
+    public int getCount() {
+        return size;
+    }
+
+    /*
+     * Gets a percentile of the recorded latencies.
+     *
+     * @param   percentile  The percentile, from 0 to 100
+     * @return              The latency in nanoseconds, or 0 without samples
+     */
+    public long getPercentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(samples, 0, size);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return samples[Math.max(0, Math.min(size - 1, rank))];
+    }
+
+    /*
+     * Gets the mean of the recorded latencies.
+     *
+     * @return              The mean in nanoseconds, or 0 without samples
+     */
+    public double getMean() {
+        if (size == 0) {
+            return 0;
+        }
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += samples[i];
+        }
+        return total / size;
+    }
+
+    /*
+     * Summarizes the distribution in microseconds.
+     *
+     * @return              The mean and the main percentiles
+     */
+    public String summary() {
+        return String.format("mean %.1f us, p50 %.1f us, p90 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us",
+                getMean() / 1e3, getPercentile(50) / 1e3, getPercentile(90) / 1e3,
+                getPercentile(99) / 1e3, getPercentile(99.9) / 1e3, getPercentile(100) / 1e3);
+    }
+}
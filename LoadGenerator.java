@@ -0,0 +1,401 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/*
+ * LoadGenerator plays many simulated players against a GameServer and
+ * reports the sustained request rate and the latency of every request.
+ *
+ * Each player holds one connection and one request in flight at a time:
+ * it starts a game, reveals random hidden cells of its copy of the board
+ * until the game is over, and starts again. Players are spread over a few
+ * event loops like the server's, so tens of thousands fit in one JVM. The
+ * latency of a request is from writing it to reading the whole reply, and
+ * only requests made after the warmup count.
+ *
+ * Usage: java LoadGenerator [players] [seconds] [threads] [length x width x bombs]
+ *
+ * Options:
+ *      -Dload.host=localhost -Dload.port=7717     Server to load, or an
+ *                                                 in-process server on any
+ *                                                 free port without load.port
+ *      -Dload.serverThreads=<cores>               Threads of the in-process server
+ *      -Dload.think=0                             Milliseconds between a reply
+ *                                                 and the next request
+ *      -Dload.warmup=3                            Seconds before measuring
+ *
+ * Every player needs a socket, and an in-process server one more, so large
+ * runs may need a separate server process to stay within the open file limit.
+ */
+public class LoadGenerator {
+
+    private final static String HOST = System.getProperty("load.host", "localhost");
+    private final static long THINK_NANOS = Long.getLong("load.think", 0) * 1000000;
+    private final static int WARMUP_SECONDS = Integer.getInteger("load.warmup", 3);
+
+    // Random picks tried before falling back to a scan for a hidden cell
+    private final static int PICK_ATTEMPTS = 32;
+
+    private final GameConfig config;
+    private final Loop loops[];
+    private volatile boolean running = true;
+    private volatile boolean measuring = false;
+
+    /*
+     * Constructor for LoadGenerator, which connects every player.
+     *
+     * @param   config      The level every player plays
+     * @param   players     The number of players
+     * @param   threads     The number of event loops
+     * @param   port        The port of the server
+     */
+    public LoadGenerator(GameConfig config, int players, int threads, int port) {
+        this.config = config;
+        loops = new Loop[threads];
+        try {
+            for (int i = 0; i < threads; i++) {
+                loops[i] = new Loop();
+            }
+            for (int i = 0; i < players; i++) {
+                loops[i % threads].connect(new InetSocketAddress(HOST, port), i);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not connect to " + HOST + ":" + port, e);
+        }
+    }
+
+    /*
+     * Runs the load for a warmup and a measured period.
+     *
+     * @param   seconds     The seconds to measure for
+     * @return              The latency of every measured request
+     */
+    public LatencyStats run(int seconds) throws InterruptedException {
+        Thread threads[] = new Thread[loops.length];
+        for (int i = 0; i < loops.length; i++) {
+            threads[i] = new Thread(loops[i], "load-" + i);
+            threads[i].start();
+        }
+
+        Thread.sleep(WARMUP_SECONDS * 1000L);
+        measuring = true;
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        measuring = false;
+        long elapsed = System.nanoTime() - start;
+        running = false;
+        for (int i = 0; i < loops.length; i++) {
+            loops[i].selector.wakeup();
+            threads[i].join();
+        }
+
+        LatencyStats latency = new LatencyStats();
+        long moves = 0;
+        long games = 0;
+        int connected = 0;
+        for (Loop loop : loops) {
+            latency.merge(loop.latency);
+            moves += loop.moves;
+            games += loop.games;
+            connected += loop.connected;
+        }
+        System.out.printf("%,d players connected, %s%n", connected, config);
+        System.out.printf("%,14.0f requests/s  %,14.0f moves/s  %,12.0f games/s%n",
+                latency.getCount() / (elapsed / 1e9), moves / (elapsed / 1e9), games / (elapsed / 1e9));
+        System.out.println("    request latency: " + latency.summary());
+        return latency;
+    }
+
+    // A thread driving its share of the players
+    private class Loop implements Runnable {
+
+        private final Selector selector;
+
+        // Players waiting out their think time, in the order they are due
+        private final ArrayDeque<Player> thinking = new ArrayDeque<Player>();
+
+        // Request body being built, shared by the players of the loop
+        private final ByteBuffer body = ByteBuffer.allocate(GameProtocol.MAX_REQUEST);
+
+        private final LatencyStats latency = new LatencyStats();
+        private long moves = 0;
+        private long games = 0;
+        private int connected = 0;
+
+        Loop() throws IOException {
+            selector = Selector.open();
+        }
+
+        void connect(InetSocketAddress address, int id) throws IOException {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key;
+            if (channel.connect(address)) {
+                key = channel.register(selector, SelectionKey.OP_READ);
+            }
+            else {
+                key = channel.register(selector, SelectionKey.OP_CONNECT);
+            }
+            key.attach(new Player(channel, key, id));
+        }
+
+        public void run() {
+            try {
+                // Players connected at once start right away
+                for (SelectionKey key : selector.keys()) {
+                    if ((key.interestOps() & SelectionKey.OP_READ) != 0) {
+                        started((Player) key.attachment());
+                    }
+                }
+
+                while (running) {
+                    long wait = sendDue();
+                    if (wait < 0) {
+                        selector.select();
+                    }
+                    else if (wait == 0) {
+                        selector.selectNow();
+                    }
+                    else {
+                        selector.select(Math.max(1, wait / 1000000));
+                    }
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Player player = (Player) key.attachment();
+                        if (key.isConnectable()) {
+                            player.channel.finishConnect();
+                            key.interestOps(SelectionKey.OP_READ);
+                            started(player);
+                        }
+                        else if (key.isReadable()) {
+                            player.read();
+                        }
+                        else if (key.isWritable()) {
+                            player.flush();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Load loop failed", e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    try {
+                        key.channel().close();
+                    } catch (IOException e) {
+                        // Closing anyway
+                    }
+                }
+            }
+        }
+
+        private void started(Player player) throws IOException {
+            connected++;
+            player.newGame();
+        }
+
+        /*
+         * Sends the next request of every player done thinking.
+         *
+         * @return              The nanoseconds until the next player is due, or -1 if none are waiting
+         */
+        private long sendDue() throws IOException {
+            long now = System.nanoTime();
+            Player player;
+            while ((player = thinking.peek()) != null) {
+                if (player.due > now) {
+                    return player.due - now;
+                }
+                thinking.poll();
+                player.next();
+            }
+            return -1;
+        }
+
+        // A simulated player and its connection
+        private class Player {
+
+            private final SocketChannel channel;
+            private final SelectionKey key;
+            private final SplittableRandom random;
+
+            // The game as replied by the server
+            private final BoardModel board;
+            private GameEngine.Status status = GameEngine.Status.READY;
+
+            // Whether or not the request in flight is a move, rather than a new game
+            private boolean moving;
+
+            private ByteBuffer in = ByteBuffer.allocate(1 << 10);
+            private ByteBuffer out = ByteBuffer.allocate(GameProtocol.MAX_REQUEST * 2);
+
+            // When the request in flight was written, and when the next is due
+            private long sent;
+            private long due;
+
+            Player(SocketChannel channel, SelectionKey key, int id) {
+                this.channel = channel;
+                this.key = key;
+                this.random = new SplittableRandom(id);
+                this.board = new BoardModel(config.getLength(), config.getWidth());
+            }
+
+            void newGame() throws IOException {
+                board.reset();
+                moving = false;
+                body.clear();
+                GameProtocol.putNewGame(body, config, false, 0);
+                send();
+            }
+
+            /*
+             * Makes the next request, a new game once the last is over.
+             */
+            void next() throws IOException {
+                if (status == GameEngine.Status.WON || status == GameEngine.Status.LOST) {
+                    newGame();
+                    return;
+                }
+                int index = pickHidden();
+                moving = true;
+                body.clear();
+                GameProtocol.putMove(body, GameProtocol.REVEAL, board.rowOf(index), board.colOf(index));
+                send();
+            }
+
+            void read() throws IOException {
+                if (channel.read(in) < 0) {
+                    throw new IOException("Server closed the connection");
+                }
+                in.flip();
+                int length = GameProtocol.startFrame(in);
+                if (length < 0) {
+                    in.compact();
+                    if (!in.hasRemaining()) {
+                        in.flip();
+                        in = ByteBuffer.allocate(in.capacity() * 2).put(in);
+                    }
+                    return;
+                }
+                long now = System.nanoTime();
+
+                int end = in.position() + length;
+                in.limit(end);
+                int state = in.get() & 0xFF;
+                if (state == GameProtocol.ERROR) {
+                    throw new IllegalStateException("Server error: " + GameProtocol.readError(in));
+                }
+                GameEngine.Status replied = GameEngine.Status.values()[state];
+                GameProtocol.readCells(in, board);
+                in.clear();
+
+                if (measuring) {
+                    latency.record(now - sent);
+                    if (moving) {
+                        moves++;
+                    }
+                    if (replied == GameEngine.Status.WON || replied == GameEngine.Status.LOST) {
+                        games++;
+                    }
+                }
+                status = replied;
+
+                if (THINK_NANOS == 0) {
+                    next();
+                }
+                else {
+                    due = now + THINK_NANOS;
+                    thinking.add(this);
+                }
+            }
+
+            void flush() throws IOException {
+                channel.write(out);
+                if (!out.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            }
+
+            /*
+             * Writes the request body as a frame.
+             */
+            private void send() throws IOException {
+                body.flip();
+                out.clear();
+                GameProtocol.putVarint(out, body.remaining());
+                out.put(body);
+                out.flip();
+                sent = System.nanoTime();
+                channel.write(out);
+                if (out.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                }
+            }
+
+            /*
+             * Picks a hidden cell without a flag.
+             */
+            private int pickHidden() {
+                for (int i = 0; i < PICK_ATTEMPTS; i++) {
+                    int index = random.nextInt(board.size());
+                    if (board.get(index) == 0) {
+                        return index;
+                    }
+                }
+                int start = random.nextInt(board.size());
+                for (int i = 0; i < board.size(); i++) {
+                    int index = (start + i) % board.size();
+                    if (board.get(index) == 0) {
+                        return index;
+                    }
+                }
+                throw new IllegalStateException("No hidden cell left in a game that is not over");
+            }
+        }
+    }
+
+    public static void main(String args[]) throws InterruptedException {
+        int players = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+        int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        GameConfig config = GameConfig.EXPERT;
+        if (args.length > 3) {
+            String size[] = args[3].split("x");
+            config = GameConfig.custom(Integer.parseInt(size[0]), Integer.parseInt(size[1]), Integer.parseInt(size[2]));
+        }
+
+        GameServer server = null;
+        int port;
+        if (System.getProperty("load.port") != null) {
+            port = Integer.getInteger("load.port");
+        }
+        else {
+            server = new GameServer(0, Integer.getInteger("load.serverThreads", Runtime.getRuntime().availableProcessors()));
+            server.start();
+            port = server.getPort();
+        }
+
+        System.out.println("Loading localhost:" + port + " with " + players + " players on " + threads + " threads");
+        new LoadGenerator(config, players, threads, port).run(seconds);
+        if (server != null) {
+            server.close();
+        }
+    }
+}
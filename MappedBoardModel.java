@@ -0,0 +1,164 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * MappedBoardModel keeps the packed cell states in a memory-mapped file
+ * instead of on the heap, for boards too big to fit there.
+ *
+ * The file is a small header followed by one byte per cell, in the same
+ * layout as BoardModel. A new file is sparse, so it reads as a board of
+ * empty hidden cells without being written. Pages are only read in when a
+ * cell on them is touched, and changed pages are written back by the
+ * operating system, so opening an existing board takes the same time at
+ * any size. Call force to be sure the file is up to date, for example
+ * before shutting down.
+ *
+ * The header has a few int fields for the game played on the board, so a
+ * game can be resumed from the file alone. A single mapping holds at most
+ * Integer.MAX_VALUE cells, which is also the limit of a BoardModel.
+ */
+public class MappedBoardModel extends BoardModel {
+
+    // Marks a board file, "BOMB"
+    private final static int MAGIC = 0x424F4D42;
+
+    // Bytes before the first cell
+    private final static int HEADER_SIZE = 64;
+
+    // Header fields, as byte offsets into the header
+    private final static int LENGTH = 4;
+    private final static int WIDTH = 8;
+    public final static int BOMB_COUNT = 12;
+    public final static int STATUS = 16;
+    public final static int CELLS_CLEARED = 20;
+    public final static int FLAG_COUNT = 24;
+
+    // Zeroes to reset the board with, a block at a time
+    private final static byte ZEROES[] = new byte[1 << 16];
+
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer cells;
+
+    private MappedBoardModel(int length, int width, MappedByteBuffer header, MappedByteBuffer cells) {
+        super(length, width, false);
+        this.header = header;
+        this.cells = cells;
+    }
+
+    /*
+     * Creates a board file of empty hidden cells, replacing any existing file.
+     *
+     * @param   file        The file to create
+     * @param   length      The number of rows on the board
+     * @param   width       The number of columns on the board
+     * @return              The board, mapped onto the file
+     */
+    public static MappedBoardModel create(Path file, int length, int width) {
+        if (length <= 0 || width <= 0 || (long) length * width > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid board size: " + length + " x " + width);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end grows the file, leaving it sparse
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            MappedByteBuffer cells = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE, (long) length * width);
+            header.putInt(0, MAGIC);
+            header.putInt(LENGTH, length);
+            header.putInt(WIDTH, width);
+            return new MappedBoardModel(length, width, header, cells);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create board file: " + file, e);
+        }
+    }
+
+    /*
+     * Opens an existing board file, without reading any cells.
+     *
+     * @param   file        The file to open
+     * @return              The board, mapped onto the file
+     */
+    public static MappedBoardModel open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IllegalArgumentException("Not a board file: " + file);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            int length = header.getInt(LENGTH);
+            int width = header.getInt(WIDTH);
+            if (header.getInt(0) != MAGIC || length <= 0 || width <= 0
+                    || (long) length * width > Integer.MAX_VALUE || channel.size() != HEADER_SIZE + (long) length * width) {
+                throw new IllegalArgumentException("Not a board file: " + file);
+            }
+            MappedByteBuffer cells = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE, (long) length * width);
+            return new MappedBoardModel(length, width, header, cells);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open board file: " + file, e);
+        }
+    }
+
+    public int get(int index) {
+        return cells.get(index) & 0xFF;
+    }
+
+    public void set(int index, int state) {
+        cells.put(index, (byte) state);
+        recordChange(index, state);
+    }
+
+    public void reset() {
+        int size = size();
+        for (int i = 0; i < size; i += ZEROES.length) {
+            cells.put(i, ZEROES, 0, Math.min(ZEROES.length, size - i));
+        }
+    }
+
+    public void getStates(byte states[]) {
+        cells.get(0, states, 0, size());
+    }
+
+    public void setStates(byte states[]) {
+        cells.put(0, states, 0, size());
+    }
+
+    public long getFootprint() {
+        return HEADER_SIZE + (long) size();
+    }
+
+    /*
+     * Gets a field of the game header.
+     *
+     * @param   field       The field, such as BOMB_COUNT
+     * @return              The value of the field
+     */
+    public int getHeader(int field) {
+        return header.getInt(field);
+    }
+
+    /*
+     * Sets a field of the game header.
+     *
+     * @param   field       The field, such as BOMB_COUNT
+     * @param   value       The value of the field
+     */
+    public void setHeader(int field, int value) {
+        header.putInt(field, value);
+    }
+
+    /*
+     * Writes every changed page back to the file now.
+     */
+    public void force() {
+        header.force();
+        cells.force();
+    }
+}
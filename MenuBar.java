@@ -5,6 +5,8 @@
  */
 
 import javax.swing.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 
 public class MenuBar extends JMenuBar {
 
@@ -12,6 +14,11 @@ public class MenuBar extends JMenuBar {
     private final static String EXIT = "Exit";
     private final static String HELP = "Help";
     private final static String NEW = "New";
+    private final static String NO_GUESS = "No Guessing";
+    private final static String PRACTICE = "Practice";
+    private final static String UNDO = "Undo";
+    private final static String REDO = "Redo";
+    private final static String JUMP = "Jump to Move...";
     private final static String BEGINNER = "Beginner";
     private final static String INTERMEDIATE = "Intermediate";
     private final static String EXPERT = "Expert";
@@ -19,6 +26,8 @@ public class MenuBar extends JMenuBar {
 
     private JMenu gameMenu, helpMenu, setupMenu;
     private JMenuItem helpMenuItem, exitMenuItem, newMenuItem;
+    private JCheckBoxMenuItem noGuessMenuItem, practiceMenuItem;
+    private JMenuItem undoMenuItem, redoMenuItem, jumpMenuItem;
     private JMenuItem beginnerRadioMenuItem, intermediateRadioMenuItem, expertRadioMenuItem, customRadioMenuItem;
 
     MenuBar(Bombs.MenuHandler MH, Bombs.SetupMenuHandler SMH) {
@@ -59,6 +68,32 @@ public class MenuBar extends JMenuBar {
         setupMenu.add(customRadioMenuItem);
         gameMenu.add(setupMenu);
 
+        // Add No Guessing Toggle
+        noGuessMenuItem = new JCheckBoxMenuItem(NO_GUESS);
+        noGuessMenuItem.addActionListener(MH);
+        gameMenu.add(noGuessMenuItem);
+
+        gameMenu.addSeparator();
+
+        // Add Practice Toggle, which keeps every move for undo and redo
+        practiceMenuItem = new JCheckBoxMenuItem(PRACTICE);
+        practiceMenuItem.addActionListener(MH);
+        gameMenu.add(practiceMenuItem);
+
+        undoMenuItem = new JMenuItem(UNDO);
+        undoMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK));
+        undoMenuItem.addActionListener(MH);
+        gameMenu.add(undoMenuItem);
+
+        redoMenuItem = new JMenuItem(REDO);
+        redoMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK));
+        redoMenuItem.addActionListener(MH);
+        gameMenu.add(redoMenuItem);
+
+        jumpMenuItem = new JMenuItem(JUMP);
+        jumpMenuItem.addActionListener(MH);
+        gameMenu.add(jumpMenuItem);
+
         gameMenu.addSeparator();
 
         // Add exit to submenu
@@ -14,6 +14,9 @@ public class MenuView extends JPanel {
     // Labels to display game info
     private JLabel bombLabel, timerLabel;
 
+    // Label shown when no guessing is on but the board may still need a guess
+    private JLabel guessLabel;
+
     // Record Keeping Counts
     private int gameTime = 0;
 
@@ -22,13 +25,10 @@ public class MenuView extends JPanel {
 
     private Bombs.SmileyHandler smileyHandler;
 
-    // Resource loader
-    private ClassLoader loader = getClass().getClassLoader();
-
     // Smiley Icons
-    private Icon smileIcon = new ImageIcon(loader.getResource("res/Smile.jpg"));
-    private Icon frownIcon = new ImageIcon(loader.getResource("res/Frown.jpg"));
-    private Icon coolIcon = new ImageIcon(loader.getResource("res/Cool.jpg"));
+    private Icon smileIcon = TileAtlas.getInstance().getIcon(TileAtlas.SMILE);
+    private Icon frownIcon = TileAtlas.getInstance().getIcon(TileAtlas.FROWN);
+    private Icon coolIcon = TileAtlas.getInstance().getIcon(TileAtlas.COOL);
 
     // Game Timer: Will be configured to trigger an event every second
     private Timer gameTimer;
@@ -69,6 +69,11 @@ public class MenuView extends JPanel {
         timerLabel = new JLabel("0");
         timerLabel.setHorizontalAlignment(SwingConstants.CENTER);
         timerLabel.setPreferredSize(new Dimension(30, 30));
+
+        guessLabel = new JLabel("Guessing");
+        guessLabel.setForeground(Color.RED);
+        guessLabel.setToolTipText("No guess free board was found, so this board may need guessing");
+        guessLabel.setVisible(false);
     }
 
     /*
@@ -82,6 +87,7 @@ public class MenuView extends JPanel {
         add(bombLabel);
         add(smileyButton);
         add(timerLabel);
+        add(guessLabel);
     }
 
     /*
@@ -97,6 +103,7 @@ public class MenuView extends JPanel {
         timerLabel.setText("0");
 
         bombLabel.setText(Integer.toString(bombsLeft));
+        guessLabel.setVisible(false);
 
         resetTimer();
     }
@@ -166,6 +173,17 @@ public class MenuView extends JPanel {
         smileyButton.setIcon(frownIcon);
     }
 
+    /*
+     * Updates the menu view for a game over that was taken back.
+     */
+    public void resumeGame() {
+        // Restart the Timer
+        startTimer();
+
+        // Make Smiley Button Smile Again
+        smileyButton.setIcon(smileIcon);
+    }
+
     /*
      * Retrieves the game time.
      *
@@ -183,4 +201,13 @@ public class MenuView extends JPanel {
     public void updateBombLabel(int bombsLeft) {
         bombLabel.setText(Integer.toString(bombsLeft));
     }
+
+    /*
+     * Shows or hides the note that the board may need guessing.
+     *
+     * @param   guessing        Whether or not a guess free board was asked for but not given
+     */
+    public void showGuessing(boolean guessing) {
+        guessLabel.setVisible(guessing);
+    }
 }
@@ -0,0 +1,172 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+
+/*
+ * MineGenerator chooses where the bombs go on a board.
+ *
+ * Every cell outside of a square safe zone around the first click is
+ * eligible. The eligible cells are numbered 0 .. m - 1 without ever being
+ * listed, and a partial Fisher-Yates shuffle over that numbering picks the
+ * bombs. Swapped entries live in a small hash map, so a board costs
+ * O(bombs) time and memory no matter how many cells it has. Every layout
+ * of the requested size is equally likely, and the same seed always gives
+ * the same layout.
+ *
+ * Above STREAMING_BOMBS bombs, such as on a huge mapped board, even
+ * O(bombs) memory is too much, so placeBombs switches to selection
+ * sampling instead: one pass over the cells, each picked with probability
+ * (bombs left / eligible cells left). That is also uniform and repeatable,
+ * but gives a different layout for a seed than the shuffle.
+ */
+public class MineGenerator {
+
+    // Safe zone of one cell around the click, the classic 3 x 3 opening
+    public final static int DEFAULT_SAFE_RADIUS = 1;
+
+    // Bomb counts above this are placed without listing the bombs
+    public final static int STREAMING_BOMBS = 1 << 22;
+
+    /*
+     * Chooses the bomb cells for a board.
+     *
+     * @param   length      The number of rows on the board
+     * @param   width       The number of columns on the board
+     * @param   bombCount   The number of bombs to place
+     * @param   safeRow     The row of the first click
+     * @param   safeCol     The column of the first click
+     * @param   safeRadius  How many cells around the first click stay free of bombs
+     * @param   seed        The seed for the layout
+     * @return              The row-major indices of the bomb cells
+     */
+    public static int[] generate(int length, int width, int bombCount,
+                                 int safeRow, int safeCol, int safeRadius, long seed) {
+
+        // Clip the safe zone to the board
+        int firstSafeRow = Math.max(0, safeRow - safeRadius);
+        int lastSafeRow = Math.min(length - 1, safeRow + safeRadius);
+        int firstSafeCol = Math.max(0, safeCol - safeRadius);
+        int lastSafeCol = Math.min(width - 1, safeCol + safeRadius);
+        int safeWidth = lastSafeCol - firstSafeCol + 1;
+        int safeLength = lastSafeRow - firstSafeRow + 1;
+
+        int eligible = length * width - safeWidth * safeLength;
+        if (bombCount < 0 || bombCount > eligible) {
+            throw new IllegalArgumentException("Cannot place " + bombCount + " bombs in "
+                    + eligible + " cells outside of the safe zone");
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        IntIntMap swapped = new IntIntMap(bombCount);
+        int bombs[] = new int[bombCount];
+
+        for (int i = 0; i < bombCount; i++) {
+            int j = i + random.nextInt(eligible - i);
+
+            // Swap positions i and j of the virtual array, where position k holds k until it is swapped
+            int chosen = swapped.get(j, j);
+            swapped.put(j, swapped.get(i, i));
+
+            bombs[i] = toIndex(chosen, width, firstSafeRow, lastSafeRow, firstSafeCol, safeWidth);
+        }
+
+        return bombs;
+    }
+
+    /*
+     * Places bombs on a board model, leaving its other state untouched.
+     *
+     * @param   model       The board to place bombs on
+     * @param   bombCount   The number of bombs to place
+     * @param   safeRow     The row of the first click
+     * @param   safeCol     The column of the first click
+     * @param   safeRadius  How many cells around the first click stay free of bombs
+     * @param   seed        The seed for the layout
+     */
+    public static void placeBombs(BoardModel model, int bombCount,
+                                  int safeRow, int safeCol, int safeRadius, long seed) {
+        if (bombCount > STREAMING_BOMBS) {
+            placeBombsStreaming(model, bombCount, safeRow, safeCol, safeRadius, seed);
+            return;
+        }
+        int bombs[] = generate(model.getLength(), model.getWidth(), bombCount, safeRow, safeCol, safeRadius, seed);
+        for (int i = 0; i < bombs.length; i++) {
+            model.setBomb(bombs[i], true);
+        }
+    }
+
+    /*
+     * Places bombs in one pass over the cells by selection sampling, using no
+     * memory per bomb.
+     */
+    private static void placeBombsStreaming(BoardModel model, int bombCount,
+                                            int safeRow, int safeCol, int safeRadius, long seed) {
+        int length = model.getLength();
+        int width = model.getWidth();
+        int safeCells = (Math.min(length - 1, safeRow + safeRadius) - Math.max(0, safeRow - safeRadius) + 1)
+                * (Math.min(width - 1, safeCol + safeRadius) - Math.max(0, safeCol - safeRadius) + 1);
+        long eligible = (long) length * width - safeCells;
+        if (bombCount < 0 || bombCount > eligible) {
+            throw new IllegalArgumentException("Cannot place " + bombCount + " bombs in "
+                    + eligible + " cells outside of the safe zone");
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        long left = bombCount;
+        for (int row = 0; row < length && left > 0; row++) {
+            boolean safeRows = Math.abs(row - safeRow) <= safeRadius;
+            for (int col = 0; col < width && left > 0; col++) {
+                if (safeRows && Math.abs(col - safeCol) <= safeRadius) {
+                    continue;
+                }
+                if (random.nextLong(eligible) < left) {
+                    model.setBomb(model.index(row, col), true);
+                    left--;
+                }
+                eligible--;
+            }
+        }
+    }
+
+    /*
+     * Converts the number of an eligible cell to its board index, skipping
+     * over the safe zone.
+     *
+     * @param   k               The number of the eligible cell
+     * @param   width           The number of columns on the board
+     * @param   firstSafeRow    The first row of the safe zone
+     * @param   lastSafeRow     The last row of the safe zone
+     * @param   firstSafeCol    The first column of the safe zone
+     * @param   safeWidth       The number of columns in the safe zone
+     * @return                  The row-major index of the cell
+     */
+    private static int toIndex(int k, int width, int firstSafeRow, int lastSafeRow, int firstSafeCol, int safeWidth) {
+
+        // Cells in the rows above the safe zone
+        int above = firstSafeRow * width;
+        if (k < above) {
+            return k;
+        }
+        k -= above;
+
+        // Cells beside the safe zone, in the rows it covers
+        int perRow = width - safeWidth;
+        int beside = (lastSafeRow - firstSafeRow + 1) * perRow;
+        if (k < beside) {
+            int row = firstSafeRow + k / perRow;
+            int col = k % perRow;
+            if (col >= firstSafeCol) {
+                col += safeWidth;
+            }
+            return row * width + col;
+        }
+        k -= beside;
+
+        // Cells in the rows below the safe zone
+        return (lastSafeRow + 1) * width + k;
+    }
+}
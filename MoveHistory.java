@@ -0,0 +1,137 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+
+/*
+ * MoveHistory keeps every point of a game, for undo, redo and jumping to
+ * any move.
+ *
+ * Point 0 is the start of the game and point n is the game after its n-th
+ * move. Each point is a snapshot of the PersistentBoardModel it is played
+ * on, which shares every cell it did not change with the points around it,
+ * and the counts of the game at that point. A move made after going back
+ * replaces the moves that came after, as in any editor.
+ */
+public class MoveHistory {
+
+    private PersistentBoardModel.Version versions[];
+    private byte statuses[];
+    private int cellsCleared[];
+    private int flagCounts[];
+    private int size = 0;
+
+    // The point the game is at
+    private int position = -1;
+
+    /*
+     * Constructor for MoveHistory
+     */
+    public MoveHistory() {
+        this(256);
+    }
+
+    /*
+     * Constructor for MoveHistory
+     *
+     * @param   capacity    The number of points to hold before growing
+     */
+    public MoveHistory(int capacity) {
+        versions = new PersistentBoardModel.Version[Math.max(capacity, 4)];
+        statuses = new byte[versions.length];
+        cellsCleared = new int[versions.length];
+        flagCounts = new int[versions.length];
+    }
+
+    /*
+     * Adds a point after the current one, replacing any points after it.
+     *
+     * @param   version         The board at this point
+     * @param   status          The status of the game
+     * @param   cleared         The number of cells cleared
+     * @param   flagCount       The number of flags placed
+     */
+    public void record(PersistentBoardModel.Version version, GameEngine.Status status, int cleared, int flagCount) {
+
+        // Let go of the points replaced, so the boards only they kept can be collected
+        Arrays.fill(versions, position + 1, size, null);
+        size = position + 1;
+        if (size == versions.length) {
+            versions = Arrays.copyOf(versions, size * 2);
+            statuses = Arrays.copyOf(statuses, size * 2);
+            cellsCleared = Arrays.copyOf(cellsCleared, size * 2);
+            flagCounts = Arrays.copyOf(flagCounts, size * 2);
+        }
+        versions[size] = version;
+        statuses[size] = (byte) status.ordinal();
+        cellsCleared[size] = cleared;
+        flagCounts[size] = flagCount;
+        position = size++;
+    }
+
+    /*
+     * Removes every point, for a new game.
+     */
+    public void clear() {
+        Arrays.fill(versions, null);
+        size = 0;
+        position = -1;
+    }
+
+    /*
+     * Moves to a point, keeping the points after it for redo.
+     *
+     * @param   point       The point to move to
+     */
+    public void moveTo(int point) {
+        if (point < 0 || point >= size) {
+            throw new IllegalArgumentException("No move " + point + " in a history of " + getMoveCount() + " moves");
+        }
+        position = point;
+    }
+
+    /*
+     * Gets the point the game is at, which is the number of moves made to get there.
+     *
+     * @return              The current point
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /*
+     * Gets the number of moves kept, including those undone.
+     *
+     * @return              The last point
+     */
+    public int getMoveCount() {
+        return size - 1;
+    }
+
+    public boolean canUndo() {
+        return position > 0;
+    }
+
+    public boolean canRedo() {
+        return position < size - 1;
+    }
+
+    public PersistentBoardModel.Version getVersion(int point) {
+        return versions[point];
+    }
+
+    public GameEngine.Status getStatus(int point) {
+        return GameEngine.Status.values()[statuses[point]];
+    }
+
+    public int getCellsCleared(int point) {
+        return cellsCleared[point];
+    }
+
+    public int getFlagCount(int point) {
+        return flagCounts[point];
+    }
+}
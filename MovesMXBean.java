@@ -0,0 +1,29 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+/*
+ * The moves made by the engines sharing a GameMetrics, as seen over JMX.
+ */
+public interface MovesMXBean {
+
+    // Moves that changed the board, in total and by kind
+    long getClicks();
+    long getReveals();
+    long getFlags();
+    long getChords();
+
+    long getCellsCleared();
+    double getCellsClearedPerSecond();
+
+    // Reveals of empty cells, which clear the area around them
+    long getFloodFills();
+    long getFloodFillCells();
+    long getLargestFloodFill();
+    double getAverageFloodFillSize();
+
+    // Count i is the flood fills of 2^i to 2^(i + 1) - 1 cells
+    long[] getFloodFillSizeHistogram();
+}
@@ -0,0 +1,137 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * NeighborCounter fills in the neighboring bomb count of every cell.
+ *
+ * The count is a 3 x 3 box sum over the bomb bits of the board. Each row
+ * is done in two passes over plain int arrays: a vertical sum of the bomb
+ * bits of the row and its two neighbors, then a horizontal sum of three
+ * columns of that. The bomb bits of each row are read once and rolled
+ * through three row buffers. Every row only writes its own cells, so bands
+ * of rows are counted in parallel on the fork/join pool without any
+ * locking, and the result is the same as counting serially.
+ */
+public class NeighborCounter {
+
+    // Boards smaller than this are counted on the calling thread
+    private final static int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Cells in a band of rows before it is no longer split
+    private final static int CELLS_PER_TASK = 1 << 15;
+
+    /*
+     * Fills in the neighbor count of every non-bomb cell. Bombs get a count of 0.
+     * A board that cannot be set from several threads at once, such as one
+     * tracking changes, is counted on the calling thread.
+     *
+     * @param   model       The board to count, with its bombs placed
+     */
+    public static void fill(BoardModel model) {
+        if (model.size() < PARALLEL_THRESHOLD || !model.canSetInParallel()) {
+            countRows(model, 0, model.getLength());
+        }
+        else {
+            ForkJoinPool.commonPool().invoke(new CountTask(model, 0, model.getLength()));
+        }
+    }
+
+    /*
+     * Counts a band of rows.
+     *
+     * @param   model       The board to count
+     * @param   firstRow    The first row of the band
+     * @param   endRow      The row after the last row of the band
+     */
+    static void countRows(BoardModel model, int firstRow, int endRow) {
+        int length = model.getLength();
+        int width = model.getWidth();
+
+        // Bomb bits of the rows above, at and below the current row, padded by a column each side
+        int above[] = new int[width + 2];
+        int current[] = new int[width + 2];
+        int below[] = new int[width + 2];
+        int columnSums[] = new int[width + 2];
+
+        if (firstRow > 0) {
+            readBombs(model, firstRow - 1, above);
+        }
+        readBombs(model, firstRow, current);
+
+        for (int r = firstRow; r < endRow; r++) {
+            if (r + 1 < length) {
+                readBombs(model, r + 1, below);
+            }
+            else {
+                Arrays.fill(below, 0);
+            }
+
+            // Vertical pass
+            for (int c = 0; c < width + 2; c++) {
+                columnSums[c] = above[c] + current[c] + below[c];
+            }
+
+            // Horizontal pass, writing counts of non-bomb cells
+            int index = model.index(r, 0);
+            for (int c = 1; c <= width; c++, index++) {
+                int state = model.get(index);
+                int count = (current[c] == 0) ? columnSums[c - 1] + columnSums[c] + columnSums[c + 1] : 0;
+                model.set(index, (state & ~BoardModel.COUNT_MASK) | count);
+            }
+
+            // Roll the row buffers down
+            int recycled[] = above;
+            above = current;
+            current = below;
+            below = recycled;
+        }
+    }
+
+    /*
+     * Reads the bomb bits of a row into a padded buffer.
+     *
+     * @param   model       The board to read
+     * @param   row         The row to read
+     * @param   bombs       The buffer, with one column of padding on each side
+     */
+    private static void readBombs(BoardModel model, int row, int bombs[]) {
+        int index = model.index(row, 0);
+        for (int c = 1; c <= model.getWidth(); c++, index++) {
+            bombs[c] = (model.get(index) & BoardModel.BOMB) >>> 4;
+        }
+    }
+
+    // Inner Class for counting a band of rows, split in half until small enough
+    private static class CountTask extends RecursiveAction {
+
+        private final static long serialVersionUID = 1L;
+
+        private final BoardModel model;
+        private final int firstRow;
+        private final int endRow;
+
+        CountTask(BoardModel model, int firstRow, int endRow) {
+            this.model = model;
+            this.firstRow = firstRow;
+            this.endRow = endRow;
+        }
+
+        protected void compute() {
+            int rows = endRow - firstRow;
+            if (rows <= 1 || (long) rows * model.getWidth() <= CELLS_PER_TASK) {
+                countRows(model, firstRow, endRow);
+            }
+            else {
+                int middle = firstRow + rows / 2;
+                invokeAll(new CountTask(model, firstRow, middle), new CountTask(model, middle, endRow));
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * NoGuessGenerator places bombs so the whole board can be cleared from the
+ * first click by logic alone, without ever guessing.
+ *
+ * Candidate layouts come from the MineGenerator, candidate n using the seed
+ * (seed + n). Each candidate is played out on a private board: the first
+ * click is cleared, then every cell the Solver proves is flagged or cleared
+ * until nothing more can be proven. A candidate passes if every safe cell
+ * ends up cleared. The Solver does not count the bombs left, so a board that
+ * needs that count at the end is rejected too.
+ *
+ * Candidates are tried speculatively by a worker on every core of the
+ * fork/join pool. Workers take attempt numbers in order and stop once a
+ * lower attempt has passed, so the lowest passing attempt always wins and
+ * the layout for a seed is the same on any number of cores.
+ *
+ * Every worker plays on a board of its own, and playing a candidate out
+ * takes time in proportion to its cells, so both grow with the board. The
+ * attempts are limited to MAX_WORK cells played out per layout, between
+ * MIN_ATTEMPTS and MAX_ATTEMPTS, and boards over MAX_CELLS are refused. If
+ * no candidate passes within the attempts, the plain layout of the seed is
+ * used, so setup always finishes, and isLastSolvable tells the caller.
+ */
+public class NoGuessGenerator {
+
+    // Most and fewest candidates tried before falling back to a plain layout
+    public final static int MAX_ATTEMPTS = 1 << 12;
+    public final static int MIN_ATTEMPTS = 1 << 4;
+
+    // Most cells played out over all the candidates of a layout
+    private final static long MAX_WORK = 1 << 24;
+
+    // Largest board layouts are generated for, 1024 x 1024
+    public final static int MAX_CELLS = 1 << 20;
+
+    // Marks that no attempt has passed yet
+    private final static int NONE = Integer.MAX_VALUE;
+
+    // Generation time of every layout, and the outcome of the last one
+    private final LatencyStats latency = new LatencyStats();
+    private int lastAttempts;
+    private boolean lastSolvable;
+
+    /*
+     * Places bombs on a board model so it can be solved without guessing.
+     *
+     * @param   model       The board to place bombs on
+     * @param   bombCount   The number of bombs to place
+     * @param   safeRow     The row of the first click
+     * @param   safeCol     The column of the first click
+     * @param   safeRadius  How many cells around the first click stay free of bombs
+     * @param   seed        The seed for the layout
+     * @throws  IllegalArgumentException if the board has more than MAX_CELLS cells
+     */
+    public synchronized void placeBombs(BoardModel model, int bombCount,
+                                        int safeRow, int safeCol, int safeRadius, long seed) {
+        if (!supports(model.getLength(), model.getWidth())) {
+            throw new IllegalArgumentException("Guess free boards have at most " + MAX_CELLS + " cells, not "
+                    + model.getLength() + " x " + model.getWidth());
+        }
+        long start = System.nanoTime();
+
+        int attempts = maxAttempts(model.size());
+        AtomicInteger nextAttempt = new AtomicInteger();
+        AtomicInteger passed = new AtomicInteger(NONE);
+        Runnable worker = () -> search(model.getLength(), model.getWidth(), bombCount,
+                safeRow, safeCol, safeRadius, seed, attempts, nextAttempt, passed);
+
+        // One worker on the calling thread, the rest on the pool
+        int helpers = ForkJoinPool.getCommonPoolParallelism() - 1;
+        ForkJoinTask<?> tasks[] = new ForkJoinTask<?>[Math.max(helpers, 0)];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = ForkJoinPool.commonPool().submit(worker);
+        }
+        worker.run();
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+
+        int attempt = passed.get();
+        lastSolvable = (attempt != NONE);
+        lastAttempts = lastSolvable ? attempt + 1 : attempts;
+        MineGenerator.placeBombs(model, bombCount, safeRow, safeCol, safeRadius, seed + (lastSolvable ? attempt : 0));
+        latency.record(System.nanoTime() - start);
+    }
+
+    /*
+     * Checks if guess free layouts are generated for a board size.
+     *
+     * @param   length      The number of rows
+     * @param   width       The number of columns
+     * @return              Whether or not the board has at most MAX_CELLS cells
+     */
+    public static boolean supports(int length, int width) {
+        return (long) length * width <= MAX_CELLS;
+    }
+
+    /*
+     * Gets the most candidates tried for a board, fewer the larger it is.
+     *
+     * @param   cells       The number of cells on the board
+     * @return              The attempts before falling back to a plain layout
+     */
+    public static int maxAttempts(int cells) {
+        return (int) Math.max(MIN_ATTEMPTS, Math.min(MAX_ATTEMPTS, MAX_WORK / cells));
+    }
+
+    /*
+     * Checks if a board with its bombs and counts in place can be cleared
+     * from a cell by logic alone. The board is played on, so pass a copy.
+     *
+     * @param   model       The board to play out
+     * @param   bombCount   The number of bombs on the board
+     * @param   index       The index of the first click
+     * @param   solver      The solver to use
+     * @param   floodFill   The flood fill to use
+     * @return              Whether or not every safe cell gets cleared
+     */
+    public static boolean isSolvable(BoardModel model, int bombCount, int index, Solver solver, FloodFill floodFill) {
+        if (model.isBomb(index)) {
+            return false;
+        }
+        int safeCells = model.size() - bombCount;
+        int cleared = floodFill.fill(model, index);
+
+        while (cleared < safeCells && solver.solve(model) > 0) {
+            IntList bombs = solver.getBombs();
+            for (int i = 0; i < bombs.size(); i++) {
+                model.setFlag(bombs.get(i), true);
+            }
+            IntList safe = solver.getSafeCells();
+            for (int i = 0; i < safe.size(); i++) {
+                cleared += floodFill.clear(model, safe.get(i));
+            }
+            cleared += floodFill.drain(model);
+        }
+        return cleared == safeCells;
+    }
+
+    /*
+     * Gets the time taken to generate each layout so far.
+     *
+     * @return              The generation latencies
+     */
+    public synchronized LatencyStats getLatency() {
+        return latency;
+    }
+
+    /*
+     * Gets the number of candidates tried for the last layout.
+     *
+     * @return              The attempts
+     */
+    public synchronized int getLastAttempts() {
+        return lastAttempts;
+    }
+
+    /*
+     * Checks if the last layout can be solved without guessing, or fell back
+     * to a plain layout.
+     *
+     * @return              Whether or not the last layout is guess free
+     */
+    public synchronized boolean isLastSolvable() {
+        return lastSolvable;
+    }
+
+    /*
+     * Tries candidates until one at or below the next attempt has passed.
+     */
+    private static void search(int length, int width, int bombCount, int safeRow, int safeCol, int safeRadius,
+                               long seed, int attempts, AtomicInteger nextAttempt, AtomicInteger passed) {
+        BoardModel candidate = new BoardModel(length, width);
+        Solver solver = new Solver();
+        FloodFill floodFill = new FloodFill();
+        int index = candidate.index(safeRow, safeCol);
+
+        int attempt;
+        while ((attempt = nextAttempt.getAndIncrement()) < attempts && attempt < passed.get()) {
+            candidate.reset();
+            MineGenerator.placeBombs(candidate, bombCount, safeRow, safeCol, safeRadius, seed + attempt);
+            NeighborCounter.fill(candidate);
+
+            if (isSolvable(candidate, bombCount, index, solver, floodFill)) {
+                passed.accumulateAndGet(attempt, Math::min);
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+/*
+ * Openings labels every opening of a board once, when the board is set up.
+ *
+ * An opening is a connected area of empty cells together with the numbered
+ * cells bordering it, which is exactly what a click on any of its empty
+ * cells reveals. The cells of all openings are stored back to back in one
+ * int array, with the range of each opening in a second array, so clicking
+ * an empty cell clears a precomputed range without any search.
+ *
+ * The labels also give the board statistics for free: the number and size
+ * of the openings, and the 3BV, the fewest clicks that clear the board.
+ */
+public class Openings {
+
+    // Opening of each cell: its id for empty cells, minus the id of the
+    // last opening it bordered for numbered cells, and 0 otherwise
+    private final int labels[];
+
+    // Cells of opening id live in cells[starts[id - 1] .. starts[id])
+    private final int starts[];
+    private final int cells[];
+
+    // Statistics
+    private final int openingCount;
+    private final int largestOpening;
+    private final int threeBV;
+
+    /*
+     * Constructor for Openings
+     */
+    private Openings(int labels[], int starts[], int cells[], int openingCount, int largestOpening, int threeBV) {
+        this.labels = labels;
+        this.starts = starts;
+        this.cells = cells;
+        this.openingCount = openingCount;
+        this.largestOpening = largestOpening;
+        this.threeBV = threeBV;
+    }
+
+    /*
+     * Labels the openings of a board with its bombs and counts filled in.
+     *
+     * Each opening is found with a scanline pass: a run of empty cells is
+     * labeled at once, and the rows above and below it are swept for
+     * bordering numbers and further runs.
+     *
+     * @param   model       The board to label
+     * @return              The openings of the board
+     */
+    public static Openings label(BoardModel model) {
+        int length = model.getLength();
+        int width = model.getWidth();
+        int labels[] = new int[model.size()];
+
+        IntList starts = new IntList(64);
+        IntList cells = new IntList(64);
+        IntList stack = new IntList(64);
+
+        int openingCount = 0;
+        int largestOpening = 0;
+        int numberCells = 0;
+        int borderCells = 0;
+
+        starts.add(0);
+        for (int i = 0; i < labels.length; i++) {
+            int state = model.get(i);
+            if ((state & BoardModel.BOMB) != 0) {
+                continue;
+            }
+            if ((state & BoardModel.COUNT_MASK) != 0) {
+                numberCells++;
+                continue;
+            }
+            if (labels[i] > 0) {
+                continue;
+            }
+
+            int id = ++openingCount;
+            stack.add(i);
+
+            while (stack.size() > 0) {
+                int index = stack.removeLast();
+                if (labels[index] > 0) {
+                    continue;
+                }
+
+                int row = index / width;
+                int rowStart = row * width;
+                int col = index - rowStart;
+
+                // Grow the run of unlabeled empty cells on both sides
+                int firstCol = col;
+                while (firstCol > 0 && isUnlabeledEmpty(model, labels, rowStart + firstCol - 1)) {
+                    firstCol--;
+                }
+                int lastCol = col;
+                while (lastCol < width - 1 && isUnlabeledEmpty(model, labels, rowStart + lastCol + 1)) {
+                    lastCol++;
+                }
+                for (int c = firstCol; c <= lastCol; c++) {
+                    labels[rowStart + c] = id;
+                    cells.add(rowStart + c);
+                }
+
+                // Sweep the row of the run and the rows above and below it
+                int sweepFirst = Math.max(firstCol - 1, 0);
+                int sweepLast = Math.min(lastCol + 1, width - 1);
+                for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, length - 1); r++) {
+                    boolean inRun = false;
+                    for (int c = sweepFirst; c <= sweepLast; c++) {
+                        int neighbor = r * width + c;
+                        int neighborState = model.get(neighbor);
+                        if ((neighborState & BoardModel.BOMB) != 0) {
+                            inRun = false;
+                        }
+                        else if ((neighborState & BoardModel.COUNT_MASK) == 0) {
+                            if (labels[neighbor] == 0 && !inRun) {
+                                stack.add(neighbor);
+                            }
+                            inRun = labels[neighbor] == 0;
+                        }
+                        else {
+                            inRun = false;
+                            if (labels[neighbor] != -id) {
+                                if (labels[neighbor] == 0) {
+                                    borderCells++;
+                                }
+                                labels[neighbor] = -id;
+                                cells.add(neighbor);
+                            }
+                        }
+                    }
+                }
+            }
+
+            starts.add(cells.size());
+            largestOpening = Math.max(largestOpening, starts.get(id) - starts.get(id - 1));
+        }
+
+        // Every opening is one click, and so is every number that no opening reveals
+        int threeBV = openingCount + numberCells - borderCells;
+
+        return new Openings(labels, starts.toArray(), cells.toArray(), openingCount, largestOpening, threeBV);
+    }
+
+    /*
+     * Checks if a cell is an empty cell that has not been labeled yet.
+     */
+    private static boolean isUnlabeledEmpty(BoardModel model, int labels[], int index) {
+        return labels[index] == 0 && (model.get(index) & (BoardModel.BOMB | BoardModel.COUNT_MASK)) == 0;
+    }
+
+    /*
+     * Gets the opening an empty cell belongs to.
+     *
+     * @param   index       The index of the cell
+     * @return              The id of the opening, or 0 if the cell is not empty
+     */
+    public int getOpening(int index) {
+        return Math.max(labels[index], 0);
+    }
+
+    /*
+     * Clears every cell of the opening containing the given empty cell.
+     *
+     * @param   model       The board to clear cells on
+     * @param   index       The index of an empty cell
+     * @return              The number of cells cleared
+     */
+    public int reveal(BoardModel model, int index) {
+        int id = labels[index];
+        if (id <= 0) {
+            throw new IllegalArgumentException("Cell " + index + " is not part of an opening");
+        }
+
+        int cellsCleared = 0;
+        for (int k = starts[id - 1]; k < starts[id]; k++) {
+            int cell = cells[k];
+            int state = model.get(cell);
+            if ((state & BoardModel.CLEARED) == 0) {
+                model.set(cell, state | BoardModel.CLEARED);
+                cellsCleared++;
+            }
+        }
+        return cellsCleared;
+    }
+
+    /*
+     * Gets the number of cells an opening reveals.
+     *
+     * @param   id          The id of the opening
+     * @return              The number of empty and bordering cells in the opening
+     */
+    public int getOpeningSize(int id) {
+        return starts[id] - starts[id - 1];
+    }
+
+    /*
+     * Gets the number of openings on the board.
+     *
+     * @return              The opening count
+     */
+    public int getOpeningCount() {
+        return openingCount;
+    }
+
+    /*
+     * Gets the number of cells revealed by the largest opening.
+     *
+     * @return              The size of the largest opening
+     */
+    public int getLargestOpening() {
+        return largestOpening;
+    }
+
+    /*
+     * Gets the 3BV of the board, the fewest left clicks that clear it.
+     *
+     * @return              The 3BV
+     */
+    public int get3BV() {
+        return threeBV;
+    }
+}
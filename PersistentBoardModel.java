@@ -0,0 +1,267 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+
+/*
+ * PersistentBoardModel keeps every past state of a board, sharing the cells
+ * that did not change between them.
+ *
+ * The cells live in pages of 64, under a tree of nodes with 32 children
+ * each, in index order. A missing page or node holds empty hidden cells, so
+ * a new board is a single null root. Taking a snapshot just keeps the root:
+ * from then on, the first change to a page copies it and the nodes above
+ * it, and the snapshot keeps the old ones. A move costs a copy of the pages
+ * it changed and their path to the root, not of the board, and going back
+ * to a snapshot only puts its root back.
+ *
+ * Reading a cell goes down the tree, a few levels even on the largest
+ * boards. Bulk operations such as reset and setStates are not tracked.
+ */
+public class PersistentBoardModel extends BoardModel {
+
+    // Cells per page and children per node, as powers of two
+    private final static int PAGE_BITS = 6;
+    private final static int NODE_BITS = 5;
+    private final static int PAGE_SIZE = 1 << PAGE_BITS;
+    private final static int NODE_SIZE = 1 << NODE_BITS;
+
+    // A node of children, or a page of cells, made by one edit of the board
+    private static class Node {
+        final long edit;
+        final Node children[];
+        final byte cells[];
+
+        Node(long edit, Node children[], byte cells[]) {
+            this.edit = edit;
+            this.children = children;
+            this.cells = cells;
+        }
+    }
+
+    // The board at one point in time, which never changes
+    public static class Version {
+        private final PersistentBoardModel model;
+        private final Node root;
+
+        private Version(PersistentBoardModel model, Node root) {
+            this.model = model;
+            this.root = root;
+        }
+    }
+
+    // Shift of the child index in the root, PAGE_BITS - NODE_BITS when the root is a page
+    private final int rootShift;
+
+    // Root of the current board, or null when every cell is empty
+    private Node root;
+
+    // Nodes made by this edit are not in any snapshot, and are changed in place
+    private long edit = 1;
+
+    /*
+     * Constructor for PersistentBoardModel
+     *
+     * @param   length      The number of rows on the board
+     * @param   width       The number of columns on the board
+     */
+    public PersistentBoardModel(int length, int width) {
+        super(length, width, false);
+        int pages = (int) (((long) length * width + PAGE_SIZE - 1) >>> PAGE_BITS);
+        int shift = PAGE_BITS - NODE_BITS;
+        for (long reach = 1; reach < pages; reach <<= NODE_BITS) {
+            shift += NODE_BITS;
+        }
+        rootShift = shift;
+    }
+
+    public int get(int index) {
+        Node node = root;
+        for (int shift = rootShift; shift >= PAGE_BITS && node != null; shift -= NODE_BITS) {
+            node = node.children[(index >>> shift) & (NODE_SIZE - 1)];
+        }
+        return (node == null) ? 0 : node.cells[index & (PAGE_SIZE - 1)] & 0xFF;
+    }
+
+    public void set(int index, int state) {
+        editablePage(index).cells[index & (PAGE_SIZE - 1)] = (byte) state;
+        recordChange(index, state);
+    }
+
+    /*
+     * Cells share the pages and nodes a set may copy, so two threads
+     * setting cells at once could each copy the same path and lose a write.
+     *
+     * @return              Never
+     */
+    public boolean canSetInParallel() {
+        return false;
+    }
+
+    /*
+     * Keeps the board as it is now. Changes made afterwards copy what they
+     * change, so the snapshot stays as it was.
+     *
+     * @return              The board as it is now
+     */
+    public Version snapshot() {
+        edit++;
+        return new Version(this, root);
+    }
+
+    /*
+     * Puts the board back as it was in a snapshot. If changes are tracked,
+     * every cell that differs is added to the delta, found by comparing
+     * only the pages the two boards do not share.
+     *
+     * @param   version     A snapshot of this board
+     */
+    public void restore(Version version) {
+        if (version.model != this) {
+            throw new IllegalArgumentException("Cannot restore a snapshot of another board");
+        }
+        if (isTracked()) {
+            addDifferences(root, version.root, rootShift, 0);
+        }
+        root = version.root;
+        edit++;
+    }
+
+    /*
+     * Gets the bytes taken by the pages and nodes of the board as it is now,
+     * not counting snapshots or object headers.
+     *
+     * @return          The footprint of the current board
+     */
+    public long getFootprint() {
+        return footprint(root, rootShift);
+    }
+
+    public void reset() {
+        root = null;
+        edit++;
+    }
+
+    public void getStates(byte states[]) {
+        int size = size();
+        for (int index = 0; index < size; index += PAGE_SIZE) {
+            Node page = page(index);
+            int count = Math.min(PAGE_SIZE, size - index);
+            if (page == null) {
+                Arrays.fill(states, index, index + count, (byte) 0);
+            }
+            else {
+                System.arraycopy(page.cells, 0, states, index, count);
+            }
+        }
+    }
+
+    public void setStates(byte states[]) {
+        root = null;
+        edit++;
+        int size = size();
+        for (int index = 0; index < size; index += PAGE_SIZE) {
+            int count = Math.min(PAGE_SIZE, size - index);
+            for (int i = index; i < index + count; i++) {
+                if (states[i] != 0) {
+                    System.arraycopy(states, index, editablePage(index).cells, 0, count);
+                    break;
+                }
+            }
+        }
+    }
+
+    /*
+     * Gets the page holding a cell.
+     *
+     * @param   index       The cell index
+     * @return              The page, or null if its cells are all empty
+     */
+    private Node page(int index) {
+        Node node = root;
+        for (int shift = rootShift; shift >= PAGE_BITS && node != null; shift -= NODE_BITS) {
+            node = node.children[(index >>> shift) & (NODE_SIZE - 1)];
+        }
+        return node;
+    }
+
+    /*
+     * Gets the page holding a cell, ready to change. Pages and nodes on the
+     * way that a snapshot may share are copied first.
+     *
+     * @param   index       The cell index
+     * @return              A page of this edit
+     */
+    private Node editablePage(int index) {
+        root = editable(root, rootShift >= PAGE_BITS);
+        Node node = root;
+        for (int shift = rootShift; shift >= PAGE_BITS; shift -= NODE_BITS) {
+            int slot = (index >>> shift) & (NODE_SIZE - 1);
+            Node child = editable(node.children[slot], shift > PAGE_BITS);
+            node.children[slot] = child;
+            node = child;
+        }
+        return node;
+    }
+
+    /*
+     * Gets a node this edit may change: the node itself if this edit made
+     * it, or else a copy of it.
+     */
+    private Node editable(Node node, boolean inner) {
+        if (node != null && node.edit == edit) {
+            return node;
+        }
+        if (inner) {
+            return new Node(edit, (node == null) ? new Node[NODE_SIZE] : node.children.clone(), null);
+        }
+        return new Node(edit, null, (node == null) ? new byte[PAGE_SIZE] : node.cells.clone());
+    }
+
+    private static long footprint(Node node, int shift) {
+        if (node == null) {
+            return 0;
+        }
+        if (shift < PAGE_BITS) {
+            return PAGE_SIZE;
+        }
+        long bytes = NODE_SIZE * 4;
+        for (Node child : node.children) {
+            bytes += footprint(child, shift - NODE_BITS);
+        }
+        return bytes;
+    }
+
+    /*
+     * Adds every cell that differs between two trees to the delta, skipping
+     * the subtrees they share.
+     *
+     * @param   from        The node the board has now
+     * @param   to          The node it is restored to
+     * @param   shift       The shift of the child index in the nodes
+     * @param   first       The index of the first cell under the nodes
+     */
+    private void addDifferences(Node from, Node to, int shift, int first) {
+        if (from == to) {
+            return;
+        }
+        if (shift < PAGE_BITS) {
+            int count = Math.min(PAGE_SIZE, size() - first);
+            for (int i = 0; i < count; i++) {
+                int before = (from == null) ? 0 : from.cells[i] & 0xFF;
+                int after = (to == null) ? 0 : to.cells[i] & 0xFF;
+                if (before != after) {
+                    recordChange(first + i, after);
+                }
+            }
+            return;
+        }
+        for (int slot = 0; slot < NODE_SIZE; slot++) {
+            addDifferences((from == null) ? null : from.children[slot], (to == null) ? null : to.children[slot],
+                    shift - NODE_BITS, first + (slot << shift));
+        }
+    }
+}
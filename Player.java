@@ -0,0 +1,22 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+
+/*
+ * A Player is a strategy for playing a headless game.
+ */
+public interface Player {
+
+    /*
+     * Makes the next move of a game that is not over. Every call has to
+     * reveal, flag or chord at least one cell, so the game moves forward.
+     *
+     * @param   engine      The game to play
+     * @param   random      The random source for any choice the player makes
+     */
+    void move(GameEngine engine, SplittableRandom random);
+}
@@ -0,0 +1,688 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * ProbabilityCalculator finds the exact chance that each hidden cell is a
+ * bomb, given what a player can see and the number of bombs on the board.
+ * Every layout that fits the visible numbers is taken to be equally likely.
+ *
+ * The Solver first takes out the cells it can prove. The constraints of the
+ * numbers on the remaining frontier cells fall apart into independent
+ * components, which are enumerated on their own: for every number of bombs
+ * k, the count of fitting layouts of the component and, for each of its
+ * cells, the count of those with a bomb on the cell. A component is
+ * enumerated by backtracking, cutting off a branch as soon as a number can
+ * no longer be met.
+ *
+ * Components are then combined without ever forming their product. With U
+ * hidden cells off the frontier and R bombs left, a layout whose frontier
+ * holds K bombs has C(U, R - K) ways to place the rest, so the weight of
+ * each k of a component is a convolution of the other components against
+ * those binomials. That costs time quadratic in the frontier, not
+ * exponential in the number of components.
+ *
+ * Components are enumerated in parallel on the fork/join pool when a
+ * position has enough of them, and their counts are cached by shape, since
+ * the same small patterns come up again and again along a frontier and from
+ * move to move. A ProbabilityCalculator is not thread safe.
+ */
+public class ProbabilityCalculator {
+
+    // Frontier cells in a position before its components are enumerated in parallel
+    private final static int PARALLEL_THRESHOLD = 32;
+
+    // Shapes kept in the cache before it is emptied
+    private final static int MAX_CACHED_SHAPES = 1 << 14;
+
+    // Counts of the shapes enumerated so far, shared by every thread
+    private final ConcurrentHashMap<Shape, Counts> cache = new ConcurrentHashMap<Shape, Counts>();
+
+    private final Solver solver = new Solver();
+
+    // Board of the last calculation
+    private BoardModel model;
+
+    // Frontier cells by dense id with their probabilities, and the id of
+    // every board cell (-1 off the frontier)
+    private int frontierIds[] = new int[0];
+    private int frontierCells[] = new int[64];
+    private double frontierProbabilities[] = new double[64];
+    private int frontierSize;
+
+    // Constraints on the undecided frontier cells, in compressed rows
+    private final IntList constraintStarts = new IntList(64);
+    private final IntList constraintCells = new IntList(256);
+    private final IntList constraintBombs = new IntList(64);
+
+    // Results for the rest of the hidden cells
+    private double interiorProbability;
+    private int interiorCount;
+    private int componentCount;
+
+    /*
+     * Calculates the probabilities of the visible state of a board.
+     *
+     * @param   model       The board to read
+     * @param   bombCount   The number of bombs on the board
+     */
+    public void calculate(BoardModel model, int bombCount) {
+        if (cache.size() > MAX_CACHED_SHAPES) {
+            cache.clear();
+        }
+        reset(model);
+        solver.solve(model);
+
+        // Cells the solver decided are certain
+        int bombsLeft = bombCount - solver.getBombs().size();
+        // (The id is taken first, since adding it can grow the array)
+        for (int i = 0; i < solver.getSafeCells().size(); i++) {
+            int id = frontierId(solver.getSafeCells().get(i));
+            frontierProbabilities[id] = 0;
+        }
+        for (int i = 0; i < solver.getBombs().size(); i++) {
+            int id = frontierId(solver.getBombs().get(i));
+            frontierProbabilities[id] = 1;
+        }
+        int decided = frontierSize;
+
+        int hidden = 0;
+        for (int i = 0; i < model.size(); i++) {
+            if (model.isFlagged(i)) {
+                bombsLeft--;
+            }
+            else if (!model.isCleared(i)) {
+                hidden++;
+            }
+        }
+        readConstraints();
+        interiorCount = hidden - frontierSize;
+
+        Component components[] = findComponents(decided);
+        componentCount = components.length;
+        enumerate(components);
+        combine(components, bombsLeft);
+    }
+
+    /*
+     * Gets the chance that a cell is a bomb. Cleared cells have a chance of
+     * 0 and flagged cells a chance of 1.
+     *
+     * @param   index       The index of the cell
+     * @return              The probability
+     */
+    public double getProbability(int index) {
+        int id = frontierIds[index];
+        if (id != -1) {
+            return frontierProbabilities[id];
+        }
+        if (model.isCleared(index)) {
+            return 0;
+        }
+        return model.isFlagged(index) ? 1 : interiorProbability;
+    }
+
+    /*
+     * Gets the chance that a hidden cell away from every number is a bomb.
+     *
+     * @return              The probability
+     */
+    public double getInteriorProbability() {
+        return interiorProbability;
+    }
+
+    /*
+     * Gets the number of hidden cells away from every number.
+     *
+     * @return              The interior cell count
+     */
+    public int getInteriorCount() {
+        return interiorCount;
+    }
+
+    /*
+     * Gets the number of independent components of the last calculation.
+     *
+     * @return              The component count
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /*
+     * Finds the hidden, unflagged cell least likely to be a bomb. Ties go to
+     * the frontier, where a reveal tells the most.
+     *
+     * @return              The index of the cell, or -1 if every cell is cleared or flagged
+     */
+    public int getSafestCell() {
+        int best = -1;
+        double bestProbability = 2;
+        for (int id = 0; id < frontierSize; id++) {
+            if (frontierProbabilities[id] < bestProbability) {
+                best = frontierCells[id];
+                bestProbability = frontierProbabilities[id];
+            }
+        }
+        if (interiorCount > 0 && interiorProbability < bestProbability) {
+            for (int i = 0; i < model.size(); i++) {
+                if (frontierIds[i] == -1 && !model.isCleared(i) && !model.isFlagged(i)) {
+                    return i;
+                }
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Builds a constraint from every cleared number next to undecided cells.
+     */
+    private void readConstraints() {
+        int length = model.getLength();
+        int width = model.getWidth();
+
+        for (int row = 0; row < length; row++) {
+            for (int col = 0; col < width; col++) {
+                int index = row * width + col;
+                if (!model.isCleared(index) || model.getNeighboringBombCount(index) == 0) {
+                    continue;
+                }
+
+                int start = constraintCells.size();
+                int bombsLeft = model.getNeighboringBombCount(index);
+                for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, length - 1); r++) {
+                    for (int k = Math.max(col - 1, 0); k <= Math.min(col + 1, width - 1); k++) {
+                        int neighbor = r * width + k;
+                        if (model.isFlagged(neighbor) || solver.getDeduction(neighbor) == Solver.BOMB) {
+                            bombsLeft--;
+                        }
+                        else if (!model.isCleared(neighbor) && solver.getDeduction(neighbor) == Solver.UNKNOWN) {
+                            constraintCells.add(frontierId(neighbor));
+                        }
+                    }
+                }
+
+                if (constraintCells.size() > start) {
+                    constraintStarts.add(start);
+                    constraintBombs.add(bombsLeft);
+                }
+            }
+        }
+        constraintStarts.add(constraintCells.size());
+    }
+
+    /*
+     * Splits the constraints into components that share no cells.
+     *
+     * @param   firstId     The first frontier id that is not decided
+     * @return              The components
+     */
+    private Component[] findComponents(int firstId) {
+        int constraintCount = constraintBombs.size();
+
+        // Union-find over the frontier ids, joining the cells of each constraint
+        int parents[] = new int[frontierSize];
+        for (int id = 0; id < frontierSize; id++) {
+            parents[id] = id;
+        }
+        for (int c = 0; c < constraintCount; c++) {
+            int first = find(parents, constraintCells.get(constraintStarts.get(c)));
+            for (int i = constraintStarts.get(c) + 1; i < constraintStarts.get(c + 1); i++) {
+                int root = find(parents, constraintCells.get(i));
+                if (root != first) {
+                    parents[root] = first;
+                }
+            }
+        }
+
+        // Number the components by root, then collect the constraints of each
+        int componentOf[] = new int[frontierSize];
+        Arrays.fill(componentOf, -1);
+        int count = 0;
+        for (int id = firstId; id < frontierSize; id++) {
+            int root = find(parents, id);
+            if (componentOf[root] == -1) {
+                componentOf[root] = count++;
+            }
+        }
+        IntList constraintsOf[] = new IntList[count];
+        for (int i = 0; i < count; i++) {
+            constraintsOf[i] = new IntList(4);
+        }
+        for (int c = 0; c < constraintCount; c++) {
+            constraintsOf[componentOf[find(parents, constraintCells.get(constraintStarts.get(c)))]].add(c);
+        }
+
+        Component components[] = new Component[count];
+        for (int i = 0; i < count; i++) {
+            components[i] = new Component(constraintsOf[i]);
+        }
+        return components;
+    }
+
+    /*
+     * Gets the counts of every component, from the cache or by enumerating it.
+     */
+    private void enumerate(Component components[]) {
+        if (components.length > 1 && frontierSize >= PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new EnumerateTask(components, 0, components.length));
+        }
+        else {
+            enumerate(components, 0, components.length);
+        }
+    }
+
+    /*
+     * Gets the counts of a range of components.
+     */
+    private void enumerate(Component components[], int first, int end) {
+        for (int i = first; i < end; i++) {
+            Component component = components[i];
+            Counts counts = cache.get(component.shape);
+            if (counts == null) {
+                counts = new Counts(component.shape);
+                cache.putIfAbsent(component.shape, counts);
+            }
+            component.counts = counts;
+        }
+    }
+
+    /*
+     * Combines the counts of the components against the bombs left for the
+     * interior, and sets every probability.
+     *
+     * The weight of a component's k is the number of ways the other
+     * components and the interior can hold the other bombs. It is found with
+     * a running convolution of the components before it, and a backward table
+     * of the components after it summed against the interior binomials.
+     */
+    private void combine(Component components[], int bombsLeft) {
+        int m = components.length;
+        int maxBombs = 0;
+        for (Component component : components) {
+            maxBombs += component.counts.cells;
+        }
+        maxBombs = Math.min(maxBombs, Math.max(bombsLeft, 0));
+
+        // after[c][j]: ways for components c.. and the interior, with j bombs already placed
+        double after[][] = new double[m + 1][];
+        after[m] = interiorWeights(maxBombs, bombsLeft);
+        for (int c = m - 1; c >= 0; c--) {
+            double total[] = components[c].counts.total;
+            double next[] = after[c + 1];
+            double weights[] = new double[maxBombs + 1];
+            for (int j = 0; j <= maxBombs; j++) {
+                for (int k = 0; k < total.length && j + k <= maxBombs; k++) {
+                    weights[j] += total[k] * next[j + k];
+                }
+            }
+            after[c] = normalize(weights);
+        }
+
+        // before: the convolution of the components placed so far
+        double before[] = new double[maxBombs + 1];
+        before[0] = 1;
+        for (int c = 0; c < m; c++) {
+            Counts counts = components[c].counts;
+            double next[] = after[c + 1];
+
+            // weights[k]: ways for every other component and the interior, given k bombs here
+            double weights[] = new double[counts.cells + 1];
+            for (int k = 0; k <= counts.cells; k++) {
+                for (int a = 0; a + k <= maxBombs; a++) {
+                    weights[k] += before[a] * next[a + k];
+                }
+            }
+
+            double layouts = 0;
+            for (int k = 0; k <= counts.cells; k++) {
+                layouts += counts.total[k] * weights[k];
+            }
+            if (layouts == 0) {
+                throw new IllegalStateException("No layout fits the visible board");
+            }
+            for (int cell = 0; cell < counts.cells; cell++) {
+                double withBomb = 0;
+                for (int k = 0; k <= counts.cells; k++) {
+                    withBomb += counts.cellBombs[cell * (counts.cells + 1) + k] * weights[k];
+                }
+                frontierProbabilities[components[c].cells[cell]] = withBomb / layouts;
+            }
+
+            // Add this component to the running convolution
+            double convolved[] = new double[maxBombs + 1];
+            for (int a = 0; a <= maxBombs; a++) {
+                if (before[a] != 0) {
+                    for (int k = 0; k <= counts.cells && a + k <= maxBombs; k++) {
+                        convolved[a + k] += before[a] * counts.total[k];
+                    }
+                }
+            }
+            before = normalize(convolved);
+        }
+
+        // Expected share of the bombs left for the interior
+        double interior[] = interiorWeights(maxBombs, bombsLeft);
+        double layouts = 0;
+        double interiorBombs = 0;
+        for (int k = 0; k <= maxBombs; k++) {
+            layouts += before[k] * interior[k];
+            interiorBombs += before[k] * interior[k] * (bombsLeft - k);
+        }
+        if (layouts == 0) {
+            throw new IllegalStateException("No layout fits the visible board");
+        }
+        interiorProbability = (interiorCount == 0) ? 0 : interiorBombs / layouts / interiorCount;
+    }
+
+    /*
+     * Gets the relative number of ways to put the bombs not on the frontier
+     * into the interior, C(U, R - K) for every frontier bomb count K. The
+     * binomials are built from their ratios in logs, so huge boards do not
+     * overflow.
+     */
+    private double[] interiorWeights(int maxBombs, int bombsLeft) {
+        double logs[] = new double[maxBombs + 1];
+        Arrays.fill(logs, Double.NEGATIVE_INFINITY);
+
+        int first = Math.max(0, bombsLeft - interiorCount);
+        double max = Double.NEGATIVE_INFINITY;
+        double log = 0;
+        for (int k = first; k <= maxBombs && bombsLeft - k >= 0; k++) {
+            if (k > first) {
+                // C(U, n) / C(U, n + 1) = (n + 1) / (U - n)
+                int n = bombsLeft - k;
+                log += Math.log((double) (n + 1) / (interiorCount - n));
+            }
+            logs[k] = log;
+            max = Math.max(max, log);
+        }
+
+        double weights[] = new double[maxBombs + 1];
+        if (max == Double.NEGATIVE_INFINITY) {
+            return weights;
+        }
+        for (int k = 0; k <= maxBombs; k++) {
+            weights[k] = Math.exp(logs[k] - max);
+        }
+        return weights;
+    }
+
+    /*
+     * Scales weights so the largest is 1. Only their ratios matter.
+     */
+    private static double[] normalize(double weights[]) {
+        double max = 0;
+        for (double weight : weights) {
+            max = Math.max(max, weight);
+        }
+        if (max > 0) {
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] /= max;
+            }
+        }
+        return weights;
+    }
+
+    /*
+     * Finds the root of a union-find set, halving the path on the way.
+     */
+    private static int find(int parents[], int id) {
+        while (parents[id] != id) {
+            parents[id] = parents[parents[id]];
+            id = parents[id];
+        }
+        return id;
+    }
+
+    /*
+     * Gets the dense id of a frontier cell, adding it on first sight.
+     */
+    private int frontierId(int index) {
+        int id = frontierIds[index];
+        if (id != -1) {
+            return id;
+        }
+
+        id = frontierSize++;
+        if (id == frontierCells.length) {
+            frontierCells = Arrays.copyOf(frontierCells, id * 2);
+            frontierProbabilities = Arrays.copyOf(frontierProbabilities, id * 2);
+        }
+        frontierIds[index] = id;
+        frontierCells[id] = index;
+        return id;
+    }
+
+    /*
+     * Forgets the last calculation, keeping the buffers.
+     */
+    private void reset(BoardModel model) {
+        if (frontierIds.length != model.size()) {
+            frontierIds = new int[model.size()];
+            Arrays.fill(frontierIds, -1);
+        }
+        else {
+            for (int id = 0; id < frontierSize; id++) {
+                frontierIds[frontierCells[id]] = -1;
+            }
+        }
+        this.model = model;
+        frontierSize = 0;
+        constraintStarts.clear();
+        constraintCells.clear();
+        constraintBombs.clear();
+    }
+
+    // A set of constraints sharing cells, with its cells numbered locally
+    private class Component {
+
+        // Frontier ids of the cells, by local number
+        private final int cells[];
+
+        // Local description used to enumerate and to look up the cache
+        private final Shape shape;
+
+        private Counts counts;
+
+        /*
+         * Numbers the cells in the order the constraints first name them,
+         * so equal patterns anywhere on the board get equal shapes.
+         */
+        Component(IntList constraints) {
+            IntList ids = new IntList(8);
+            IntIntMap local = new IntIntMap(16);
+            IntList code = new IntList(16);
+            code.add(0);
+            code.add(constraints.size());
+
+            for (int i = 0; i < constraints.size(); i++) {
+                int c = constraints.get(i);
+                int start = constraintStarts.get(c);
+                int end = constraintStarts.get(c + 1);
+                code.add(constraintBombs.get(c));
+                code.add(end - start);
+                for (int j = start; j < end; j++) {
+                    int id = constraintCells.get(j);
+                    int number = local.get(id, -1);
+                    if (number == -1) {
+                        number = ids.size();
+                        local.put(id, number);
+                        ids.add(id);
+                    }
+                    code.add(number);
+                }
+            }
+
+            cells = ids.toArray();
+            int values[] = code.toArray();
+            values[0] = cells.length;
+            shape = new Shape(values);
+        }
+    }
+
+    // Cache key for a component: cell count, constraint count, then bombs, size and cells of each constraint
+    private static class Shape {
+
+        private final int code[];
+        private final int hash;
+
+        Shape(int code[]) {
+            this.code = code;
+            this.hash = Arrays.hashCode(code);
+        }
+
+        public boolean equals(Object other) {
+            return other instanceof Shape && Arrays.equals(code, ((Shape) other).code);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // Fitting layouts of a shape, by bomb count, scaled so the largest total is 1
+    private static class Counts {
+
+        private final int cells;
+
+        // total[k]: layouts with k bombs
+        private final double total[];
+
+        // cellBombs[cell * (cells + 1) + k]: layouts with k bombs and a bomb on the cell
+        private final double cellBombs[];
+
+        // Backtracking state
+        private final int constraintsOfCell[][];
+        private final int bombsLeft[];
+        private final int unassigned[];
+        private final boolean bombs[];
+
+        Counts(Shape shape) {
+            int code[] = shape.code;
+            cells = code[0];
+            int constraintCount = code[1];
+            total = new double[cells + 1];
+            cellBombs = new double[cells * (cells + 1)];
+            bombsLeft = new int[constraintCount];
+            unassigned = new int[constraintCount];
+            bombs = new boolean[cells];
+
+            // Invert the constraints into the constraints on each cell
+            int counts[] = new int[cells];
+            for (int c = 0, p = 2; c < constraintCount; c++) {
+                bombsLeft[c] = code[p];
+                unassigned[c] = code[p + 1];
+                for (int i = 0; i < unassigned[c]; i++) {
+                    counts[code[p + 2 + i]]++;
+                }
+                p += 2 + unassigned[c];
+            }
+            constraintsOfCell = new int[cells][];
+            for (int cell = 0; cell < cells; cell++) {
+                constraintsOfCell[cell] = new int[counts[cell]];
+                counts[cell] = 0;
+            }
+            for (int c = 0, p = 2; c < constraintCount; c++) {
+                for (int i = 0; i < unassigned[c]; i++) {
+                    int cell = code[p + 2 + i];
+                    constraintsOfCell[cell][counts[cell]++] = c;
+                }
+                p += 2 + unassigned[c];
+            }
+
+            assign(0, 0);
+
+            double max = 0;
+            for (double count : total) {
+                max = Math.max(max, count);
+            }
+            if (max == 0) {
+                return;
+            }
+            for (int i = 0; i < total.length; i++) {
+                total[i] /= max;
+            }
+            for (int i = 0; i < cellBombs.length; i++) {
+                cellBombs[i] /= max;
+            }
+        }
+
+        /*
+         * Tries both values of a cell and goes on to the next one.
+         */
+        private void assign(int cell, int bombCount) {
+            if (cell == cells) {
+                total[bombCount]++;
+                for (int i = 0; i < cells; i++) {
+                    if (bombs[i]) {
+                        cellBombs[i * (cells + 1) + bombCount]++;
+                    }
+                }
+                return;
+            }
+
+            for (int bomb = 0; bomb <= 1; bomb++) {
+                if (fits(cell, bomb)) {
+                    bombs[cell] = (bomb == 1);
+                    for (int c : constraintsOfCell[cell]) {
+                        bombsLeft[c] -= bomb;
+                        unassigned[c]--;
+                    }
+                    assign(cell + 1, bombCount + bomb);
+                    for (int c : constraintsOfCell[cell]) {
+                        bombsLeft[c] += bomb;
+                        unassigned[c]++;
+                    }
+                }
+            }
+            bombs[cell] = false;
+        }
+
+        /*
+         * Checks if every constraint on a cell can still be met after giving it a value.
+         */
+        private boolean fits(int cell, int bomb) {
+            for (int c : constraintsOfCell[cell]) {
+                int left = bombsLeft[c] - bomb;
+                if (left < 0 || left > unassigned[c] - 1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Inner Class for enumerating a range of components, split in half until one is left
+    private class EnumerateTask extends RecursiveAction {
+
+        private final static long serialVersionUID = 1L;
+
+        private final Component components[];
+        private final int first;
+        private final int end;
+
+        EnumerateTask(Component components[], int first, int end) {
+            this.components = components;
+            this.first = first;
+            this.end = end;
+        }
+
+        protected void compute() {
+            if (end - first <= 1) {
+                enumerate(components, first, end);
+            }
+            else {
+                int middle = (first + end) >>> 1;
+                invokeAll(new EnumerateTask(components, first, middle), new EnumerateTask(components, middle, end));
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+
+/*
+ * ProbabilityPlayer plays like the SolverPlayer while a move is certain.
+ * When none is, it reveals the cell least likely to be a bomb instead of a
+ * random one.
+ */
+public class ProbabilityPlayer implements Player {
+
+    private final SolverPlayer solverPlayer = new SolverPlayer();
+    private final Solver solver = new Solver();
+    private final ProbabilityCalculator calculator = new ProbabilityCalculator();
+
+    public void move(GameEngine engine, SplittableRandom random) {
+        BoardModel model = engine.getModel();
+        if (engine.getStatus() == GameEngine.Status.READY || solver.solve(model) > 0) {
+            solverPlayer.move(engine, random);
+            return;
+        }
+
+        calculator.calculate(model, engine.getConfig().getBombCount());
+        int index = calculator.getSafestCell();
+        engine.reveal(model.rowOf(index), model.colOf(index));
+    }
+}
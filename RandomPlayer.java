@@ -0,0 +1,46 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+
+/*
+ * RandomPlayer reveals a random hidden cell on every move. It is the
+ * baseline every other player should beat.
+ */
+public class RandomPlayer implements Player {
+
+    // Random picks tried before falling back to a scan for a hidden cell
+    private final static int PICK_ATTEMPTS = 32;
+
+    public void move(GameEngine engine, SplittableRandom random) {
+        BoardModel model = engine.getModel();
+
+        for (int i = 0; i < PICK_ATTEMPTS; i++) {
+            int index = random.nextInt(model.size());
+            if (isHidden(model, index)) {
+                engine.reveal(model.rowOf(index), model.colOf(index));
+                return;
+            }
+        }
+
+        // Most cells are cleared, so scan from a random start
+        int start = random.nextInt(model.size());
+        for (int i = 0; i < model.size(); i++) {
+            int index = (start + i) % model.size();
+            if (isHidden(model, index)) {
+                engine.reveal(model.rowOf(index), model.colOf(index));
+                return;
+            }
+        }
+    }
+
+    /*
+     * Checks if a cell can be revealed.
+     */
+    private static boolean isHidden(BoardModel model, int index) {
+        return (model.get(index) & (BoardModel.CLEARED | BoardModel.FLAGGED)) == 0;
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * Replay is a recorded game, read from the binary format written by
+ * ReplayRecorder:
+ *
+ *      header      'B' 'R', version, then the length, width and bomb count
+ *      layout      LAYOUT_SEED, the seed, safe radius and no-guess flag, or
+ *                  LAYOUT_BOMBS and the gap from each bomb cell to the last
+ *      moves       Until the end: the cell as a zigzag encoded step from the
+ *                  last move shifted left by two, or'ed with the move type,
+ *                  then the milliseconds since the last move
+ *      end         Once the game is over: the outcome shifted left by two,
+ *                  or'ed with END, then 0, since the move ending the game
+ *                  sets its time
+ *
+ * Numbers are unsigned varints. A game that never started has no layout.
+ * The moves are decoded into flat arrays once, so a replay can be played
+ * from any point.
+ */
+public class Replay {
+
+    // Format
+    final static int MAGIC_0 = 'B';
+    final static int MAGIC_1 = 'R';
+    final static int VERSION = 1;
+    final static int LAYOUT_SEED = 0;
+    final static int LAYOUT_BOMBS = 1;
+
+    // Move Types
+    public final static int REVEAL = 0;
+    public final static int FLAG = 1;
+    public final static int CHORD = 2;
+    final static int END = 3;
+
+    private final byte data[];
+    private final GameConfig config;
+
+    // Layout, by seed or by bomb cells
+    private boolean hasLayout;
+    private boolean seeded;
+    private long seed;
+    private int safeRadius;
+    private boolean noGuess;
+    private int bombs[];
+
+    // Moves, with their time in milliseconds since the layout
+    private int moveCount;
+    private int types[];
+    private int indices[];
+    private long times[];
+
+    // How the game ended, the moves before that and the time, or null and -1
+    private GameEngine.Status outcome;
+    private int endMove = -1;
+    private long endTime = -1;
+
+    // Read position while decoding
+    private int position;
+
+    private Replay(byte data[]) {
+        this.data = data;
+        if (data.length < 3 || (data[0] & 0xFF) != MAGIC_0 || (data[1] & 0xFF) != MAGIC_1) {
+            throw new IllegalArgumentException("Not a replay");
+        }
+        if ((data[2] & 0xFF) != VERSION) {
+            throw new IllegalArgumentException("Unknown replay version: " + (data[2] & 0xFF));
+        }
+        position = 3;
+        config = GameConfig.custom((int) getVarint(), (int) getVarint(), (int) getVarint());
+
+        types = new int[0];
+        indices = new int[0];
+        times = new long[0];
+        if (position == data.length) {
+            return;
+        }
+
+        hasLayout = true;
+        int layout = data[position++];
+        if (layout == LAYOUT_SEED) {
+            seeded = true;
+            seed = getVarint();
+            safeRadius = (int) getVarint();
+            noGuess = getByte() != 0;
+        }
+        else if (layout == LAYOUT_BOMBS) {
+            bombs = new int[config.getBombCount()];
+            int last = 0;
+            for (int i = 0; i < bombs.length; i++) {
+                last += (int) getVarint();
+                bombs[i] = last;
+            }
+        }
+        else {
+            throw new IllegalArgumentException("Unknown replay layout: " + layout);
+        }
+
+        // Every move takes at least two bytes
+        int capacity = (data.length - position) / 2;
+        types = new int[capacity];
+        indices = new int[capacity];
+        times = new long[capacity];
+
+        int index = 0;
+        long time = 0;
+        while (position < data.length) {
+            long move = getVarint();
+            time += getVarint();
+            if ((move & 3) == END) {
+                if (outcome != null || (move >>> 2) >= GameEngine.Status.values().length) {
+                    throw new IllegalArgumentException("Bad replay end");
+                }
+                outcome = GameEngine.Status.values()[(int) (move >>> 2)];
+                endMove = moveCount;
+                endTime = time;
+                continue;
+            }
+            long step = move >>> 2;
+            index += (int) ((step >>> 1) ^ -(step & 1));
+
+            types[moveCount] = (int) (move & 3);
+            indices[moveCount] = index;
+            times[moveCount] = time;
+            moveCount++;
+        }
+    }
+
+    /*
+     * Reads a replay from its recorded bytes.
+     *
+     * @param   data        The recorded bytes, which are kept
+     * @return              The replay
+     */
+    public static Replay read(byte data[]) {
+        return new Replay(data);
+    }
+
+    /*
+     * Reads a replay from a file.
+     *
+     * @param   file        The file to read
+     * @return              The replay
+     */
+    public static Replay load(Path file) {
+        try {
+            return read(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read replay: " + file, e);
+        }
+    }
+
+    /*
+     * Writes the replay to a file.
+     *
+     * @param   file        The file to write
+     */
+    public void save(Path file) {
+        try {
+            Files.write(file, data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write replay: " + file, e);
+        }
+    }
+
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /*
+     * Checks if the game got as far as its first reveal.
+     *
+     * @return              Whether or not a layout was recorded
+     */
+    public boolean hasLayout() {
+        return hasLayout;
+    }
+
+    /*
+     * Checks if the layout is recorded as a seed, rather than as bomb cells.
+     *
+     * @return              Whether or not the layout is generated from the seed
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getSafeRadius() {
+        return safeRadius;
+    }
+
+    public boolean isNoGuess() {
+        return noGuess;
+    }
+
+    /*
+     * Gets the bomb cells of a layout recorded by its bombs.
+     *
+     * @return              The bomb indices, or null for a seeded layout
+     */
+    public int[] getBombs() {
+        return (bombs == null) ? null : bombs.clone();
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /*
+     * Gets the type of a move.
+     *
+     * @param   move        The number of the move
+     * @return              REVEAL, FLAG or CHORD
+     */
+    public int getType(int move) {
+        return types[move];
+    }
+
+    /*
+     * Gets the cell of a move.
+     *
+     * @param   move        The number of the move
+     * @return              The index of the cell
+     */
+    public int getIndex(int move) {
+        return indices[move];
+    }
+
+    /*
+     * Gets the time of a move.
+     *
+     * @param   move        The number of the move
+     * @return              The milliseconds since the board was laid out
+     */
+    public long getTime(int move) {
+        return times[move];
+    }
+
+    /*
+     * Gets the time of the last move.
+     *
+     * @return              The length of the game in milliseconds
+     */
+    public long getDuration() {
+        return (moveCount == 0) ? 0 : times[moveCount - 1];
+    }
+
+    /*
+     * Gets how the recorded game ended.
+     *
+     * @return              WON or LOST, or null if the game was not finished
+     */
+    public GameEngine.Status getOutcome() {
+        return outcome;
+    }
+
+    /*
+     * Gets the number of moves made before the game ended. Only a tampered
+     * replay has moves after that.
+     *
+     * @return              The moves up to the end, or -1 if the game was not finished
+     */
+    public int getEndMove() {
+        return endMove;
+    }
+
+    /*
+     * Gets the time the game ended, which is the time of its last move.
+     *
+     * @return              The milliseconds since the board was laid out, or -1
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /*
+     * Gets the size of the recording.
+     *
+     * @return              The size of the replay in bytes
+     */
+    public int size() {
+        return data.length;
+    }
+
+    private int getByte() {
+        if (position >= data.length) {
+            throw new IllegalArgumentException("Replay is cut short");
+        }
+        return data[position++] & 0xFF;
+    }
+
+    private long getVarint() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = getByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+/*
+ * ReplayPlayer plays a Replay back on a GameEngine, a move at a time or up
+ * to a point in time.
+ *
+ * The replay has its own clock, in milliseconds since the board was laid
+ * out. Seeking forward plays every move up to the new time at once, so
+ * playing at any speed is seeking by the real time passed times the speed.
+ * Seeking backward starts the game over and plays forward again.
+ */
+public class ReplayPlayer {
+
+    private final Replay replay;
+    private final GameEngine engine;
+
+    // The next move to play, and the replay clock
+    private int next;
+    private long time;
+
+    /*
+     * Constructor for ReplayPlayer, which starts the replay on the engine.
+     *
+     * @param   replay      The replay to play
+     * @param   engine      The engine to play it on
+     */
+    public ReplayPlayer(Replay replay, GameEngine engine) {
+        this.replay = replay;
+        this.engine = engine;
+        restart();
+    }
+
+    /*
+     * Starts the replayed game over, before its first move.
+     */
+    public void restart() {
+        GameBoard board = engine.getGameBoard();
+        engine.newGame(replay.getConfig());
+        if (replay.isSeeded()) {
+            board.setSafeRadius(replay.getSafeRadius());
+            board.setNoGuess(replay.isNoGuess());
+            board.setSeed(replay.getSeed());
+        }
+        else if (replay.hasLayout()) {
+            board.setLayout(replay.getBombs());
+        }
+        next = 0;
+        time = 0;
+    }
+
+    /*
+     * Plays the next move.
+     *
+     * @return              Whether or not there was a move left
+     */
+    public boolean step() {
+        if (isDone()) {
+            return false;
+        }
+        int index = replay.getIndex(next);
+        int row = index / replay.getConfig().getWidth();
+        int col = index % replay.getConfig().getWidth();
+        switch (replay.getType(next)) {
+            case Replay.REVEAL:
+                engine.reveal(row, col);
+                break;
+            case Replay.FLAG:
+                engine.flag(row, col);
+                break;
+            default:
+                engine.chord(row, col);
+                break;
+        }
+        time = Math.max(time, replay.getTime(next));
+        next++;
+        return true;
+    }
+
+    /*
+     * Moves the replay clock, playing every move up to the new time.
+     *
+     * @param   time        The time to move to, in milliseconds
+     */
+    public void seek(long time) {
+        if (time < this.time) {
+            restart();
+        }
+        while (!isDone() && replay.getTime(next) <= time) {
+            step();
+        }
+        this.time = time;
+    }
+
+    /*
+     * Plays every move left.
+     */
+    public void finish() {
+        seek(Math.max(time, replay.getDuration()));
+    }
+
+    /*
+     * Checks if every move has been played.
+     *
+     * @return              Whether or not the replay is done
+     */
+    public boolean isDone() {
+        return next == replay.getMoveCount();
+    }
+
+    /*
+     * Gets the replay clock.
+     *
+     * @return              The milliseconds since the board was laid out
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /*
+     * Gets the number of moves played.
+     *
+     * @return              The next move to play
+     */
+    public int getMovesPlayed() {
+        return next;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+
+/*
+ * ReplayRecorder writes a game into the compact binary format read by
+ * Replay, as it is played.
+ *
+ * The GameEngine calls begin when a game starts, recordLayout once the
+ * board is laid out, record for every move and recordEnd when the game is
+ * over. Everything goes straight into one byte buffer that is kept between
+ * games, so once it has grown to fit the longest game, recording allocates
+ * nothing. Each event is two varints, usually two to four bytes.
+ *
+ * Flags can be placed before the first reveal lays out the board. Those
+ * moves are held until the layout is recorded and written right after it,
+ * and the times of the game count from the first of them.
+ */
+public class ReplayRecorder {
+
+    private byte buffer[];
+    private int size;
+
+    // Whether the layout is written, so moves can follow
+    private boolean started;
+
+    // The last move, which the next one is written relative to
+    private int lastIndex;
+    private long lastMillis;
+
+    // Moves made before the layout, as the index shifted left by 2 or'ed with the type, and their times
+    private long pendingMoves[] = new long[16];
+    private long pendingMillis[] = new long[16];
+    private int pendingCount = 0;
+
+    /*
+     * Constructor for ReplayRecorder
+     */
+    public ReplayRecorder() {
+        this(1 << 12);
+    }
+
+    /*
+     * Constructor for ReplayRecorder
+     *
+     * @param   capacity    The number of bytes to hold before growing
+     */
+    public ReplayRecorder(int capacity) {
+        buffer = new byte[Math.max(capacity, 64)];
+    }
+
+    /*
+     * Starts recording a new game, dropping the last one.
+     *
+     * @param   config      The level of the game
+     */
+    public void begin(GameConfig config) {
+        size = 0;
+        started = false;
+        pendingCount = 0;
+        putByte(Replay.MAGIC_0);
+        putByte(Replay.MAGIC_1);
+        putByte(Replay.VERSION);
+        putVarint(config.getLength());
+        putVarint(config.getWidth());
+        putVarint(config.getBombCount());
+    }
+
+    /*
+     * Records the layout of a board that was just set up: its seed if that
+     * generates it again, or else the bomb cells.
+     *
+     * @param   board       The board that was set up
+     */
+    public void recordLayout(GameBoard board) {
+        if (board.isSeeded()) {
+            putByte(Replay.LAYOUT_SEED);
+            putVarint(board.getSeed());
+            putVarint(board.getSafeRadius());
+            putByte(board.isNoGuess() ? 1 : 0);
+        }
+        else {
+            // Bomb cells in order, each as the gap from the last
+            putByte(Replay.LAYOUT_BOMBS);
+            BoardModel model = board.getModel();
+            int last = 0;
+            for (int i = 0; i < model.size(); i++) {
+                if (model.isBomb(i)) {
+                    putVarint(i - last);
+                    last = i;
+                }
+            }
+        }
+        started = true;
+        lastIndex = 0;
+        lastMillis = (pendingCount > 0) ? pendingMillis[0] : System.nanoTime() / 1000000;
+
+        // Write out the moves made before the layout, now that they can follow it
+        for (int i = 0; i < pendingCount; i++) {
+            write((int) (pendingMoves[i] & 3), (int) (pendingMoves[i] >>> 2), pendingMillis[i]);
+        }
+        pendingCount = 0;
+    }
+
+    /*
+     * Records a move. Moves before the layout is recorded are held until it is.
+     *
+     * @param   type        The move, such as Replay.REVEAL
+     * @param   index       The index of the cell
+     */
+    public void record(int type, int index) {
+        long millis = System.nanoTime() / 1000000;
+        if (started) {
+            write(type, index, millis);
+            return;
+        }
+        if (pendingCount == pendingMoves.length) {
+            pendingMoves = Arrays.copyOf(pendingMoves, pendingCount * 2);
+            pendingMillis = Arrays.copyOf(pendingMillis, pendingCount * 2);
+        }
+        pendingMoves[pendingCount] = ((long) index << 2) | type;
+        pendingMillis[pendingCount] = millis;
+        pendingCount++;
+    }
+
+    /*
+     * Writes a move, relative to the last one.
+     */
+    private void write(int type, int index, long millis) {
+
+        // The cell as a zigzag encoded step from the last one, with the move in the low bits
+        long step = index - lastIndex;
+        putVarint((((step << 1) ^ (step >> 63)) << 2) | type);
+        putVarint(millis - lastMillis);
+
+        lastIndex = index;
+        lastMillis = millis;
+    }
+
+    /*
+     * Records the end of the game, right after the move that ended it.
+     *
+     * @param   outcome     How the game ended
+     */
+    public void recordEnd(GameEngine.Status outcome) {
+        if (!started) {
+            return;
+        }
+        putVarint(((long) outcome.ordinal() << 2) | Replay.END);
+        putVarint(0);
+    }
+
+    /*
+     * Gets the number of bytes recorded for the current game.
+     *
+     * @return              The recording size
+     */
+    public int size() {
+        return size;
+    }
+
+    /*
+     * Copies out the recording of the current game.
+     *
+     * @return              The recorded bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /*
+     * Reads back the recording of the current game.
+     *
+     * @return              The replay
+     */
+    public Replay toReplay() {
+        return Replay.read(toByteArray());
+    }
+
+    private void putByte(int value) {
+        if (size == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    /*
+     * Writes an unsigned value seven bits at a time, lowest first, with the
+     * top bit of each byte set when more follow.
+     */
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            putByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        putByte((int) value);
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * ReplayVerifier plays back a folder of replays on all cores, checks that
+ * each one is consistent and grades every move.
+ *
+ * A replay is consistent if every move is on the board, no move comes after
+ * the game is over, and the game ends on the same move, with the same
+ * outcome and at the same time as recorded. Moves are graded from what the
+ * player could see at the time, ignoring their flags:
+ *
+ *      forced      The Solver proves the move right: a reveal or chord of
+ *                  safe cells, or a flag on a bomb. The first reveal is
+ *                  always safe.
+ *      guess       Nothing proves the move right or wrong, and a revealed
+ *                  cell was within BLUNDER_MARGIN of the safest cell.
+ *      blunder     The move is provably wrong, or a cell is revealed while
+ *                  a safe one was known, or it is much riskier than the
+ *                  safest cell.
+ *
+ * What the Solver proves stays true for the rest of the game, so proven
+ * cells are remembered and the board is only solved again for a move on a
+ * cell that is not proven yet. Most moves of a good player are on cells
+ * proven earlier, which keeps grading cheap.
+ *
+ * Results are written to the summary file as they come in, one CSV line per
+ * replay, in no particular order.
+ *
+ * Usage: java ReplayVerifier folder [summary file] [threads]
+ */
+public class ReplayVerifier {
+
+    // Chance of a bomb above the safest cell at which a guess is a blunder
+    private final static double BLUNDER_MARGIN = 0.1;
+
+    // Grades of a move
+    public final static int FORCED = 0;
+    public final static int GUESS = 1;
+    public final static int BLUNDER = 2;
+
+    private final static int R_NEIGHBOR_COORDINATES[] = {1, 1, 1, 0, -1, -1, -1, 0};
+    private final static int C_NEIGHBOR_COORDINATES[] = {-1, 0, 1, 1, 1, 0, -1, -1};
+
+    // Results of verifying one replay
+    public static class Result {
+        private final String name;
+        private String problem;
+        private GameEngine.Status outcome;
+        private int moves;
+        private long duration;
+        private final int grades[] = new int[3];
+
+        Result(String name) {
+            this.name = name;
+        }
+
+        /*
+         * Checks if the replay is consistent.
+         *
+         * @return          Whether or not nothing is wrong with it
+         */
+        public boolean isConsistent() {
+            return problem == null;
+        }
+
+        public String getProblem() {
+            return problem;
+        }
+
+        public GameEngine.Status getOutcome() {
+            return outcome;
+        }
+
+        public int getMoves() {
+            return moves;
+        }
+
+        /*
+         * Gets the number of moves with a grade.
+         *
+         * @param   grade   FORCED, GUESS or BLUNDER
+         * @return          The number of moves
+         */
+        public int getGradeCount(int grade) {
+            return grades[grade];
+        }
+
+        public String toString() {
+            return String.join(",", name, (problem == null) ? "ok" : problem, String.valueOf(outcome),
+                    String.valueOf(moves), String.valueOf(duration),
+                    String.valueOf(grades[FORCED]), String.valueOf(grades[GUESS]), String.valueOf(grades[BLUNDER]));
+        }
+    }
+
+    // Engine and analysis state, one set per thread
+    private GameEngine engine;
+    private BoardModel visible;
+    private final Solver solver = new Solver();
+    private final ProbabilityCalculator calculator = new ProbabilityCalculator();
+
+    // Cells proven safe or bombs so far in the current replay, as Solver deductions
+    private byte proven[] = new byte[0];
+
+    /*
+     * Plays back and grades one replay.
+     *
+     * @param   name        The name to report the replay under
+     * @param   data        The recorded bytes
+     * @return              The result
+     */
+    public Result verify(String name, byte data[]) {
+        Result result = new Result(name);
+        Replay replay;
+        try {
+            replay = Replay.read(data);
+        } catch (IllegalArgumentException e) {
+            result.problem = "unreadable: " + e.getMessage();
+            return result;
+        }
+
+        GameConfig config = replay.getConfig();
+        if (engine == null) {
+            engine = new GameEngine(config);
+        }
+        ReplayPlayer player = new ReplayPlayer(replay, engine);
+        BoardModel model = engine.getModel();
+        if (visible == null || visible.getLength() != model.getLength() || visible.getWidth() != model.getWidth()) {
+            visible = new BoardModel(model.getLength(), model.getWidth());
+            proven = new byte[model.size()];
+        }
+        else {
+            Arrays.fill(proven, Solver.UNKNOWN);
+        }
+
+        result.moves = replay.getMoveCount();
+        result.duration = replay.getDuration();
+        for (int i = 0; i < replay.getMoveCount(); i++) {
+            int index = replay.getIndex(i);
+            if (index < 0 || index >= model.size()) {
+                result.problem = "move " + i + " is off the board";
+                return result;
+            }
+            if (engine.isOver()) {
+                result.problem = "move " + i + " is after the game ended";
+                return result;
+            }
+            result.grades[grade(replay.getType(i), index, config)]++;
+            player.step();
+        }
+
+        result.outcome = engine.isOver() ? engine.getStatus() : null;
+        if (replay.getOutcome() != result.outcome) {
+            result.problem = "recorded outcome " + replay.getOutcome() + " but played " + result.outcome;
+        }
+        else if (replay.getOutcome() != null && replay.getEndMove() != replay.getMoveCount()) {
+            result.problem = "recorded end after move " + replay.getEndMove() + " of " + replay.getMoveCount();
+        }
+        else if (replay.getOutcome() != null && replay.getEndTime() != replay.getDuration()) {
+            result.problem = "recorded end at " + replay.getEndTime() + " ms but last move at " + replay.getDuration() + " ms";
+        }
+        return result;
+    }
+
+    /*
+     * Grades a move about to be played on the engine.
+     */
+    private int grade(int type, int index, GameConfig config) {
+        if (engine.getStatus() == GameEngine.Status.READY) {
+            return FORCED;
+        }
+
+        BoardModel model = engine.getModel();
+        byte deduction = proven[index];
+        if (deduction == Solver.UNKNOWN && (type != Replay.CHORD || !isNeighborhoodProven(index, config))) {
+            solve();
+            deduction = proven[index];
+        }
+
+        if (type == Replay.FLAG) {
+            if (model.isFlagged(index)) {
+                return (deduction == Solver.BOMB) ? BLUNDER : FORCED;
+            }
+            return (deduction == Solver.BOMB) ? FORCED : (deduction == Solver.SAFE) ? BLUNDER : GUESS;
+        }
+
+        if (type == Replay.CHORD) {
+            int width = config.getWidth();
+            int row = index / width;
+            int col = index % width;
+            int grade = FORCED;
+            for (int i = 0; i < R_NEIGHBOR_COORDINATES.length; i++) {
+                int r = row + R_NEIGHBOR_COORDINATES[i];
+                int c = col + C_NEIGHBOR_COORDINATES[i];
+                if (!model.inBounds(r, c)) {
+                    continue;
+                }
+                int neighbor = r * width + c;
+                if (model.isCleared(neighbor) || model.isFlagged(neighbor)) {
+                    continue;
+                }
+                byte neighborDeduction = proven[neighbor];
+                if (neighborDeduction == Solver.BOMB) {
+                    return BLUNDER;
+                }
+                if (neighborDeduction != Solver.SAFE) {
+                    grade = GUESS;
+                }
+            }
+            return grade;
+        }
+
+        if (deduction == Solver.SAFE) {
+            return FORCED;
+        }
+        if (deduction == Solver.BOMB || solver.getSafeCells().size() > 0) {
+            return BLUNDER;
+        }
+
+        // A guess, since the board was just solved and nothing is known safe
+        calculator.calculate(visible, config.getBombCount());
+        double safest = calculator.getProbability(calculator.getSafestCell());
+        return (calculator.getProbability(index) > safest + BLUNDER_MARGIN) ? BLUNDER : GUESS;
+    }
+
+    /*
+     * Solves what the player can see, without their flags, and remembers
+     * every cell proven.
+     */
+    private void solve() {
+        BoardModel model = engine.getModel();
+        for (int i = 0; i < model.size(); i++) {
+            int state = model.get(i);
+            visible.set(i, ((state & BoardModel.CLEARED) != 0) ? state & (BoardModel.CLEARED | BoardModel.COUNT_MASK) : 0);
+        }
+        solver.solve(visible);
+
+        IntList safe = solver.getSafeCells();
+        for (int i = 0; i < safe.size(); i++) {
+            proven[safe.get(i)] = Solver.SAFE;
+        }
+        IntList bombs = solver.getBombs();
+        for (int i = 0; i < bombs.size(); i++) {
+            proven[bombs.get(i)] = Solver.BOMB;
+        }
+    }
+
+    /*
+     * Checks if every hidden, unflagged neighbor of a cell is proven.
+     */
+    private boolean isNeighborhoodProven(int index, GameConfig config) {
+        BoardModel model = engine.getModel();
+        int width = config.getWidth();
+        int row = index / width;
+        int col = index % width;
+        for (int i = 0; i < R_NEIGHBOR_COORDINATES.length; i++) {
+            int r = row + R_NEIGHBOR_COORDINATES[i];
+            int c = col + C_NEIGHBOR_COORDINATES[i];
+            if (model.inBounds(r, c)) {
+                int neighbor = r * width + c;
+                if (!model.isCleared(neighbor) && !model.isFlagged(neighbor) && proven[neighbor] == Solver.UNKNOWN) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Verifies every replay in a list of files, writing each result as it is done.
+     *
+     * @param   files       The replay files
+     * @param   threads     The number of threads to verify on
+     * @param   out         Where to write the results
+     * @return              The results, in no particular order
+     */
+    public static List<Result> run(List<Path> files, int threads, PrintWriter out) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            AtomicInteger next = new AtomicInteger();
+            List<Future<List<Result>>> parts = new ArrayList<Future<List<Result>>>();
+            for (int t = 0; t < threads; t++) {
+                parts.add(executor.submit(() -> {
+                    ReplayVerifier verifier = new ReplayVerifier();
+                    List<Result> results = new ArrayList<Result>();
+                    int i;
+                    while ((i = next.getAndIncrement()) < files.size()) {
+                        Path file = files.get(i);
+                        Result result = verifier.verify(file.getFileName().toString(), Files.readAllBytes(file));
+                        results.add(result);
+                        synchronized (out) {
+                            out.println(result);
+                        }
+                    }
+                    return results;
+                }));
+            }
+
+            List<Result> results = new ArrayList<Result>();
+            for (Future<List<Result>> part : parts) {
+                results.addAll(part.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Verification interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Verification failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /*
+     * Lists the replay files in a folder, in name order.
+     *
+     * @param   folder      The folder to list
+     * @return              The replay files
+     */
+    public static List<Path> list(Path folder) {
+        List<Path> files = new ArrayList<Path>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*.bin")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list replays: " + folder, e);
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    public static void main(String args[]) throws IOException {
+        Path folder = Paths.get(args.length > 0 ? args[0] : "replays");
+        Path summary = Paths.get(args.length > 1 ? args[1] : "summary.csv");
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        List<Path> files = list(folder);
+        System.out.println("Verifying " + files.size() + " replays in " + folder + " on " + threads + " threads");
+
+        long start = System.nanoTime();
+        List<Result> results;
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(Files.newBufferedWriter(summary)))) {
+            out.println("replay,problem,outcome,moves,duration,forced,guesses,blunders");
+            results = run(files, threads, out);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int inconsistent = 0;
+        long grades[] = new long[3];
+        for (Result result : results) {
+            if (!result.isConsistent()) {
+                inconsistent++;
+            }
+            for (int grade = FORCED; grade <= BLUNDER; grade++) {
+                grades[grade] += result.getGradeCount(grade);
+            }
+        }
+        System.out.printf("%,d replays in %.2f s (%,.0f replays/s), %,d inconsistent%n",
+                results.size(), seconds, results.size() / seconds, inconsistent);
+        System.out.printf("moves: %,d forced, %,d guesses, %,d blunders%n", grades[FORCED], grades[GUESS], grades[BLUNDER]);
+        System.out.println("Results written to " + summary);
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * SharedBoard is a game of Bombs played by many players at once, on
+ * different threads, with no lock around the board.
+ *
+ * The cells live in an AtomicBoardModel. Every change of a cell, clearing
+ * it or toggling its flag, is a compare-and-set from the state the thread
+ * saw, so of two players racing for a cell exactly one changes it. A flood
+ * fill only counts and spreads from the cells its own thread cleared, so
+ * fills started by several players in the same area split it between them:
+ * every cell is cleared once, counted once, and the area still ends up
+ * cleared as a whole. The counts and status are atomics, and the player
+ * whose move clears the last safe cell wins the game for everyone.
+ *
+ * Unlike a GameEngine, the board is laid out up front from the first
+ * click, since there is no single first reveal to wait for. Moves that
+ * were under way when the game ended may still clear cells.
+ */
+public class SharedBoard {
+
+    // Constants: Neighboring cell relative coordinates
+    private static final int R_NEIGHBOR_COORDINATES[] = {1, 1, 1, 0, -1, -1, -1, 0};
+    private static final int C_NEIGHBOR_COORDINATES[] = {-1, 0, 1, 1, 1, 0, -1, -1};
+
+    private final GameConfig config;
+    private final AtomicBoardModel model;
+    private final AtomicReference<GameEngine.Status> status = new AtomicReference<GameEngine.Status>(GameEngine.Status.PLAYING);
+
+    // Record Keeping Counts
+    private final AtomicInteger cellsCleared = new AtomicInteger();
+    private final AtomicInteger flagCount = new AtomicInteger();
+
+    // Cells each thread is flooding from, reused between its moves
+    private final ThreadLocal<IntList> stacks = ThreadLocal.withInitial(() -> new IntList(64));
+
+    /*
+     * Constructor for SharedBoard, which lays out the board around the
+     * first click. The click itself is left for a player to make.
+     *
+     * @param   config      The level to play
+     * @param   startRow    The row of the first click
+     * @param   startCol    The column of the first click
+     * @param   seed        The seed of the layout
+     */
+    public SharedBoard(GameConfig config, int startRow, int startCol, long seed) {
+        this.config = config;
+        this.model = new AtomicBoardModel(config.getLength(), config.getWidth());
+
+        // Lay out on the heap, then pack the cells in one pass
+        BoardModel layout = new BoardModel(config.getLength(), config.getWidth());
+        MineGenerator.placeBombs(layout, config.getBombCount(), startRow, startCol, MineGenerator.DEFAULT_SAFE_RADIUS, seed);
+        NeighborCounter.fill(layout);
+        byte states[] = new byte[layout.size()];
+        layout.getStates(states);
+        model.setStates(states);
+    }
+
+    /*
+     * Reveals a hidden cell.
+     *
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
+     * @return              The number of cells this move cleared, or -1 if a bomb was revealed
+     */
+    public int reveal(int row, int col) {
+        if (isOver()) {
+            return 0;
+        }
+        int index = model.index(row, col);
+        int state = model.get(index);
+        if ((state & (BoardModel.CLEARED | BoardModel.FLAGGED)) != 0) {
+            return 0;
+        }
+        if ((state & BoardModel.BOMB) != 0) {
+            end(GameEngine.Status.LOST);
+            return -1;
+        }
+        return addCleared(clearFrom(index));
+    }
+
+    /*
+     * Toggles the flag on a hidden cell.
+     *
+     * @param   row         The row of the cell
+     * @param   col         The column of the cell
+     * @return              Whether or not the cell is flagged afterwards
+     */
+    public boolean flag(int row, int col) {
+        int index = model.index(row, col);
+        for (;;) {
+            int state = model.get(index);
+            if (isOver() || (state & BoardModel.CLEARED) != 0) {
+                return (state & BoardModel.FLAGGED) != 0;
+            }
+            int flagged = state ^ BoardModel.FLAGGED;
+            if (model.compareAndSet(index, state, flagged)) {
+                boolean isFlagged = (flagged & BoardModel.FLAGGED) != 0;
+                flagCount.addAndGet(isFlagged ? 1 : -1);
+                return isFlagged;
+            }
+        }
+    }
+
+    /*
+     * Reveals the neighbors of a cleared number whose bombs are all flagged.
+     *
+     * @param   row         The row of the number
+     * @param   col         The column of the number
+     * @return              The number of cells this move cleared, or -1 if a bomb was revealed
+     */
+    public int chord(int row, int col) {
+        if (isOver()) {
+            return 0;
+        }
+        int state = model.get(model.index(row, col));
+        int count = state & BoardModel.COUNT_MASK;
+        if ((state & BoardModel.CLEARED) == 0 || count == 0 || count != getNeighboringFlagCount(row, col)) {
+            return 0;
+        }
+
+        int cleared = 0;
+        for (int i = 0; i < R_NEIGHBOR_COORDINATES.length; i++) {
+            int tempRow = row + R_NEIGHBOR_COORDINATES[i];
+            int tempCol = col + C_NEIGHBOR_COORDINATES[i];
+            if (!model.inBounds(tempRow, tempCol)) {
+                continue;
+            }
+            int neighbor = model.index(tempRow, tempCol);
+            int neighborState = model.get(neighbor);
+            if ((neighborState & (BoardModel.CLEARED | BoardModel.FLAGGED)) != 0) {
+                continue;
+            }
+            if ((neighborState & BoardModel.BOMB) != 0) {
+                // Keep the count true to the board, even though the game is lost
+                cellsCleared.addAndGet(cleared);
+                end(GameEngine.Status.LOST);
+                return -1;
+            }
+            cleared += clearFrom(neighbor);
+        }
+        return addCleared(cleared);
+    }
+
+    /*
+     * Gets the state of the game.
+     *
+     * @return              The status
+     */
+    public GameEngine.Status getStatus() {
+        return status.get();
+    }
+
+    /*
+     * Checks if the game has been won or lost.
+     *
+     * @return              Whether or not the game is over
+     */
+    public boolean isOver() {
+        return status.get() != GameEngine.Status.PLAYING;
+    }
+
+    public int getCellsCleared() {
+        return cellsCleared.get();
+    }
+
+    public int getFlagCount() {
+        return flagCount.get();
+    }
+
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /*
+     * Gets the board, which is safe to read from any thread while it is played.
+     *
+     * @return              The board model
+     */
+    public AtomicBoardModel getModel() {
+        return model;
+    }
+
+    /*
+     * Clears a cell and, if it is empty, its whole empty area. Cells another
+     * thread clears first are left to that thread to count and spread from.
+     * The cell itself is left alone if another thread flags it first, while
+     * the empty area clears flagged cells like a flood fill does.
+     *
+     * @param   index       The index of a safe cell
+     * @return              The number of cells this thread cleared
+     */
+    private int clearFrom(int index) {
+        int state = tryClear(index, BoardModel.BOMB | BoardModel.CLEARED | BoardModel.FLAGGED);
+        if (state < 0) {
+            return 0;
+        }
+        int cleared = 1;
+        if ((state & BoardModel.COUNT_MASK) != 0) {
+            return cleared;
+        }
+
+        IntList stack = stacks.get();
+        stack.add(index);
+        while (stack.size() > 0) {
+            int cell = stack.removeLast();
+            int row = model.rowOf(cell);
+            int col = model.colOf(cell);
+            for (int i = 0; i < R_NEIGHBOR_COORDINATES.length; i++) {
+                int tempRow = row + R_NEIGHBOR_COORDINATES[i];
+                int tempCol = col + C_NEIGHBOR_COORDINATES[i];
+                if (model.inBounds(tempRow, tempCol)) {
+                    int neighbor = model.index(tempRow, tempCol);
+                    int neighborState = tryClear(neighbor, BoardModel.BOMB | BoardModel.CLEARED);
+                    if (neighborState >= 0) {
+                        cleared++;
+                        if ((neighborState & BoardModel.COUNT_MASK) == 0) {
+                            stack.add(neighbor);
+                        }
+                    }
+                }
+            }
+        }
+        return cleared;
+    }
+
+    /*
+     * Clears a cell unless it has any of the rejected bits, checked in the
+     * same compare and set that clears it.
+     *
+     * @param   index       The cell index
+     * @param   reject      The bits that keep the cell from being cleared
+     * @return              The state this thread cleared, or -1 if it did not clear the cell
+     */
+    private int tryClear(int index, int reject) {
+        for (;;) {
+            int state = model.get(index);
+            if ((state & reject) != 0) {
+                return -1;
+            }
+            if (model.compareAndSet(index, state, state | BoardModel.CLEARED)) {
+                return state;
+            }
+        }
+    }
+
+    /*
+     * Counts the flags around a cell.
+     */
+    private int getNeighboringFlagCount(int row, int col) {
+        int flags = 0;
+        for (int i = 0; i < R_NEIGHBOR_COORDINATES.length; i++) {
+            int tempRow = row + R_NEIGHBOR_COORDINATES[i];
+            int tempCol = col + C_NEIGHBOR_COORDINATES[i];
+            if (model.inBounds(tempRow, tempCol) && model.isFlagged(model.index(tempRow, tempCol))) {
+                flags++;
+            }
+        }
+        return flags;
+    }
+
+    /*
+     * Adds the cells a move cleared to the count, and wins the game if they
+     * were the last safe cells.
+     */
+    private int addCleared(int cleared) {
+        if (cleared > 0 && cellsCleared.addAndGet(cleared) >= config.getSafeCellCount()) {
+            end(GameEngine.Status.WON);
+        }
+        return cleared;
+    }
+
+    /*
+     * Ends the game, unless another move ended it first.
+     */
+    private void end(GameEngine.Status outcome) {
+        status.compareAndSet(GameEngine.Status.PLAYING, outcome);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/*
+ * Simulator plays many headless games with a player strategy, spread over
+ * all cores, and reports throughput, win rate and game latency.
+ *
+ * Game n of a run uses the layout seed (seed + n), so a run is repeatable
+ * for a deterministic player regardless of the number of threads.
+ *
+ * Usage: java Simulator [games] [player] [threads] [length x width x bombs ...]
+ *
+ * Without custom levels, every pre-set level is simulated. With
+ * -Dsimulator.noGuess=true every layout is guess free, and the time taken
+ * to generate the layouts is reported too. No guessing is refused for levels
+ * larger than the NoGuessGenerator allows.
+ */
+public class Simulator {
+
+    // Whether or not layouts are guess free
+    private final static boolean NO_GUESS = Boolean.getBoolean("simulator.noGuess");
+
+    // Counts the simulated games for JMX when run from main, or null
+    private static volatile GameMetrics metrics;
+
+    // Results of simulating one level
+    public static class Result {
+        private final GameConfig config;
+        private int games;
+        private int wins;
+        private long elapsedNanos;
+        private final LatencyStats gameLatency = new LatencyStats();
+        private final LatencyStats generationLatency = new LatencyStats();
+
+        Result(GameConfig config) {
+            this.config = config;
+        }
+
+        public GameConfig getConfig() {
+            return config;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public double getWinRate() {
+            return (games == 0) ? 0 : (double) wins / games;
+        }
+
+        public double getGamesPerSecond() {
+            return games / (elapsedNanos / 1e9);
+        }
+
+        public LatencyStats getGameLatency() {
+            return gameLatency;
+        }
+
+        public LatencyStats getGenerationLatency() {
+            return generationLatency;
+        }
+
+        public String toString() {
+            String result = String.format("%-28s %,10d games %,12.0f games/s  win rate %6.2f%%%n    game latency: %s",
+                    config, games, getGamesPerSecond(), getWinRate() * 100, gameLatency.summary());
+            if (generationLatency.getCount() > 0) {
+                result += String.format("%n    no-guess generation: %s", generationLatency.summary());
+            }
+            return result;
+        }
+    }
+
+    /*
+     * Simulates games of one level.
+     *
+     * @param   config      The level to play
+     * @param   games       The number of games to play
+     * @param   threads     The number of threads to play on
+     * @param   players     Creates a player for each thread
+     * @param   seed        The seed of the first game
+     * @return              The results of the run
+     */
+    public static Result run(GameConfig config, int games, int threads, Supplier<Player> players, long seed) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+
+            List<Future<Result>> parts = new ArrayList<Future<Result>>();
+            for (int t = 0; t < threads; t++) {
+                final int first = t;
+                parts.add(executor.submit(() -> play(config, first, games, threads, players.get(), seed)));
+            }
+
+            Result result = new Result(config);
+            for (Future<Result> part : parts) {
+                Result partResult = part.get();
+                result.games += partResult.games;
+                result.wins += partResult.wins;
+                result.gameLatency.merge(partResult.gameLatency);
+                result.generationLatency.merge(partResult.generationLatency);
+            }
+            result.elapsedNanos = System.nanoTime() - start;
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /*
+     * Plays every games-th game starting at the given one, on the calling thread.
+     */
+    private static Result play(GameConfig config, int first, int games, int stride, Player player, long seed) {
+        Result result = new Result(config);
+        GameEngine engine = new GameEngine(config);
+        engine.getGameBoard().setNoGuess(NO_GUESS);
+        engine.setMetrics(metrics);
+
+        for (int n = first; n < games; n += stride) {
+            long start = System.nanoTime();
+            engine.newGame(config, seed + n);
+            SplittableRandom random = new SplittableRandom(seed + n);
+            while (!engine.isOver()) {
+                player.move(engine, random);
+            }
+            result.gameLatency.record(System.nanoTime() - start);
+
+            result.games++;
+            if (engine.getStatus() == GameEngine.Status.WON) {
+                result.wins++;
+            }
+        }
+        if (NO_GUESS) {
+            result.generationLatency.merge(engine.getGameBoard().getNoGuessGenerator().getLatency());
+        }
+        return result;
+    }
+
+    /*
+     * Creates a player strategy by name.
+     *
+     * @param   name        The name of the strategy
+     * @return              A supplier of new players
+     */
+    public static Supplier<Player> players(String name) {
+        if (name.equals("random")) {
+            return RandomPlayer::new;
+        }
+        if (name.equals("solver")) {
+            return SolverPlayer::new;
+        }
+        if (name.equals("probability")) {
+            return ProbabilityPlayer::new;
+        }
+        throw new IllegalArgumentException("Unknown player: " + name);
+    }
+
+    public static void main(String args[]) {
+        int games = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+        String player = (args.length > 1) ? args[1] : "random";
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        List<GameConfig> configs = new ArrayList<GameConfig>();
+        for (int i = 3; i < args.length; i++) {
+            String size[] = args[i].split("x");
+            GameConfig config = GameConfig.custom(Integer.parseInt(size[0]), Integer.parseInt(size[1]), Integer.parseInt(size[2]));
+            if (NO_GUESS && !NoGuessGenerator.supports(config.getLength(), config.getWidth())) {
+                throw new IllegalArgumentException("Guess free boards have at most " + NoGuessGenerator.MAX_CELLS + " cells: " + args[i]);
+            }
+            configs.add(config);
+        }
+        if (configs.isEmpty()) {
+            configs.add(GameConfig.BEGINNER);
+            configs.add(GameConfig.INTERMEDIATE);
+            configs.add(GameConfig.EXPERT);
+        }
+
+        metrics = GameMetrics.register("simulator");
+        System.out.println("Simulating " + games + " games per level with the " + player + " player on " + threads + " threads");
+        for (GameConfig config : configs) {
+            System.out.println(run(config, games, threads, players(player), 0));
+        }
+    }
+}
@@ -0,0 +1,433 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+
+/*
+ * Solver finds the hidden cells that are provably safe or provably bombs,
+ * reading only what a player can see: the counts of cleared cells and the
+ * flags. Flags are taken to be right.
+ *
+ * Every cleared number next to hidden cells gives a constraint: its hidden,
+ * unflagged neighbors hold exactly its count minus its flags in bombs. Only
+ * those frontier cells are indexed, by a dense id, so a solve costs one scan
+ * of the board plus work proportional to the frontier.
+ *
+ * A constraint keeps its undecided cells as a mask over the 3 x 3 window
+ * around its number, one bit per cell with rows 5 bits apart:
+ *
+ *       0  1  2
+ *       5  6  7
+ *      10 11 12
+ *
+ * Two constraints can only share cells if their numbers are at most 2 rows
+ * and 2 columns apart, and moving a mask by that offset is a single shift,
+ * with the padding bits catching cells that leave the window.
+ *
+ * Two rules are applied until neither finds anything new:
+ *
+ *      single      A constraint with no bombs left is all safe, one with as
+ *                  many bombs left as undecided cells is all bombs.
+ *      pairwise    Two overlapping constraints bound the bombs in their
+ *                  overlap, which can decide the cells only one of them has.
+ *                  This covers the subset rule and the 1-2 pattern.
+ *
+ * A constraint is only checked again when one of its cells is decided.
+ * A Solver keeps its buffers between solves and is not thread safe.
+ */
+public class Solver {
+
+    // Deductions about a frontier cell
+    public final static byte UNKNOWN = 0;
+    public final static byte SAFE = 1;
+    public final static byte BOMB = 2;
+
+    // Neighbors of a cell, so the most constraints on a cell
+    private final static int MAX_NEIGHBORS = 8;
+
+    // Layout of a constraint window mask
+    private final static int STRIDE = 5;
+    private final static int WINDOW = 0x7 | 0x7 << STRIDE | 0x7 << (2 * STRIDE);
+
+    // Queued flags of a constraint
+    private final static byte QUEUED_SINGLE = 1;
+    private final static byte QUEUED_PAIR = 2;
+
+    // Width of the board being solved
+    private int width;
+
+    // Constraints: the index of the number, its undecided cells and the bombs among them
+    private int constraintCenters[] = new int[64];
+    private int constraintMasks[] = new int[64];
+    private int constraintBombs[] = new int[64];
+    private byte constraintQueued[] = new byte[64];
+    private int pairStamps[] = new int[64];
+    private int constraintCount;
+
+    // Frontier cells by dense id, with the constraints on each, and the id of
+    // every board cell (-1 off the frontier)
+    private int frontierIds[] = new int[0];
+    private int frontierCells[] = new int[64];
+    private byte deductions[] = new byte[64];
+    private int cellConstraints[] = new int[MAX_NEIGHBORS * 64];
+    private int cellConstraintCounts[] = new int[64];
+    private int frontierSize;
+
+    // Constraints waiting for each rule
+    private final IntList singleQueue = new IntList(64);
+    private final IntList pairQueue = new IntList(64);
+    private int stamp;
+
+    // Board indices of the deduced cells, in the order they were found
+    private final IntList safeCells = new IntList(64);
+    private final IntList bombs = new IntList(64);
+
+    /*
+     * Solves the visible state of a board.
+     *
+     * @param   model       The board to read
+     * @return              The number of cells deduced
+     */
+    public int solve(BoardModel model) {
+        reset(model);
+        readConstraints(model);
+
+        for (int c = 0; c < constraintCount; c++) {
+            queue(c, QUEUED_SINGLE, singleQueue);
+            queue(c, QUEUED_PAIR, pairQueue);
+        }
+
+        // Cheap single checks first, then one pair check at a time
+        while (true) {
+            if (singleQueue.size() > 0) {
+                int c = singleQueue.removeLast();
+                constraintQueued[c] &= ~QUEUED_SINGLE;
+                applySingle(c);
+            }
+            else if (pairQueue.size() > 0) {
+                int c = pairQueue.removeLast();
+                constraintQueued[c] &= ~QUEUED_PAIR;
+                applyPairs(c);
+            }
+            else {
+                break;
+            }
+        }
+        return safeCells.size() + bombs.size();
+    }
+
+    /*
+     * Gets the cells proven safe by the last solve.
+     *
+     * @return              The board indices of the safe cells
+     */
+    public IntList getSafeCells() {
+        return safeCells;
+    }
+
+    /*
+     * Gets the cells proven to be bombs by the last solve.
+     *
+     * @return              The board indices of the bombs
+     */
+    public IntList getBombs() {
+        return bombs;
+    }
+
+    /*
+     * Gets the deduction about a cell from the last solve.
+     *
+     * @param   index       The index of the cell
+     * @return              UNKNOWN, SAFE or BOMB
+     */
+    public byte getDeduction(int index) {
+        int id = (index < frontierIds.length) ? frontierIds[index] : -1;
+        return (id == -1) ? UNKNOWN : deductions[id];
+    }
+
+    /*
+     * Gets the number of hidden cells next to a number in the last solve.
+     *
+     * @return              The frontier size
+     */
+    public int getFrontierSize() {
+        return frontierSize;
+    }
+
+    /*
+     * Gets the number of numbers next to hidden cells in the last solve.
+     *
+     * @return              The constraint count
+     */
+    public int getConstraintCount() {
+        return constraintCount;
+    }
+
+    /*
+     * Builds a constraint from every cleared number next to hidden cells.
+     */
+    private void readConstraints(BoardModel model) {
+        int length = model.getLength();
+
+        for (int row = 0; row < length; row++) {
+            for (int col = 0; col < width; col++) {
+                int index = row * width + col;
+                if (!model.isCleared(index) || model.getNeighboringBombCount(index) == 0) {
+                    continue;
+                }
+
+                int mask = 0;
+                int bombsLeft = model.getNeighboringBombCount(index);
+                for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, length - 1); r++) {
+                    for (int k = Math.max(col - 1, 0); k <= Math.min(col + 1, width - 1); k++) {
+                        int neighbor = r * width + k;
+                        if (model.isFlagged(neighbor)) {
+                            bombsLeft--;
+                        }
+                        else if (!model.isCleared(neighbor)) {
+                            mask |= bit(r - row, k - col);
+                        }
+                    }
+                }
+
+                // Nothing hidden, or flags that contradict the count
+                int size = Integer.bitCount(mask);
+                if (size == 0 || bombsLeft < 0 || bombsLeft > size) {
+                    continue;
+                }
+
+                int c = constraintCount++;
+                ensureConstraintCapacity(constraintCount);
+                constraintCenters[c] = index;
+                constraintMasks[c] = mask;
+                constraintBombs[c] = bombsLeft;
+                constraintQueued[c] = 0;
+                pairStamps[c] = -1;
+
+                for (int cells = mask; cells != 0; cells &= cells - 1) {
+                    int id = frontierId(cellAt(index, Integer.numberOfTrailingZeros(cells)));
+                    cellConstraints[id * MAX_NEIGHBORS + cellConstraintCounts[id]++] = c;
+                }
+            }
+        }
+    }
+
+    /*
+     * Decides a constraint on its own.
+     */
+    private void applySingle(int c) {
+        int mask = constraintMasks[c];
+        int bombsLeft = constraintBombs[c];
+        if (mask == 0) {
+            return;
+        }
+        if (bombsLeft == 0) {
+            decideAll(c, mask, SAFE);
+        }
+        else if (bombsLeft == Integer.bitCount(mask)) {
+            decideAll(c, mask, BOMB);
+        }
+    }
+
+    /*
+     * Checks a constraint against every constraint it overlaps.
+     */
+    private void applyPairs(int a) {
+        int stampA = stamp++;
+        for (int cells = constraintMasks[a]; cells != 0; cells &= cells - 1) {
+            int id = frontierIds[cellAt(constraintCenters[a], Integer.numberOfTrailingZeros(cells))];
+            for (int j = 0; j < cellConstraintCounts[id]; j++) {
+                int b = cellConstraints[id * MAX_NEIGHBORS + j];
+
+                // A queued partner checks this pair itself when its turn comes
+                if (b != a && pairStamps[b] != stampA && (constraintQueued[b] & QUEUED_PAIR) == 0) {
+                    pairStamps[b] = stampA;
+                    applyPair(a, b);
+                }
+            }
+        }
+    }
+
+    /*
+     * Bounds the bombs in the overlap of two constraints, then decides the
+     * cells outside the overlap where the bounds force them.
+     */
+    private void applyPair(int a, int b) {
+        int centerA = constraintCenters[a];
+        int centerB = constraintCenters[b];
+        int shift = (centerB / width - centerA / width) * STRIDE + (centerB % width - centerA % width);
+
+        // Each mask moved into the window of the other
+        int maskA = constraintMasks[a];
+        int maskB = constraintMasks[b];
+        int bInA = move(maskB, shift);
+        int aInB = move(maskA, -shift);
+
+        int both = Integer.bitCount(maskA & bInA);
+        if (both == 0) {
+            return;
+        }
+        int onlyA = Integer.bitCount(maskA) - both;
+        int onlyB = Integer.bitCount(maskB) - both;
+        int bombsA = constraintBombs[a];
+        int bombsB = constraintBombs[b];
+
+        // Bombs the overlap can hold, given both counts
+        int overlapMax = Math.min(both, Math.min(bombsA, bombsB));
+        int overlapMin = Math.max(0, Math.max(bombsA - onlyA, bombsB - onlyB));
+
+        decideOutside(a, maskA & ~bInA, onlyA, bombsA, overlapMin, overlapMax);
+        decideOutside(b, maskB & ~aInB, onlyB, bombsB, overlapMin, overlapMax);
+    }
+
+    /*
+     * Decides the cells of a constraint outside an overlap when the bombs
+     * left for them are forced to none or to all of them.
+     */
+    private void decideOutside(int c, int outside, int outsideCount, int bombsLeft, int overlapMin, int overlapMax) {
+        if (outsideCount == 0) {
+            return;
+        }
+        if (bombsLeft - overlapMax == outsideCount) {
+            decideAll(c, outside, BOMB);
+        }
+        else if (bombsLeft - overlapMin == 0) {
+            decideAll(c, outside, SAFE);
+        }
+    }
+
+    /*
+     * Decides the undecided cells of a mask of a constraint.
+     */
+    private void decideAll(int c, int mask, byte value) {
+        int center = constraintCenters[c];
+        for (int cells = mask; cells != 0; cells &= cells - 1) {
+            int id = frontierIds[cellAt(center, Integer.numberOfTrailingZeros(cells))];
+            if (deductions[id] == UNKNOWN) {
+                decide(id, value);
+            }
+        }
+    }
+
+    /*
+     * Records a deduction, takes the cell out of its constraints and queues
+     * them again.
+     */
+    private void decide(int id, byte value) {
+        int index = frontierCells[id];
+        deductions[id] = value;
+        if (value == SAFE) {
+            safeCells.add(index);
+        }
+        else {
+            bombs.add(index);
+        }
+
+        for (int j = 0; j < cellConstraintCounts[id]; j++) {
+            int c = cellConstraints[id * MAX_NEIGHBORS + j];
+            int center = constraintCenters[c];
+            constraintMasks[c] &= ~bit(index / width - center / width, index % width - center % width);
+            if (value == BOMB) {
+                constraintBombs[c]--;
+            }
+            queue(c, QUEUED_SINGLE, singleQueue);
+            queue(c, QUEUED_PAIR, pairQueue);
+        }
+    }
+
+    /*
+     * Gets the window mask bit of a cell, by its offset from the number.
+     */
+    private static int bit(int dRow, int dCol) {
+        return 1 << ((dRow + 1) * STRIDE + dCol + 1);
+    }
+
+    /*
+     * Gets the board index of a window mask bit.
+     */
+    private int cellAt(int center, int bit) {
+        return center + (bit / STRIDE - 1) * width + (bit % STRIDE - 1);
+    }
+
+    /*
+     * Moves a window mask by a shift, dropping the cells that leave the window.
+     */
+    private static int move(int mask, int shift) {
+        return ((shift >= 0) ? mask << shift : mask >>> -shift) & WINDOW;
+    }
+
+    /*
+     * Adds a constraint to a queue unless it is already waiting there.
+     */
+    private void queue(int c, byte flag, IntList queue) {
+        if ((constraintQueued[c] & flag) == 0) {
+            constraintQueued[c] |= flag;
+            queue.add(c);
+        }
+    }
+
+    /*
+     * Gets the dense id of a frontier cell, adding it on first sight.
+     */
+    private int frontierId(int index) {
+        int id = frontierIds[index];
+        if (id != -1) {
+            return id;
+        }
+
+        id = frontierSize++;
+        if (id == frontierCells.length) {
+            int capacity = id * 2;
+            frontierCells = Arrays.copyOf(frontierCells, capacity);
+            deductions = Arrays.copyOf(deductions, capacity);
+            cellConstraintCounts = Arrays.copyOf(cellConstraintCounts, capacity);
+            cellConstraints = Arrays.copyOf(cellConstraints, capacity * MAX_NEIGHBORS);
+        }
+        frontierIds[index] = id;
+        frontierCells[id] = index;
+        deductions[id] = UNKNOWN;
+        cellConstraintCounts[id] = 0;
+        return id;
+    }
+
+    /*
+     * Makes room for a number of constraints.
+     */
+    private void ensureConstraintCapacity(int count) {
+        if (count <= constraintMasks.length) {
+            return;
+        }
+        int capacity = constraintMasks.length * 2;
+        constraintCenters = Arrays.copyOf(constraintCenters, capacity);
+        constraintMasks = Arrays.copyOf(constraintMasks, capacity);
+        constraintBombs = Arrays.copyOf(constraintBombs, capacity);
+        constraintQueued = Arrays.copyOf(constraintQueued, capacity);
+        pairStamps = Arrays.copyOf(pairStamps, capacity);
+    }
+
+    /*
+     * Forgets the last solve, keeping the buffers.
+     */
+    private void reset(BoardModel model) {
+        if (frontierIds.length != model.size()) {
+            frontierIds = new int[model.size()];
+            Arrays.fill(frontierIds, -1);
+        }
+        else {
+            for (int id = 0; id < frontierSize; id++) {
+                frontierIds[frontierCells[id]] = -1;
+            }
+        }
+        width = model.getWidth();
+        constraintCount = 0;
+        frontierSize = 0;
+        singleQueue.clear();
+        pairQueue.clear();
+        safeCells.clear();
+        bombs.clear();
+        stamp = 0;
+    }
+}
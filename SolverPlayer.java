@@ -0,0 +1,41 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+
+/*
+ * SolverPlayer flags every cell the Solver proves to be a bomb and reveals
+ * every cell it proves safe. It only guesses, like the RandomPlayer, when
+ * nothing can be proven.
+ */
+public class SolverPlayer implements Player {
+
+    private final Solver solver = new Solver();
+    private final RandomPlayer guesser = new RandomPlayer();
+
+    public void move(GameEngine engine, SplittableRandom random) {
+        BoardModel model = engine.getModel();
+        solver.solve(model);
+
+        IntList bombs = solver.getBombs();
+        for (int i = 0; i < bombs.size(); i++) {
+            int index = bombs.get(i);
+            if (!model.isFlagged(index)) {
+                engine.flag(model.rowOf(index), model.colOf(index));
+            }
+        }
+
+        IntList safeCells = solver.getSafeCells();
+        if (safeCells.size() == 0) {
+            guesser.move(engine, random);
+            return;
+        }
+        for (int i = 0; i < safeCells.size() && !engine.isOver(); i++) {
+            int index = safeCells.get(i);
+            engine.reveal(model.rowOf(index), model.colOf(index));
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.VarHandle;
+
+/*
+ * SpectatorStream lets any number of spectators watch a live game without
+ * slowing it down.
+ *
+ * The GameEngine publishes what each move changed once, into a ring of
+ * entries shared by every spectator, and moves a sequence number on. Each
+ * spectator keeps its own position in the ring and reads up to the
+ * sequence whenever it likes. The player never waits: once a spectator
+ * falls a whole ring behind, its entries are overwritten, and it catches
+ * up from the latest snapshot of the board instead. The stream takes a
+ * snapshot every half ring and when a game starts or ends, so one is always
+ * recent enough to carry on from.
+ *
+ * An entry is a long, with its kind in the top byte:
+ *
+ *      CELL        the cell index shifted left by 8, or'ed with its state
+ *      STATUS      the ordinal of the new status of the game
+ *      NEW_GAME    the length shifted left by 28, or'ed with the width, so
+ *                  boards are at most MAX_SIDE - 1 cells on a side
+ *      BOARD       the whole board changed, so carry on from the snapshot after it
+ *
+ * States are as the player sees them, so spectators cannot see the bombs
+ * until the game is over and the whole board is shown. A snapshot is every
+ * cell state, run length encoded as varint run lengths and states.
+ *
+ * One thread publishes, the one playing the game. Each spectator is read
+ * by one thread at a time.
+ */
+public class SpectatorStream {
+
+    // Entry Kinds
+    private final static long CELL = 0;
+    private final static long STATUS = 1L << 56;
+    private final static long NEW_GAME = 2L << 56;
+    private final static long BOARD = 3L << 56;
+    private final static long KIND_MASK = 0xFFL << 56;
+    private final static long PAYLOAD_MASK = ~KIND_MASK;
+
+    // Bits of a NEW_GAME entry per side of the board, and the sides they fit
+    private final static int SIDE_BITS = 28;
+    public final static int MAX_SIDE = 1 << SIDE_BITS;
+
+    // Ring of entries, a power of two long
+    private final long entries[];
+    private final int mask;
+
+    // Entries published so far; entry n is in slot (n & mask)
+    private volatile long published = 0;
+
+    // The latest snapshot, never older than half a ring
+    private volatile Snapshot snapshot;
+
+    // Producer State: the board being played and its status when last published
+    private BoardModel model;
+    private GameEngine.Status status = GameEngine.Status.READY;
+    private long nextSnapshot;
+
+    // A board as spectators see it, at a point of the stream
+    private static class Snapshot {
+        final long sequence;
+        final int length;
+        final int width;
+        final GameEngine.Status status;
+        final byte cells[];
+
+        Snapshot(long sequence, int length, int width, GameEngine.Status status, byte cells[]) {
+            this.sequence = sequence;
+            this.length = length;
+            this.width = width;
+            this.status = status;
+            this.cells = cells;
+        }
+    }
+
+    /*
+     * Constructor for SpectatorStream
+     */
+    public SpectatorStream() {
+        this(1 << 16);
+    }
+
+    /*
+     * Constructor for SpectatorStream
+     *
+     * @param   capacity    The entries kept for spectators, rounded up to a power of two
+     */
+    public SpectatorStream(int capacity) {
+        if (capacity < 2 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid stream capacity: " + capacity);
+        }
+        entries = new long[Integer.highestOneBit(capacity - 1) << 1];
+        mask = entries.length - 1;
+    }
+
+    /*
+     * Starts a new game, which spectators start over from.
+     *
+     * @param   model       The board the game is played on
+     * @throws  IllegalArgumentException if a side of the board is MAX_SIDE or longer
+     */
+    public void newGame(BoardModel model) {
+        if (model.getLength() >= MAX_SIDE || model.getWidth() >= MAX_SIDE) {
+            throw new IllegalArgumentException("Board too large to stream: " + model.getLength() + " x " + model.getWidth());
+        }
+        this.model = model;
+        this.status = GameEngine.Status.READY;
+        append(NEW_GAME | ((long) model.getLength() << SIDE_BITS) | model.getWidth());
+        takeSnapshot();
+    }
+
+    /*
+     * Publishes the cells a move changed, and the status of the game if it
+     * changed. A move that ends the game shows the whole board, and taking
+     * back the end hides it again. A move that changed the whole board is
+     * published as a snapshot.
+     *
+     * @param   delta       The cells the move changed
+     * @param   status      The status of the game after the move
+     */
+    public void publish(CellDelta delta, GameEngine.Status status) {
+        if (model == null) {
+            throw new IllegalStateException("No game started");
+        }
+        if (delta.isAll()) {
+            this.status = status;
+            append(BOARD);
+            takeSnapshot();
+            return;
+        }
+        boolean over = isOver(status);
+        for (int i = 0; i < delta.size(); i++) {
+            append(CELL | ((long) delta.getIndex(i) << 8) | visibleState(delta.getState(i), over));
+        }
+        boolean shown = false;
+        if (status != this.status) {
+            shown = over != isOver(this.status);
+            this.status = status;
+            append(STATUS | status.ordinal());
+        }
+        if (shown) {
+            for (int index = 0; index < model.size(); index++) {
+                if (!model.isCleared(index)) {
+                    append(CELL | ((long) index << 8) | visibleState(model.get(index), over));
+                }
+            }
+        }
+        if (shown || published >= nextSnapshot) {
+            takeSnapshot();
+        }
+    }
+
+    /*
+     * Gets the number of entries published so far.
+     *
+     * @return              The sequence of the next entry
+     */
+    public long getPublished() {
+        return published;
+    }
+
+    /*
+     * Adds a spectator, who starts from the latest snapshot.
+     *
+     * @return              The spectator
+     */
+    public Spectator subscribe() {
+        return new Spectator();
+    }
+
+    /*
+     * Writes an entry into the ring and makes it visible. The slot is only
+     * overwritten once the sequence has moved past what it held, which is
+     * what spectators check to spot an overwrite.
+     */
+    private void append(long entry) {
+        long sequence = published;
+        VarHandle.storeStoreFence();
+        entries[(int) sequence & mask] = entry;
+        published = sequence + 1;
+    }
+
+    /*
+     * Snapshots the board as spectators see it now.
+     */
+    private void takeSnapshot() {
+        boolean over = isOver(status);
+        ByteArrayOutputStream cells = new ByteArrayOutputStream(64);
+        int run = 0;
+        int runState = -1;
+        for (int index = 0; index < model.size(); index++) {
+            int state = visibleState(model.get(index), over);
+            if (state != runState && run > 0) {
+                writeRun(cells, run, runState);
+                run = 0;
+            }
+            runState = state;
+            run++;
+        }
+        writeRun(cells, run, runState);
+
+        long sequence = published;
+        snapshot = new Snapshot(sequence, model.getLength(), model.getWidth(), status, cells.toByteArray());
+        nextSnapshot = sequence + entries.length / 2;
+    }
+
+    private static boolean isOver(GameEngine.Status status) {
+        return status == GameEngine.Status.WON || status == GameEngine.Status.LOST;
+    }
+
+    /*
+     * Gets the state of a cell as spectators see it. The end of the game
+     * shows the hidden cells, and leaves the cleared cells as they were.
+     */
+    private static int visibleState(int state, boolean over) {
+        return GameProtocol.visibleState(state, over && (state & BoardModel.CLEARED) == 0);
+    }
+
+    private static void writeRun(ByteArrayOutputStream out, int run, int state) {
+        while ((run & ~0x7F) != 0) {
+            out.write((run & 0x7F) | 0x80);
+            run >>>= 7;
+        }
+        out.write(run);
+        out.write(state);
+    }
+
+    // A spectator reading the stream at its own pace
+    public class Spectator {
+
+        // The board as this spectator has seen it
+        private BoardModel board;
+        private GameEngine.Status status;
+
+        // The next entry to read
+        private long next;
+
+        // Times the spectator fell behind and caught up from a snapshot
+        private int resyncs = 0;
+
+        private Spectator() {
+            resync();
+            resyncs = 0;
+        }
+
+        /*
+         * Reads every entry published since the last poll, or catches up
+         * from a snapshot if the spectator fell too far behind.
+         *
+         * @return              The number of entries read
+         */
+        public int poll() {
+            long end = published;
+            if (end - next > entries.length) {
+                resync();
+                end = published;
+            }
+
+            int read = 0;
+            while (next < end) {
+                long entry = entries[(int) next & mask];
+
+                // The entry may have been overwritten while reading it: the
+                // slot holds entry next + length as soon as the sequence gets there
+                VarHandle.acquireFence();
+                if (published - entries.length >= next) {
+                    resync();
+                    return read;
+                }
+
+                // The whole board changed, so carry on from the snapshot taken after it, once there is one
+                if ((entry & KIND_MASK) == BOARD) {
+                    Snapshot latest = snapshot;
+                    if (latest.sequence <= next) {
+                        return read;
+                    }
+                    load(latest);
+                    read++;
+                    continue;
+                }
+                apply(entry);
+                next++;
+                read++;
+            }
+            return read;
+        }
+
+        public BoardModel getBoard() {
+            return board;
+        }
+
+        public GameEngine.Status getStatus() {
+            return status;
+        }
+
+        /*
+         * Gets the number of entries published that this spectator has not read.
+         *
+         * @return              How far behind the spectator is
+         */
+        public long getLag() {
+            return published - next;
+        }
+
+        /*
+         * Gets how many times the spectator fell a whole ring behind.
+         *
+         * @return              The number of snapshots caught up from
+         */
+        public int getResyncs() {
+            return resyncs;
+        }
+
+        private void apply(long entry) {
+            long payload = entry & PAYLOAD_MASK;
+            long kind = entry & KIND_MASK;
+            if (kind == CELL) {
+                board.set((int) (payload >>> 8), (int) payload & 0xFF);
+            }
+            else if (kind == STATUS) {
+                status = GameEngine.Status.values()[(int) payload];
+            }
+            else {
+                int length = (int) (payload >>> SIDE_BITS);
+                int width = (int) (payload & (MAX_SIDE - 1));
+                if (board == null || board.getLength() != length || board.getWidth() != width) {
+                    board = new BoardModel(length, width);
+                }
+                else {
+                    board.reset();
+                }
+                status = GameEngine.Status.READY;
+            }
+        }
+
+        /*
+         * Replaces the board with the latest snapshot and carries on after
+         * it, having fallen behind.
+         */
+        private void resync() {
+            Snapshot latest = snapshot;
+            if (latest == null) {
+                throw new IllegalStateException("No game started");
+            }
+            load(latest);
+            resyncs++;
+        }
+
+        /*
+         * Replaces the board with a snapshot and carries on after it.
+         *
+         * @param   latest      The snapshot, taken at or after the entry being read
+         */
+        private void load(Snapshot latest) {
+            if (board == null || board.getLength() != latest.length || board.getWidth() != latest.width) {
+                board = new BoardModel(latest.length, latest.width);
+            }
+            byte cells[] = latest.cells;
+            int index = 0;
+            int position = 0;
+            while (position < cells.length) {
+                int run = 0;
+                for (int shift = 0; ; shift += 7) {
+                    int b = cells[position++] & 0xFF;
+                    run |= (b & 0x7F) << shift;
+                    if ((b & 0x80) == 0) {
+                        break;
+                    }
+                }
+                int state = cells[position++] & 0xFF;
+                for (int end = index + run; index < end; index++) {
+                    board.set(index, state);
+                }
+            }
+            status = latest.status;
+            next = latest.sequence;
+        }
+    }
+}
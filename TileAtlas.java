@@ -0,0 +1,188 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * TileAtlas decodes every image in res/ exactly once, into a single sprite
+ * sheet shared by the whole process.
+ *
+ * Tiles sit side by side in one row of the sheet. Renderers draw a tile by
+ * copying its square out of the sheet, and scaled copies of the sheet are
+ * cached per tile size so zoomed painting never scales on the fly.
+ */
+public class TileAtlas {
+
+    // Size of a single tile in the resources
+    public final static int TILE_SIZE = 30;
+
+    // Tile Constants
+    public final static int NUMBER_0 = 0;
+    public final static int CELL = 9;
+    public final static int BOMB = 10;
+    public final static int FLAG = 11;
+    public final static int SMILE = 12;
+    public final static int FROWN = 13;
+    public final static int COOL = 14;
+
+    // Resource for every tile, in sheet order
+    private final static String TILE_RESOURCES[] = {
+            "res/0.jpg", "res/1.jpg", "res/2.jpg", "res/3.jpg", "res/4.jpg",
+            "res/5.jpg", "res/6.jpg", "res/7.jpg", "res/8.jpg",
+            "res/Cell.jpg", "res/Bomb.jpg", "res/Flag.jpg",
+            "res/Smile.jpg", "res/Frown.jpg", "res/Cool.jpg"
+    };
+
+    // The sprite sheet at its original size
+    private final BufferedImage sheet;
+
+    // Copies of the sheet scaled to other tile sizes
+    private final Map<Integer, BufferedImage> scaledSheets = new HashMap<Integer, BufferedImage>();
+
+    // Icons for the tiles shown on buttons
+    private final Icon icons[] = new Icon[TILE_RESOURCES.length];
+
+    /*
+     * Holder for the process wide atlas, loaded on first use.
+     */
+    private static class Holder {
+        private static final TileAtlas INSTANCE = new TileAtlas();
+    }
+
+    /*
+     * Gets the shared tile atlas.
+     *
+     * @return          The process wide atlas
+     */
+    public static TileAtlas getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /*
+     * Constructor for TileAtlas
+     */
+    private TileAtlas() {
+        sheet = createImage(TILE_RESOURCES.length * TILE_SIZE, TILE_SIZE);
+
+        Graphics2D g = sheet.createGraphics();
+        ClassLoader loader = getClass().getClassLoader();
+        for (int i = 0; i < TILE_RESOURCES.length; i++) {
+            g.drawImage(loadImage(loader, TILE_RESOURCES[i]), i * TILE_SIZE, 0, TILE_SIZE, TILE_SIZE, null);
+        }
+        g.dispose();
+
+        scaledSheets.put(TILE_SIZE, sheet);
+    }
+
+    /*
+     * Gets the tile to paint for a cell with the given packed state.
+     *
+     * @param   state       The packed cell state
+     * @return              The tile constant for the cell
+     */
+    public static int tileFor(int state) {
+        if ((state & (BoardModel.CLEARED | BoardModel.REVEALED)) == 0) {
+            return (state & BoardModel.FLAGGED) != 0 ? FLAG : CELL;
+        }
+        if ((state & BoardModel.BOMB) != 0) {
+            return BOMB;
+        }
+        return NUMBER_0 + (state & BoardModel.COUNT_MASK);
+    }
+
+    /*
+     * Gets the sprite sheet scaled to the given tile size.
+     *
+     * @param   size        The size of a tile in pixels
+     * @return              The sheet, with tiles of the given size
+     */
+    public synchronized BufferedImage getSheet(int size) {
+        BufferedImage scaled = scaledSheets.get(size);
+        if (scaled == null) {
+            scaled = createImage(TILE_RESOURCES.length * size, size);
+            Graphics2D g = scaled.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            for (int i = 0; i < TILE_RESOURCES.length; i++) {
+                // Scale tile by tile so neighbors do not bleed into each other
+                g.drawImage(sheet, i * size, 0, (i + 1) * size, size,
+                        i * TILE_SIZE, 0, (i + 1) * TILE_SIZE, TILE_SIZE, null);
+            }
+            g.dispose();
+            scaledSheets.put(size, scaled);
+        }
+        return scaled;
+    }
+
+    /*
+     * Draws a tile out of a sheet.
+     *
+     * @param   g           The graphics context to draw on
+     * @param   sheet       The sheet from getSheet(size)
+     * @param   tile        The tile constant to draw
+     * @param   x           The x coordinate to draw at
+     * @param   y           The y coordinate to draw at
+     * @param   size        The size of a tile in the sheet
+     */
+    public static void drawTile(Graphics g, BufferedImage sheet, int tile, int x, int y, int size) {
+        int sx = tile * size;
+        g.drawImage(sheet, x, y, x + size, y + size, sx, 0, sx + size, size, null);
+    }
+
+    /*
+     * Gets an icon showing a single tile, for use on buttons.
+     *
+     * @param   tile        The tile constant
+     * @return              The icon for the tile
+     */
+    public synchronized Icon getIcon(int tile) {
+        if (icons[tile] == null) {
+            icons[tile] = new ImageIcon(sheet.getSubimage(tile * TILE_SIZE, 0, TILE_SIZE, TILE_SIZE));
+        }
+        return icons[tile];
+    }
+
+    /*
+     * Creates an image in the format of the screen, so drawing it is a plain copy.
+     *
+     * @param   width       The width of the image
+     * @param   height      The height of the image
+     * @return              The new image
+     */
+    private static BufferedImage createImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        return config.createCompatibleImage(width, height, Transparency.OPAQUE);
+    }
+
+    /*
+     * Decodes an image from the resources.
+     *
+     * @param   loader      The loader to find the resource with
+     * @param   name        The resource name of the image
+     * @return              The decoded image
+     */
+    private static BufferedImage loadImage(ClassLoader loader, String name) {
+        try (InputStream in = loader.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing resource: " + name);
+            }
+            return ImageIO.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read resource: " + name, e);
+        }
+    }
+}
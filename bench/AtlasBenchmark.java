@@ -0,0 +1,77 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+/*
+ * AtlasBenchmark measures the startup time and allocation of loading the
+ * cell images for a board, comparing the old twelve ImageIcon loads per cell
+ * with the shared TileAtlas.
+ *
+ * Usage: java -cp <classes>:. AtlasBenchmark [length] [width]
+ */
+public class AtlasBenchmark {
+
+    // The images every Cell used to load for itself
+    private final static String CELL_RESOURCES[] = {
+            "res/Cell.jpg", "res/Bomb.jpg", "res/Flag.jpg",
+            "res/0.jpg", "res/1.jpg", "res/2.jpg", "res/3.jpg", "res/4.jpg",
+            "res/5.jpg", "res/6.jpg", "res/7.jpg", "res/8.jpg"
+    };
+
+    private final static com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String args[]) {
+        int length = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+        int width = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        int cells = length * width;
+
+        // The atlas runs first so its one time decode is part of the measurement
+        long startTime = System.nanoTime();
+        long startBytes = allocatedBytes();
+        TileAtlas atlas = TileAtlas.getInstance();
+        BufferedImage sheet = atlas.getSheet(TileAtlas.TILE_SIZE);
+        BufferedImage target = new BufferedImage(width * TileAtlas.TILE_SIZE, length * TileAtlas.TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics g = target.getGraphics();
+        for (int i = 0; i < cells; i++) {
+            TileAtlas.drawTile(g, sheet, TileAtlas.CELL, (i % width) * TileAtlas.TILE_SIZE, (i / width) * TileAtlas.TILE_SIZE, TileAtlas.TILE_SIZE);
+        }
+        g.dispose();
+        report("TileAtlas", cells, System.nanoTime() - startTime, allocatedBytes() - startBytes);
+
+        startTime = System.nanoTime();
+        startBytes = allocatedBytes();
+        ClassLoader loader = AtlasBenchmark.class.getClassLoader();
+        Icon icons[] = new Icon[CELL_RESOURCES.length];
+        for (int i = 0; i < cells; i++) {
+            for (int j = 0; j < CELL_RESOURCES.length; j++) {
+                icons[j] = new ImageIcon(loader.getResource(CELL_RESOURCES[j]));
+            }
+        }
+        report("ImageIcon per Cell", cells, System.nanoTime() - startTime, allocatedBytes() - startBytes);
+    }
+
+    /*
+     * Gets the bytes allocated so far by the current thread.
+     *
+     * @return          The allocated bytes
+     */
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /*
+     * Prints a single benchmark result.
+     */
+    private static void report(String name, int cells, long nanos, long bytes) {
+        System.out.printf("%-20s %8d cells %10.2f ms %12d bytes allocated %8.1f bytes/cell%n",
+                name, cells, nanos / 1e6, bytes, (double) bytes / cells);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+
+/*
+ * Bench is a small benchmark harness for the game engine.
+ *
+ * A benchmark case is run for a number of warmup iterations and then for
+ * the measured iterations. Each iteration first calls setUp, which is not
+ * timed, then times run. Results are consumed into a sink so the JIT cannot
+ * drop the work, and reported as time per operation.
+ */
+public class Bench {
+
+    // A single benchmark case
+    public interface Case {
+
+        /*
+         * Prepares an iteration. Not timed.
+         */
+        default void setUp() {}
+
+        /*
+         * Runs one iteration.
+         *
+         * @return          A result to consume
+         */
+        long run();
+    }
+
+    // Default iteration counts, overridable with -Dbench.warmup and -Dbench.iterations
+    private final static int WARMUP = Integer.getInteger("bench.warmup", 5);
+    private final static int ITERATIONS = Integer.getInteger("bench.iterations", 10);
+
+    // Consumes results so the measured work is not optimized away
+    private static volatile long sink;
+
+    /*
+     * Runs a benchmark case and prints its result.
+     *
+     * @param   name            The name of the benchmark
+     * @param   params          The parameters of this case, for the report
+     * @param   opsPerRun       The number of operations in one run
+     * @param   benchCase       The case to run
+     * @return                  The median time of one operation in nanoseconds
+     */
+    public static double run(String name, String params, long opsPerRun, Case benchCase) {
+        for (int i = 0; i < WARMUP; i++) {
+            benchCase.setUp();
+            sink += benchCase.run();
+        }
+
+        long times[] = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            benchCase.setUp();
+            long start = System.nanoTime();
+            sink += benchCase.run();
+            times[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(times);
+        double median = (double) times[ITERATIONS / 2] / opsPerRun;
+        double min = (double) times[0] / opsPerRun;
+        double max = (double) times[ITERATIONS - 1] / opsPerRun;
+        System.out.printf("%-28s %-28s %14s ns/op  (min %s, max %s)%n",
+                name, params, format(median), format(min), format(max));
+        return median;
+    }
+
+    /*
+     * Parses a comma separated list of ints from a system property.
+     *
+     * @param   property        The name of the property
+     * @param   defaults        The values to use when the property is not set
+     * @return                  The values
+     */
+    public static int[] intList(String property, int defaults[]) {
+        String value = System.getProperty(property);
+        if (value == null) {
+            return defaults;
+        }
+        return Arrays.stream(value.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    }
+
+    /*
+     * Parses a comma separated list of doubles from a system property.
+     *
+     * @param   property        The name of the property
+     * @param   defaults        The values to use when the property is not set
+     * @return                  The values
+     */
+    public static double[] doubleList(String property, double defaults[]) {
+        String value = System.getProperty(property);
+        if (value == null) {
+            return defaults;
+        }
+        return Arrays.stream(value.split(",")).mapToDouble(s -> Double.parseDouble(s.trim())).toArray();
+    }
+
+    /*
+     * Formats a time in nanoseconds with a sensible number of digits.
+     */
+    private static String format(double nanos) {
+        return (nanos >= 100) ? String.format("%,.0f", nanos) : String.format("%.2f", nanos);
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+
+/*
+ * EngineBenchmark measures the hot paths of the game engine over a range of
+ * board sizes and bomb densities.
+ *
+ * Usage: java -cp <classes> EngineBenchmark [name filter]
+ *
+ * Options:
+ *      -Dbench.sizes=10,64,256,1024,4096     Square board sizes to run
+ *      -Dbench.densities=0.15,0.3            Bomb densities to run
+ *      -Dbench.warmup=5 -Dbench.iterations=10
+ */
+public class EngineBenchmark {
+
+    // Number of cells queried by the per-cell benchmarks in one run
+    private final static int QUERIES = 1 << 16;
+
+    public static void main(String args[]) {
+        String filter = (args.length > 0) ? args[0] : "";
+        int sizes[] = Bench.intList("bench.sizes", new int[] {10, 64, 256, 1024, 4096});
+        double densities[] = Bench.doubleList("bench.densities", new double[] {0.15, 0.3});
+
+        for (int size : sizes) {
+            if (matches(filter, "clearBombPath")) {
+                benchWorstOpening(size);
+            }
+            for (double density : densities) {
+                int bombCount = Math.max(1, Math.min((int) (size * size * density), size * size - 9));
+                String params = size + "x" + size + " bombs=" + bombCount;
+
+                if (matches(filter, "generate")) {
+                    benchGenerate(size, bombCount, params);
+                }
+                if (matches(filter, "neighborCount")) {
+                    benchNeighborCount(size, bombCount, params);
+                }
+                if (matches(filter, "openings")) {
+                    benchOpenings(size, bombCount, params);
+                }
+                if (matches(filter, "setup")) {
+                    benchSetup(size, bombCount, params);
+                    benchPooledSetup(size, bombCount, params);
+                }
+                if (matches(filter, "getNeighboringFlagCount")) {
+                    benchFlagCount(size, bombCount, params);
+                }
+                if (matches(filter, "revealNeighboringCells")) {
+                    benchChord(size, bombCount, params);
+                }
+                if (matches(filter, "scriptedGame")) {
+                    benchScriptedGame(size, bombCount, params);
+                }
+            }
+        }
+    }
+
+    /*
+     * Bomb placement alone.
+     */
+    private static void benchGenerate(int size, int bombCount, String params) {
+        long seed[] = {0};
+        Bench.run("generate", params, 1, () -> MineGenerator.generate(size, size, bombCount, size / 2, size / 2,
+                MineGenerator.DEFAULT_SAFE_RADIUS, seed[0]++).length);
+    }
+
+    /*
+     * Neighbor counts of a placed layout.
+     */
+    private static void benchNeighborCount(int size, int bombCount, String params) {
+        BoardModel model = layout(size, bombCount);
+        Bench.run("neighborCount", params, 1, () -> {
+            NeighborCounter.fill(model);
+            return model.get(0);
+        });
+    }
+
+    /*
+     * Opening labels of a counted layout.
+     */
+    private static void benchOpenings(int size, int bombCount, String params) {
+        BoardModel model = layout(size, bombCount);
+        NeighborCounter.fill(model);
+        Bench.run("openings", params, 1, () -> Openings.label(model).get3BV());
+    }
+
+    /*
+     * A complete GameBoard.setup: placement, counts and openings.
+     */
+    private static void benchSetup(int size, int bombCount, String params) {
+        GameBoard board = new GameBoard(size, size, bombCount);
+        long seed[] = {0};
+        Bench.run("setup", params, 1, new Bench.Case() {
+            public void setUp() {
+                board.resetGame();
+                board.setSeed(seed[0]++);
+            }
+
+            public long run() {
+                board.setup(size / 2, size / 2);
+                return board.getOpenings().get3BV();
+            }
+        });
+    }
+
+    /*
+     * GameBoard.setup with a layout ready in a BoardPool, as on a first click
+     * in the game. Waiting for the pool to refill is not timed, and the
+     * openings of a pooled layout are labeled only when first asked for.
+     */
+    private static void benchPooledSetup(int size, int bombCount, String params) {
+        GameBoard board = new GameBoard(size, size, bombCount);
+        BoardPool pool = new BoardPool();
+        board.setPool(pool);
+        SplittableRandom random = new SplittableRandom(3);
+        Bench.run("setup pooled", params, 1, new Bench.Case() {
+            public void setUp() {
+                board.resetGame();
+                while (pool.size() == 0) {
+                    Thread.yield();
+                }
+            }
+
+            public long run() {
+                board.setup(random.nextInt(size), random.nextInt(size));
+                return board.getModel().get(0);
+            }
+        });
+    }
+
+    /*
+     * Clearing a board that is one single opening, the worst case for a click,
+     * through the precomputed openings and through the flood fill.
+     */
+    private static void benchWorstOpening(int size) {
+        String params = size + "x" + size + " bombs=1";
+        GameBoard board = new GameBoard(size, size, 1);
+        Bench.run("clearBombPath", params, 1, new Bench.Case() {
+            public void setUp() {
+                board.resetGame();
+                board.setSeed(1);
+                board.setup(size / 2, size / 2);
+            }
+
+            public long run() {
+                return board.clearBombPath(size / 2, size / 2);
+            }
+        });
+
+        FloodFill floodFill = new FloodFill();
+        Bench.run("clearBombPath floodFill", params, 1, new Bench.Case() {
+            public void setUp() {
+                board.resetGame();
+                board.setSeed(1);
+                board.setup(size / 2, size / 2);
+            }
+
+            public long run() {
+                return floodFill.fill(board.getModel(), board.getModel().index(size / 2, size / 2));
+            }
+        });
+    }
+
+    /*
+     * Counting flags around random cells of a board with a tenth of its cells flagged.
+     */
+    private static void benchFlagCount(int size, int bombCount, String params) {
+        GameBoard board = setUpBoard(size, bombCount);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < size * size / 10; i++) {
+            int index = random.nextInt(size * size);
+            if (!board.getModel().isFlagged(index)) {
+                board.toggleFlag(index / size, index % size);
+            }
+        }
+        int rows[] = new int[QUERIES];
+        int cols[] = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            rows[i] = random.nextInt(size);
+            cols[i] = random.nextInt(size);
+        }
+
+        Bench.run("getNeighboringFlagCount", params, QUERIES, () -> {
+            long total = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                total += board.getNeighboringFlagCount(rows[i], cols[i]);
+            }
+            return total;
+        });
+    }
+
+    /*
+     * Chording numbered cells whose bombs are all flagged.
+     */
+    private static void benchChord(int size, int bombCount, String params) {
+        GameBoard board = setUpBoard(size, bombCount);
+        BoardModel model = board.getModel();
+
+        // Sample up to QUERIES numbered cells spread over the board
+        IntList numbers = new IntList(QUERIES);
+        int step = Math.max(1, model.size() / QUERIES);
+        for (int i = 0; i < model.size() && numbers.size() < QUERIES; i += step) {
+            if (!model.isBomb(i) && model.getNeighboringBombCount(i) > 0) {
+                numbers.add(i);
+            }
+        }
+        if (numbers.size() == 0) {
+            return;
+        }
+
+        Bench.run("revealNeighboringCells", params, numbers.size(), new Bench.Case() {
+            public void setUp() {
+                // Hide every cell again, keeping the layout and the flags on every bomb
+                for (int i = 0; i < model.size(); i++) {
+                    int state = model.get(i) & ~BoardModel.CLEARED;
+                    model.set(i, model.isBomb(i) ? state | BoardModel.FLAGGED : state);
+                }
+            }
+
+            public long run() {
+                long total = 0;
+                for (int i = 0; i < numbers.size(); i++) {
+                    int index = numbers.get(i);
+                    total += board.revealNeighboringCells(index / size, index % size);
+                }
+                return total;
+            }
+        });
+    }
+
+    /*
+     * A whole game scripted by a player who knows the layout: flag every bomb,
+     * then click every hidden cell that is still left.
+     */
+    private static void benchScriptedGame(int size, int bombCount, String params) {
+        GameBoard board = new GameBoard(size, size, bombCount);
+        long seed[] = {0};
+        Bench.run("scriptedGame", params, 1, new Bench.Case() {
+            public void setUp() {
+                board.resetGame();
+                board.setSeed(seed[0]++);
+            }
+
+            public long run() {
+                board.setup(size / 2, size / 2);
+                BoardModel model = board.getModel();
+                long cleared = 0;
+                for (int i = 0; i < model.size(); i++) {
+                    int row = i / size;
+                    int col = i % size;
+                    if (model.isBomb(i)) {
+                        board.toggleFlag(row, col);
+                    }
+                    else if (!model.isCleared(i)) {
+                        cleared += (model.getNeighboringBombCount(i) > 0)
+                                ? board.clearCell(row, col) : board.clearBombPath(row, col);
+                    }
+                }
+                return cleared;
+            }
+        });
+    }
+
+    /*
+     * Creates a model with bombs placed around a center first click.
+     */
+    private static BoardModel layout(int size, int bombCount) {
+        BoardModel model = new BoardModel(size, size);
+        MineGenerator.placeBombs(model, bombCount, size / 2, size / 2, MineGenerator.DEFAULT_SAFE_RADIUS, 1);
+        return model;
+    }
+
+    /*
+     * Creates a set up board with a center first click.
+     */
+    private static GameBoard setUpBoard(int size, int bombCount) {
+        GameBoard board = new GameBoard(size, size, bombCount);
+        board.setSeed(1);
+        board.setup(size / 2, size / 2);
+        return board;
+    }
+
+    /*
+     * Checks if a benchmark name passes the filter.
+     */
+    private static boolean matches(String filter, String name) {
+        return name.contains(filter);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+
+/*
+ * HistoryBenchmark measures undo and redo on a PersistentBoardModel: the
+ * memory a long game keeps for its history, the time to jump between two
+ * random moves of it, and what keeping the history adds to a move.
+ *
+ * The game is played by a player who knows the layout, revealing random
+ * safe cells and toggling flags on the bombs, so it never ends. Jumps are
+ * timed on their own, and with the changed cells added to a delta, as a
+ * view repainting them needs.
+ *
+ * Usage: java -cp <classes> HistoryBenchmark
+ *
+ * Options:
+ *      -Dbench.sizes=1024                    Square board sizes to run
+ *      -Dbench.moves=100000                  Moves in the history
+ *      -Dbench.warmup=5 -Dbench.iterations=10
+ */
+public class HistoryBenchmark {
+
+    private final static int MOVES = Integer.getInteger("bench.moves", 100000);
+
+    // Jumps and moves in one run
+    private final static int JUMPS = 1000;
+    private final static int MOVES_PER_RUN = 1000;
+
+    public static void main(String args[]) {
+        int sizes[] = Bench.intList("bench.sizes", new int[] {1024});
+        for (int size : sizes) {
+            GameConfig config = GameConfig.custom(size, size, size * size * 3 / 20);
+            String params = size + "x" + size + " moves=" + MOVES;
+
+            // Play the game, keeping every move
+            long before = usedMemory();
+            GameEngine engine = new GameEngine(config);
+            MoveHistory history = new MoveHistory();
+            engine.setHistory(history);
+            engine.newGame(config, 0);
+            SplittableRandom random = new SplittableRandom(0);
+            engine.reveal(size / 2, size / 2);
+            while (history.getMoveCount() < MOVES) {
+                move(engine, random);
+            }
+            long kept = usedMemory() - before;
+            System.out.printf("%-28s %-28s %,14d bytes per move (a full copy is %,d)%n",
+                    "history memory", params, kept / MOVES, (long) size * size);
+
+            Bench.run("jump", params, JUMPS, new Bench.Case() {
+                public long run() {
+                    long cleared = 0;
+                    for (int i = 0; i < JUMPS; i++) {
+                        engine.jumpTo(random.nextInt(MOVES + 1));
+                        cleared += engine.getCellsCleared();
+                    }
+                    return cleared;
+                }
+            });
+
+            CellDelta delta = new CellDelta();
+            engine.setDelta(delta);
+            Bench.run("jump + delta", params, JUMPS / 10, new Bench.Case() {
+                public long run() {
+                    long changed = 0;
+                    for (int i = 0; i < JUMPS / 10; i++) {
+                        engine.jumpTo(random.nextInt(MOVES + 1));
+                        changed += delta.size();
+                    }
+                    return changed;
+                }
+            });
+
+            Bench.run("undo", params, JUMPS, new Bench.Case() {
+                public void setUp() {
+                    engine.jumpTo(MOVES);
+                }
+
+                public long run() {
+                    long changed = 0;
+                    for (int i = 0; i < JUMPS; i++) {
+                        engine.undo();
+                        changed += delta.size();
+                    }
+                    return changed;
+                }
+            });
+            engine.setHistory(null);
+            engine.setDelta(null);
+
+            benchMoves(config, false);
+            benchMoves(config, true);
+        }
+    }
+
+    /*
+     * Times moves on a board opened in the middle, with or without keeping them.
+     */
+    private static void benchMoves(GameConfig config, boolean keep) {
+        GameEngine engine = new GameEngine(config);
+        engine.setHistory(keep ? new MoveHistory() : null);
+        String params = config.getLength() + "x" + config.getWidth();
+        Bench.run(keep ? "move, history kept" : "move, heap board", params, MOVES_PER_RUN, new Bench.Case() {
+            long seed = 0;
+            SplittableRandom random;
+
+            public void setUp() {
+                engine.newGame(config, seed);
+                engine.reveal(config.getLength() / 2, config.getWidth() / 2);
+                random = new SplittableRandom(seed++);
+            }
+
+            public long run() {
+                for (int i = 0; i < MOVES_PER_RUN; i++) {
+                    move(engine, random);
+                }
+                return engine.getCellsCleared();
+            }
+        });
+    }
+
+    /*
+     * Reveals a random safe cell, or toggles the flag on a random bomb.
+     */
+    private static void move(GameEngine engine, SplittableRandom random) {
+        BoardModel model = engine.getModel();
+        int index = random.nextInt(model.size());
+        if (model.isBomb(index)) {
+            engine.flag(model.rowOf(index), model.colOf(index));
+        }
+        else {
+            engine.reveal(model.rowOf(index), model.colOf(index));
+        }
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * ProbabilityBenchmark measures the ProbabilityCalculator on positions where
+ * the Solver is stuck, which are the positions it is called on in a game.
+ *
+ * A position is found by playing a seeded game with the Solver until no
+ * move is certain.
+ *
+ * Usage: java -cp <classes> ProbabilityBenchmark
+ *
+ * Options:
+ *      -Dbench.levels=9x9x10,16x16x40,16x30x99,64x64x600
+ *      -Dbench.positions=64                    Positions per level
+ *      -Dbench.warmup=5 -Dbench.iterations=10
+ */
+public class ProbabilityBenchmark {
+
+    public static void main(String args[]) {
+        String levels[] = System.getProperty("bench.levels", "9x9x10,16x16x40,16x30x99,64x64x600").split(",");
+        int count = Integer.getInteger("bench.positions", 64);
+
+        for (String level : levels) {
+            String size[] = level.trim().split("x");
+            GameConfig config = GameConfig.custom(Integer.parseInt(size[0]), Integer.parseInt(size[1]),
+                    Integer.parseInt(size[2]));
+            benchCalculate(config, count);
+        }
+    }
+
+    /*
+     * Calculates the probabilities of a set of stuck positions of one level.
+     */
+    private static void benchCalculate(GameConfig config, int count) {
+        List<BoardModel> positions = new ArrayList<BoardModel>();
+        for (long seed = 0; positions.size() < count && seed < count * 16L; seed++) {
+            BoardModel position = stuckPosition(config, seed);
+            if (position != null) {
+                positions.add(position);
+            }
+        }
+        if (positions.isEmpty()) {
+            return;
+        }
+
+        ProbabilityCalculator calculator = new ProbabilityCalculator();
+        String params = config.getLength() + "x" + config.getWidth() + " bombs=" + config.getBombCount();
+        double nanos = Bench.run("calculate", params, positions.size(), () -> {
+            long components = 0;
+            for (BoardModel position : positions) {
+                calculator.calculate(position, config.getBombCount());
+                components += calculator.getComponentCount();
+            }
+            return components;
+        });
+        System.out.printf("%-28s %-28s %,14.0f positions/s%n", "", "", 1e9 / nanos);
+    }
+
+    /*
+     * Plays a seeded game with the Solver until no move is certain.
+     *
+     * @return          The stuck position, or null if the game ended first
+     */
+    private static BoardModel stuckPosition(GameConfig config, long seed) {
+        GameEngine engine = new GameEngine(config);
+        engine.newGame(config, seed);
+        engine.reveal(config.getLength() / 2, config.getWidth() / 2);
+
+        BoardModel model = engine.getModel();
+        Solver solver = new Solver();
+        while (!engine.isOver() && solver.solve(model) > 0) {
+            IntList bombs = solver.getBombs();
+            for (int i = 0; i < bombs.size(); i++) {
+                engine.flag(model.rowOf(bombs.get(i)), model.colOf(bombs.get(i)));
+            }
+            IntList safeCells = solver.getSafeCells();
+            for (int i = 0; i < safeCells.size(); i++) {
+                engine.reveal(model.rowOf(safeCells.get(i)), model.colOf(safeCells.get(i)));
+            }
+        }
+        return engine.isOver() ? null : model;
+    }
+}
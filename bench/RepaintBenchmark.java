@@ -0,0 +1,98 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/*
+ * RepaintBenchmark measures the time from a click to painted pixels: the
+ * reveal itself, then painting either the whole visible view, as a full
+ * repaint of the frame does, or just the cells in the delta of the click.
+ *
+ * Every click reveals a hidden number, which is what most clicks of a game
+ * do. The view is centered on the clicked cell and painted into an image,
+ * so the benchmark runs headless.
+ *
+ * Usage: java -Djava.awt.headless=true -cp <classes>:. RepaintBenchmark
+ *
+ * Options:
+ *      -Dbench.sizes=100,1000,3000           Square board sizes to run
+ *      -Dbench.warmup=5 -Dbench.iterations=10
+ */
+public class RepaintBenchmark {
+
+    // Size of the visible view in pixels
+    private final static int VIEW_WIDTH = 1280;
+    private final static int VIEW_HEIGHT = 800;
+
+    // Clicks in one run
+    private final static int CLICKS = 200;
+
+    public static void main(String args[]) {
+        int sizes[] = Bench.intList("bench.sizes", new int[] {100, 1000, 3000});
+        for (int size : sizes) {
+            GameConfig config = GameConfig.custom(size, size, size * size / 5);
+            benchClicks(config, false);
+            benchClicks(config, true);
+        }
+    }
+
+    /*
+     * Times clicks on hidden numbers of a board, each followed by a paint.
+     */
+    private static void benchClicks(GameConfig config, boolean dirtyOnly) {
+        GameEngine engine = new GameEngine(config);
+        CellDelta delta = new CellDelta();
+        engine.setDelta(delta);
+        BoardCanvas canvas = new BoardCanvas(engine.getGameBoard());
+        BufferedImage view = new BufferedImage(VIEW_WIDTH, VIEW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        int clicks[] = new int[CLICKS];
+
+        String params = config.getLength() + "x" + config.getWidth();
+        Bench.run(dirtyOnly ? "click + paint delta" : "click + paint view", params, CLICKS, new Bench.Case() {
+            long seed = 0;
+
+            public void setUp() {
+                // A fresh game, opened in the middle, and hidden numbers spread over the board to click
+                engine.newGame(config, seed++);
+                engine.reveal(config.getLength() / 2, config.getWidth() / 2);
+                canvas.setSize(canvas.getPreferredSize());
+                BoardModel model = engine.getModel();
+                int found = 0;
+                for (int i = 0; found < CLICKS; i = (i + 7919) % model.size()) {
+                    int state = model.get(i);
+                    if ((state & (BoardModel.BOMB | BoardModel.CLEARED)) == 0 && (state & BoardModel.COUNT_MASK) > 0) {
+                        clicks[found++] = i;
+                    }
+                }
+            }
+
+            public long run() {
+                BoardModel model = engine.getModel();
+                int cellSize = canvas.getCellSize();
+                long painted = 0;
+                for (int index : clicks) {
+                    int row = model.rowOf(index);
+                    int col = model.colOf(index);
+                    engine.reveal(row, col);
+
+                    Rectangle clip = new Rectangle(col * cellSize - VIEW_WIDTH / 2, row * cellSize - VIEW_HEIGHT / 2,
+                            VIEW_WIDTH, VIEW_HEIGHT);
+                    if (dirtyOnly) {
+                        clip = canvas.getCellBounds(delta).intersection(clip);
+                    }
+                    Graphics g = view.getGraphics();
+                    g.translate(VIEW_WIDTH / 2 - col * cellSize, VIEW_HEIGHT / 2 - row * cellSize);
+                    g.setClip(clip);
+                    canvas.paint(g);
+                    g.dispose();
+                    painted += clip.width * clip.height;
+                }
+                return painted;
+            }
+        });
+    }
+}
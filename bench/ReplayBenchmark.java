@@ -0,0 +1,75 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+
+/*
+ * ReplayBenchmark measures recording, loading and playing back replays of
+ * long games, and reports how many bytes a move takes.
+ *
+ * The games are played by the SolverPlayer from a seed, so every level
+ * gives the same moves on every run.
+ *
+ * Usage: java -cp <classes> ReplayBenchmark
+ *
+ * Options:
+ *      -Dbench.sizes=30,100,300              Square board sizes to run
+ *      -Dbench.densities=0.15                Bomb densities to run
+ *      -Dbench.warmup=5 -Dbench.iterations=10
+ */
+public class ReplayBenchmark {
+
+    public static void main(String args[]) {
+        int sizes[] = Bench.intList("bench.sizes", new int[] {30, 100, 300});
+        double densities[] = Bench.doubleList("bench.densities", new double[] {0.15});
+
+        for (int size : sizes) {
+            for (double density : densities) {
+                int bombCount = Math.max(1, Math.min((int) (size * size * density), size * size - 9));
+                benchReplay(GameConfig.custom(size, size, bombCount));
+            }
+        }
+    }
+
+    /*
+     * Records a game of one level, then times recording its moves again,
+     * reading the recording and playing it back.
+     */
+    private static void benchReplay(GameConfig config) {
+        GameEngine engine = new GameEngine(config);
+        ReplayRecorder recorder = new ReplayRecorder();
+        engine.setRecorder(recorder);
+        engine.newGame(config, 1);
+        Player player = new SolverPlayer();
+        SplittableRandom random = new SplittableRandom(1);
+        while (!engine.isOver()) {
+            player.move(engine, random);
+        }
+
+        byte data[] = recorder.toByteArray();
+        Replay replay = Replay.read(data);
+        int moves = replay.getMoveCount();
+        String params = config.getLength() + "x" + config.getWidth() + " moves=" + moves;
+
+        Bench.run("record", params, moves, () -> {
+            recorder.begin(config);
+            recorder.recordLayout(engine.getGameBoard());
+            for (int i = 0; i < moves; i++) {
+                recorder.record(replay.getType(i), replay.getIndex(i));
+            }
+            return recorder.size();
+        });
+        Bench.run("load", params, 1, () -> Replay.read(data).getMoveCount());
+
+        GameEngine playback = new GameEngine(config);
+        Bench.run("playback", params, 1, () -> {
+            ReplayPlayer replayPlayer = new ReplayPlayer(replay, playback);
+            replayPlayer.finish();
+            return playback.getCellsCleared();
+        });
+        System.out.printf("%-28s %-28s %,14d bytes  (%.2f bytes/move)%n", "", "", data.length, (double) data.length / moves);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CyclicBarrier;
+
+/*
+ * SharedBoardBenchmark measures many players making moves on one large
+ * board at once: the lock-free SharedBoard against a GameEngine behind a
+ * single lock.
+ *
+ * Each player picks random cells and reveals the safe ones or toggles the
+ * flag on the bombs, so openings are flooded by several players at once
+ * and no move loses the game. The players know the layout, which both
+ * boards are given from the same seed.
+ *
+ * Usage: java -cp <classes> SharedBoardBenchmark
+ *
+ * Options:
+ *      -Dbench.sizes=2048                    Square board sizes to run
+ *      -Dbench.threads=64                    Players, one thread each
+ *      -Dbench.moves=4096                    Moves per player in one run
+ *      -Dbench.warmup=5 -Dbench.iterations=10
+ */
+public class SharedBoardBenchmark {
+
+    private final static int THREADS = Integer.getInteger("bench.threads", 64);
+    private final static int MOVES = Integer.getInteger("bench.moves", 4096);
+
+    // A move of one player
+    private interface Move {
+        void make(int row, int col, boolean bomb);
+    }
+
+    public static void main(String args[]) {
+        int sizes[] = Bench.intList("bench.sizes", new int[] {2048});
+        for (int size : sizes) {
+            GameConfig config = GameConfig.custom(size, size, size * size * 3 / 20);
+            String params = size + "x" + size + " threads=" + THREADS;
+
+            SharedBoard shared[] = new SharedBoard[1];
+            Bench.run("lock-free", params, (long) THREADS * MOVES, new Bench.Case() {
+                long seed = 0;
+
+                public void setUp() {
+                    shared[0] = new SharedBoard(config, size / 2, size / 2, seed++);
+                }
+
+                public long run() {
+                    SharedBoard board = shared[0];
+                    play(board.getModel(), (row, col, bomb) -> {
+                        if (bomb) {
+                            board.flag(row, col);
+                        }
+                        else {
+                            board.reveal(row, col);
+                        }
+                    });
+                    return board.getCellsCleared();
+                }
+            });
+
+            GameEngine engine = new GameEngine(config);
+            Bench.run("global lock", params, (long) THREADS * MOVES, new Bench.Case() {
+                long seed = 0;
+
+                public void setUp() {
+                    engine.newGame(config, seed++);
+                    engine.reveal(size / 2, size / 2);
+                }
+
+                public long run() {
+                    play(engine.getModel(), (row, col, bomb) -> {
+                        synchronized (engine) {
+                            if (bomb) {
+                                engine.flag(row, col);
+                            }
+                            else {
+                                engine.reveal(row, col);
+                            }
+                        }
+                    });
+                    return engine.getCellsCleared();
+                }
+            });
+        }
+    }
+
+    /*
+     * Runs every player until each has made its moves.
+     */
+    private static void play(BoardModel model, Move move) {
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        Thread players[] = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            players[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Player interrupted", e);
+                }
+                for (int i = 0; i < MOVES; i++) {
+                    int index = random.nextInt(model.size());
+                    move.make(model.rowOf(index), model.colOf(index), model.isBomb(index));
+                }
+            });
+            players[t].start();
+        }
+        try {
+            for (Thread player : players) {
+                player.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+
+/*
+ * SolverBenchmark measures how many positions the Solver solves per second.
+ *
+ * A position is a board opened around the center with a share of its other
+ * safe cells cleared at random, which leaves many frontiers spread over the
+ * board, like the middle of a game.
+ *
+ * Usage: java -cp <classes> SolverBenchmark
+ *
+ * Options:
+ *      -Dbench.sizes=10,64,256,1024          Square board sizes to run
+ *      -Dbench.densities=0.15,0.2            Bomb densities to run
+ *      -Dbench.cleared=0.3                   Share of safe cells cleared at random
+ *      -Dbench.warmup=5 -Dbench.iterations=10
+ */
+public class SolverBenchmark {
+
+    // Cells of positions solved in one run, so small boards get many positions
+    private final static int CELLS_PER_RUN = 1 << 20;
+
+    public static void main(String args[]) {
+        int sizes[] = Bench.intList("bench.sizes", new int[] {10, 64, 256, 1024});
+        double densities[] = Bench.doubleList("bench.densities", new double[] {0.15, 0.2});
+        double cleared = Double.parseDouble(System.getProperty("bench.cleared", "0.3"));
+
+        for (int size : sizes) {
+            for (double density : densities) {
+                int bombCount = Math.max(1, Math.min((int) (size * size * density), size * size - 9));
+                benchSolve(size, bombCount, cleared);
+            }
+        }
+    }
+
+    /*
+     * Solves a set of positions of one size.
+     */
+    private static void benchSolve(int size, int bombCount, double cleared) {
+        int count = Math.max(1, Math.min(256, CELLS_PER_RUN / (size * size)));
+        BoardModel positions[] = new BoardModel[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = position(size, bombCount, cleared, i);
+        }
+
+        Solver solver = new Solver();
+        String params = size + "x" + size + " bombs=" + bombCount;
+        double nanos = Bench.run("solve", params, count, () -> {
+            long deduced = 0;
+            for (BoardModel position : positions) {
+                deduced += solver.solve(position);
+            }
+            return deduced;
+        });
+        System.out.printf("%-28s %-28s %,14.0f positions/s  (frontier %,d cells, %,d constraints)%n",
+                "", "", 1e9 / nanos, solver.getFrontierSize(), solver.getConstraintCount());
+    }
+
+    /*
+     * Creates a position from a seeded game.
+     */
+    private static BoardModel position(int size, int bombCount, double cleared, long seed) {
+        GameEngine engine = new GameEngine(GameConfig.custom(size, size, bombCount));
+        engine.newGame(engine.getConfig(), seed);
+        engine.reveal(size / 2, size / 2);
+
+        BoardModel model = engine.getModel();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < model.size() && !engine.isOver(); i++) {
+            if (!model.isBomb(i) && random.nextDouble() < cleared) {
+                engine.reveal(model.rowOf(i), model.colOf(i));
+            }
+        }
+        return model;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * SpectatorBenchmark measures a game played in front of many spectators:
+ * the engine publishes every move once to a SpectatorStream, while a few
+ * reader threads poll every spectator until each has seen the whole game.
+ *
+ * The player reveals random safe cells and flags the bombs it lands on, so
+ * moves range from single numbers to large openings. Each run is timed from
+ * the first move until every spectator has caught up, and compared with the
+ * same moves played with no one watching. A share of the spectators is slow,
+ * polled only every few rounds, and catches up from snapshots when it falls
+ * a whole ring behind.
+ *
+ * Usage: java -cp <classes> SpectatorBenchmark
+ *
+ * Options:
+ *      -Dbench.sizes=256                     Square board sizes to run
+ *      -Dbench.subscribers=1000              Spectators to run
+ *      -Dbench.readers=4                     Threads polling the spectators
+ *      -Dbench.moves=4096                    Moves in one run
+ *      -Dbench.capacity=4096                 Entries the stream keeps
+ *      -Dbench.warmup=5 -Dbench.iterations=10
+ */
+public class SpectatorBenchmark {
+
+    private final static int READERS = Integer.getInteger("bench.readers", 4);
+    private final static int MOVES = Integer.getInteger("bench.moves", 4096);
+    private final static int CAPACITY = Integer.getInteger("bench.capacity", 4096);
+
+    // One spectator in this many is slow, and is polled once every SLOW_ROUNDS rounds
+    private final static int SLOW_SHARE = 10;
+    private final static int SLOW_ROUNDS = 64;
+
+    public static void main(String args[]) {
+        int sizes[] = Bench.intList("bench.sizes", new int[] {256});
+        int subscribers[] = Bench.intList("bench.subscribers", new int[] {1000});
+        for (int size : sizes) {
+            GameConfig config = GameConfig.custom(size, size, size * size * 3 / 20);
+            GameEngine engine = new GameEngine(config);
+
+            Bench.run("no spectators", size + "x" + size, MOVES, new Bench.Case() {
+                long seed = 0;
+
+                public void setUp() {
+                    engine.newGame(config, seed++);
+                }
+
+                public long run() {
+                    return play(engine, seed);
+                }
+            });
+
+            for (int count : subscribers) {
+                benchFanOut(engine, config, count);
+            }
+        }
+    }
+
+    /*
+     * Times moves published to spectators until every one of them caught up.
+     */
+    private static void benchFanOut(GameEngine engine, GameConfig config, int count) {
+        SpectatorStream stream = new SpectatorStream(CAPACITY);
+        engine.setSpectators(stream);
+        SpectatorStream.Spectator spectators[] = new SpectatorStream.Spectator[count];
+        AtomicLong delivered = new AtomicLong();
+        long resyncs[] = new long[1];
+
+        String params = config.getLength() + "x" + config.getWidth() + " subscribers=" + count;
+        Bench.run("fan-out", params, MOVES, new Bench.Case() {
+            long seed = 0;
+
+            public void setUp() {
+                engine.newGame(config, seed++);
+                for (int i = 0; i < count; i++) {
+                    spectators[i] = stream.subscribe();
+                }
+                delivered.set(0);
+            }
+
+            public long run() {
+                AtomicBoolean done = new AtomicBoolean();
+                Thread readers[] = new Thread[READERS];
+                for (int r = 0; r < READERS; r++) {
+                    int first = r;
+                    readers[r] = new Thread(() -> {
+                        long read = 0;
+                        for (int round = 0; ; round++) {
+                            boolean finished = done.get();
+                            boolean behind = false;
+                            for (int i = first; i < count; i += READERS) {
+                                if (finished || i % SLOW_SHARE != 0 || round % SLOW_ROUNDS == 0) {
+                                    read += spectators[i].poll();
+                                    behind |= spectators[i].getLag() > 0;
+                                }
+                            }
+                            if (finished && !behind) {
+                                break;
+                            }
+                            Thread.yield();
+                        }
+                        delivered.addAndGet(read);
+                    });
+                    readers[r].start();
+                }
+
+                long played = play(engine, seed);
+                done.set(true);
+                try {
+                    for (Thread reader : readers) {
+                        reader.join();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                resyncs[0] = 0;
+                for (SpectatorStream.Spectator spectator : spectators) {
+                    resyncs[0] += spectator.getResyncs();
+                }
+                return played + delivered.get();
+            }
+        });
+        System.out.printf("%-28s %-28s %,14d entries read, %,d resyncs in the last run%n",
+                "", "", delivered.get(), resyncs[0]);
+        engine.setSpectators(null);
+    }
+
+    /*
+     * Plays random moves: reveals safe cells and flags bombs.
+     *
+     * @return              The number of cells cleared
+     */
+    private static long play(GameEngine engine, long seed) {
+        BoardModel model = engine.getModel();
+        SplittableRandom random = new SplittableRandom(seed);
+        engine.reveal(model.getLength() / 2, model.getWidth() / 2);
+        for (int i = 1; i < MOVES; i++) {
+            int index = random.nextInt(model.size());
+            if (model.isBomb(index)) {
+                engine.flag(model.rowOf(index), model.colOf(index));
+            }
+            else {
+                engine.reveal(model.rowOf(index), model.colOf(index));
+            }
+        }
+        return engine.getCellsCleared();
+    }
+}
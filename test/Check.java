@@ -0,0 +1,55 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+/*
+ * Check is a small test harness for the game. Each test is a class with a
+ * main that runs its checks, so tests need nothing but the JDK:
+ *
+ *      javac -d out *.java test/*.java
+ *      java -cp out GameServerTest
+ *
+ * A failed check throws, which ends the test with a stack trace and a
+ * non-zero exit status.
+ */
+public class Check {
+
+    private Check() {
+    }
+
+    /*
+     * Fails the test unless a condition holds.
+     *
+     * @param   condition       The condition checked
+     * @param   message         What went wrong, if it does not hold
+     */
+    public static void that(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /*
+     * Fails the test unless two values are equal.
+     *
+     * @param   expected        The value expected
+     * @param   actual          The value found
+     * @param   message         What was compared
+     */
+    public static void equal(long expected, long actual, String message) {
+        if (expected != actual) {
+            throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    /*
+     * Reports a passed test.
+     *
+     * @param   test            The name of the test
+     */
+    public static void passed(String test) {
+        System.out.println(test + " passed");
+    }
+}
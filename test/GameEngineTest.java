@@ -0,0 +1,74 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+/*
+ * GameEngineTest checks taking back and making again the moves of a
+ * practice game.
+ *
+ * Usage: java -cp <classes> GameEngineTest
+ */
+public class GameEngineTest {
+
+    public static void main(String args[]) {
+        undoPastLossThenRedo();
+        Check.passed("GameEngineTest");
+    }
+
+    /*
+     * Undoing the move that lost hides the board again, and redoing it
+     * shows the whole board as the loss did.
+     */
+    private static void undoPastLossThenRedo() {
+        GameConfig config = GameConfig.custom(16, 16, 40);
+        GameEngine engine = new GameEngine(config);
+        CellDelta delta = new CellDelta();
+        engine.setDelta(delta);
+        engine.setHistory(new MoveHistory());
+        engine.newGame(config, 1);
+
+        engine.reveal(8, 8);
+        Check.that(engine.getStatus() == GameEngine.Status.PLAYING, "playing after the first reveal");
+        int cleared = engine.getCellsCleared();
+
+        // Lose on the first bomb, and show the board as the game does
+        BoardModel model = engine.getModel();
+        int bomb = 0;
+        while (!model.isBomb(bomb)) {
+            bomb++;
+        }
+        engine.reveal(model.rowOf(bomb), model.colOf(bomb));
+        Check.that(engine.getStatus() == GameEngine.Status.LOST, "lost on a bomb");
+        engine.getGameBoard().revealBoard();
+        checkRevealed(engine, true);
+
+        Check.that(engine.undo(), "undo of the loss");
+        Check.that(engine.getStatus() == GameEngine.Status.PLAYING, "playing after undoing the loss");
+        Check.equal(cleared, engine.getCellsCleared(), "cells cleared after undoing the loss");
+        checkRevealed(engine, false);
+        Check.that(!delta.isEmpty(), "cells changed by the undo");
+
+        Check.that(engine.redo(), "redo of the loss");
+        Check.that(engine.getStatus() == GameEngine.Status.LOST, "lost after redoing the loss");
+        checkRevealed(engine, true);
+        Check.that(delta.isAll(), "whole board changed by the redo");
+
+        engine.jumpTo(1);
+        checkRevealed(engine, false);
+        engine.jumpTo(2);
+        checkRevealed(engine, true);
+    }
+
+    /*
+     * Checks that every cell is shown, or that none is.
+     */
+    private static void checkRevealed(GameEngine engine, boolean revealed) {
+        BoardModel model = engine.getModel();
+        for (int i = 0; i < model.size(); i++) {
+            Check.that(((model.get(i) & BoardModel.REVEALED) != 0) == revealed,
+                    "cell " + i + (revealed ? " hidden" : " shown"));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+
+/*
+ * GameServerTest checks how the GameServer handles frames it must refuse.
+ *
+ * Usage: java -cp <classes> GameServerTest
+ */
+public class GameServerTest {
+
+    // Longest wait for a reply before the server is taken to be stuck
+    private final static int TIMEOUT_MILLIS = 3000;
+
+    public static void main(String args[]) throws IOException {
+        oversizedLengthIsReadAlone();
+        oversizedLengthIsRefused();
+        Check.passed("GameServerTest");
+    }
+
+    /*
+     * A frame longer than the maximum is returned from its length alone,
+     * while a frame within it waits for its body.
+     */
+    private static void oversizedLengthIsReadAlone() {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        GameProtocol.putVarint(header, 200);
+        header.flip();
+        Check.equal(200, GameProtocol.startFrame(header, GameProtocol.MAX_REQUEST), "oversized frame length");
+
+        header.clear();
+        GameProtocol.putVarint(header, GameProtocol.MAX_REQUEST);
+        header.flip();
+        Check.equal(-1, GameProtocol.startFrame(header, GameProtocol.MAX_REQUEST), "frame waiting for its body");
+        Check.equal(0, header.position(), "position of a frame waiting for its body");
+    }
+
+    /*
+     * A length prefix larger than the buffer the server reads into gets an
+     * ERROR reply, and the connection is closed, without sending a body.
+     */
+    private static void oversizedLengthIsRefused() throws IOException {
+        GameServer server = new GameServer(0, 1);
+        server.start();
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+            ByteBuffer header = ByteBuffer.allocate(8);
+            GameProtocol.putVarint(header, 200);
+            socket.getOutputStream().write(header.array(), 0, header.position());
+            socket.getOutputStream().flush();
+
+            // Everything the server sends, up to it closing the connection
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            InputStream in = socket.getInputStream();
+            byte chunk[] = new byte[256];
+            try {
+                int read;
+                while ((read = in.read(chunk)) >= 0) {
+                    received.write(chunk, 0, read);
+                }
+            } catch (SocketTimeoutException e) {
+                throw new AssertionError("No reply or close within " + TIMEOUT_MILLIS + " ms, got "
+                        + received.size() + " bytes");
+            }
+
+            ByteBuffer reply = ByteBuffer.wrap(received.toByteArray());
+            int length = GameProtocol.startFrame(reply);
+            Check.that(length > 0, "a whole reply frame, got " + received.size() + " bytes");
+            Check.equal(GameProtocol.ERROR, reply.get() & 0xFF, "reply status");
+            String message = GameProtocol.readError(reply);
+            Check.that(message.contains("too long"), "error message: " + message);
+        } finally {
+            server.close();
+        }
+    }
+}
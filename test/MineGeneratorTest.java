@@ -0,0 +1,127 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * MineGeneratorTest checks that the MineGenerator places the bombs asked
+ * for outside of the safe zone, the same way for the same seed, and with
+ * every layout equally likely.
+ *
+ * Usage: java -cp <classes> MineGeneratorTest
+ */
+public class MineGeneratorTest {
+
+    public static void main(String args[]) {
+        safeZoneAndCount();
+        sameSeedSameLayout();
+        everyLayoutEquallyLikely();
+        streamingSafeZoneAndSeed();
+        Check.passed("MineGeneratorTest");
+    }
+
+    /*
+     * Bombs are distinct, as many as asked for, and never in the safe zone,
+     * also where the zone is clipped by the edges of the board.
+     */
+    private static void safeZoneAndCount() {
+        int clicks[][] = {{0, 0}, {0, 15}, {15, 29}, {7, 12}, {15, 0}};
+        for (int radius = 0; radius <= 2; radius++) {
+            for (int click[] : clicks) {
+                for (long seed = 0; seed < 50; seed++) {
+                    int bombs[] = MineGenerator.generate(16, 30, 99, click[0], click[1], radius, seed);
+                    Check.equal(99, bombs.length, "bombs placed");
+                    int sorted[] = bombs.clone();
+                    Arrays.sort(sorted);
+                    for (int i = 0; i < sorted.length; i++) {
+                        Check.that(sorted[i] >= 0 && sorted[i] < 16 * 30, "bomb " + sorted[i] + " on the board");
+                        Check.that(i == 0 || sorted[i] != sorted[i - 1], "bomb " + sorted[i] + " placed twice");
+                        Check.that(!inSafeZone(sorted[i], 30, click[0], click[1], radius),
+                                "bomb " + sorted[i] + " in the safe zone of (" + click[0] + ", " + click[1] + ")");
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * The same seed gives the same layout, and placing the bombs on a board
+     * puts them where generate says.
+     */
+    private static void sameSeedSameLayout() {
+        for (long seed = 0; seed < 20; seed++) {
+            int bombs[] = MineGenerator.generate(16, 30, 99, 8, 15, 1, seed);
+            Check.that(Arrays.equals(bombs, MineGenerator.generate(16, 30, 99, 8, 15, 1, seed)), "layout of seed " + seed);
+
+            BoardModel model = new BoardModel(16, 30);
+            MineGenerator.placeBombs(model, 99, 8, 15, 1, seed);
+            boolean expected[] = new boolean[model.size()];
+            for (int bomb : bombs) {
+                expected[bomb] = true;
+            }
+            for (int i = 0; i < model.size(); i++) {
+                Check.that(model.isBomb(i) == expected[i], "placed bomb at " + i + " of seed " + seed);
+            }
+        }
+    }
+
+    /*
+     * On a 5 x 5 board clicked in the middle, 4 bombs go in the 16 cells
+     * around the safe zone, so there are 1820 layouts. Over 100 samples per
+     * layout, the chi-squared statistic has 1819 degrees of freedom, a mean
+     * of 1819 and a standard deviation of about 60; the bound is 6 of those
+     * above the mean, which a uniform generator practically never passes.
+     */
+    private static void everyLayoutEquallyLikely() {
+        int layouts = 1820;
+        int samples = layouts * 100;
+        Map<Integer, Integer> counts = new HashMap<Integer, Integer>();
+        for (int seed = 0; seed < samples; seed++) {
+            int mask = 0;
+            for (int bomb : MineGenerator.generate(5, 5, 4, 2, 2, 1, seed)) {
+                mask |= 1 << bomb;
+            }
+            counts.merge(mask, 1, Integer::sum);
+        }
+
+        double chiSquared = 0;
+        double expected = (double) samples / layouts;
+        for (int count : counts.values()) {
+            chiSquared += (count - expected) * (count - expected) / expected;
+        }
+        Check.equal(layouts, counts.size(), "layouts seen");
+        Check.that(chiSquared < 1819 + 6 * 60, "layouts not uniform, chi-squared " + chiSquared);
+    }
+
+    /*
+     * Above STREAMING_BOMBS the bombs are placed in one pass instead, which
+     * also places exactly as many, outside of the safe zone, the same way
+     * for the same seed.
+     */
+    private static void streamingSafeZoneAndSeed() {
+        int bombCount = MineGenerator.STREAMING_BOMBS + 1;
+        BoardModel first = new BoardModel(2900, 2900);
+        BoardModel second = new BoardModel(2900, 2900);
+        MineGenerator.placeBombs(first, bombCount, 0, 1450, 2, 7);
+        MineGenerator.placeBombs(second, bombCount, 0, 1450, 2, 7);
+
+        int bombs = 0;
+        for (int i = 0; i < first.size(); i++) {
+            if (first.isBomb(i)) {
+                bombs++;
+                Check.that(!inSafeZone(i, 2900, 0, 1450, 2), "streamed bomb " + i + " in the safe zone");
+            }
+            Check.that(first.isBomb(i) == second.isBomb(i), "streamed bomb at " + i + " of the same seed");
+        }
+        Check.equal(bombCount, bombs, "streamed bombs placed");
+    }
+
+    private static boolean inSafeZone(int index, int width, int safeRow, int safeCol, int radius) {
+        return Math.abs(index / width - safeRow) <= radius && Math.abs(index % width - safeCol) <= radius;
+    }
+}
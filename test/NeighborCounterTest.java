@@ -0,0 +1,79 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+
+/*
+ * NeighborCounterTest checks the counts of the NeighborCounter against
+ * counting every cell's neighbors one by one, on boards counted serially
+ * and in parallel, and on the kinds of board that are always counted
+ * serially.
+ *
+ * Usage: java -cp <classes> NeighborCounterTest
+ */
+public class NeighborCounterTest {
+
+    public static void main(String args[]) {
+        SplittableRandom random = new SplittableRandom(1);
+
+        // Thin and odd boards, counted serially
+        int sizes[][] = {{1, 1}, {1, 17}, {17, 1}, {2, 2}, {3, 5}, {7, 13}, {16, 30}};
+        for (int size[] : sizes) {
+            checkCounts(withBombs(new BoardModel(size[0], size[1]), 0.2, random), "serial");
+        }
+
+        // Boards large enough to count in parallel
+        checkCounts(withBombs(new BoardModel(300, 300), 0.2, random), "parallel");
+        checkCounts(withBombs(new BoardModel(1, 1 << 17), 0.5, random), "parallel single row");
+        checkCounts(withBombs(new BoardModel(300, 300), 1.0, random), "parallel all bombs");
+
+        // Boards that cannot be set from several threads, counted serially whatever their size
+        checkCounts(withBombs(new PersistentBoardModel(300, 300), 0.2, random), "persistent");
+        BoardModel tracked = withBombs(new BoardModel(300, 300), 0.2, random);
+        tracked.trackChanges(new CellDelta());
+        checkCounts(tracked, "tracked");
+
+        Check.passed("NeighborCounterTest");
+    }
+
+    /*
+     * Places bombs on a board, each cell being a bomb with a probability.
+     */
+    private static BoardModel withBombs(BoardModel model, double density, SplittableRandom random) {
+        for (int i = 0; i < model.size(); i++) {
+            if (random.nextDouble() < density) {
+                model.setBomb(i, true);
+            }
+        }
+        return model;
+    }
+
+    /*
+     * Counts a board and checks every cell against a count of its neighbors.
+     */
+    private static void checkCounts(BoardModel model, String board) {
+        NeighborCounter.fill(model);
+        int length = model.getLength();
+        int width = model.getWidth();
+        for (int row = 0; row < length; row++) {
+            for (int col = 0; col < width; col++) {
+                int index = model.index(row, col);
+                int expected = 0;
+                if (!model.isBomb(index)) {
+                    for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, length - 1); r++) {
+                        for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, width - 1); c++) {
+                            if (model.isBomb(model.index(r, c))) {
+                                expected++;
+                            }
+                        }
+                    }
+                }
+                Check.equal(expected, model.getNeighboringBombCount(index),
+                        board + " " + length + " x " + width + " count at (" + row + ", " + col + ")");
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+
+/*
+ * OpeningsTest checks the labeled Openings of random boards against the
+ * FloodFill: revealing an opening clears exactly the cells a flood fill
+ * from any of its empty cells clears, and the statistics match counting
+ * the board cell by cell.
+ *
+ * Usage: java -cp <classes> OpeningsTest
+ */
+public class OpeningsTest {
+
+    public static void main(String args[]) {
+        SplittableRandom random = new SplittableRandom(3);
+        int sizes[][] = {{1, 1}, {1, 40}, {40, 1}, {9, 9}, {16, 16}, {16, 30}, {40, 53}};
+        double densities[] = {0.0, 0.05, 0.15, 0.3};
+        for (int size[] : sizes) {
+            for (double density : densities) {
+                checkBoard(board(size[0], size[1], density, random));
+            }
+        }
+        Check.passed("OpeningsTest");
+    }
+
+    /*
+     * Creates a board with its bombs and counts filled in, each cell being a
+     * bomb with a probability.
+     */
+    private static BoardModel board(int length, int width, double density, SplittableRandom random) {
+        BoardModel model = new BoardModel(length, width);
+        for (int i = 0; i < model.size(); i++) {
+            if (random.nextDouble() < density) {
+                model.setBomb(i, true);
+            }
+        }
+        NeighborCounter.fill(model);
+        return model;
+    }
+
+    /*
+     * Checks the openings of a board, and its statistics.
+     */
+    private static void checkBoard(BoardModel model) {
+        Openings openings = Openings.label(model);
+        FloodFill floodFill = new FloodFill();
+        String board = model.getLength() + " x " + model.getWidth();
+
+        int openingCount = 0;
+        int largestOpening = 0;
+        boolean revealed[] = new boolean[model.size()];
+        for (int i = 0; i < model.size(); i++) {
+            if (model.isBomb(i) || model.getNeighboringBombCount(i) != 0) {
+                Check.equal(0, openings.getOpening(i), board + " opening of non empty cell " + i);
+                continue;
+            }
+            int id = openings.getOpening(i);
+            Check.that(id > 0, board + " empty cell " + i + " in an opening");
+
+            BoardModel filled = copy(model);
+            int fillCleared = floodFill.fill(filled, i);
+            BoardModel opened = copy(model);
+            int openCleared = openings.reveal(opened, i);
+            Check.equal(fillCleared, openCleared, board + " cells cleared from " + i);
+            Check.equal(fillCleared, openings.getOpeningSize(id), board + " size of opening " + id);
+            for (int j = 0; j < model.size(); j++) {
+                Check.that(filled.isCleared(j) == opened.isCleared(j), board + " cell " + j + " cleared from " + i);
+                if (filled.isCleared(j)) {
+                    revealed[j] = true;
+                    if (model.getNeighboringBombCount(j) == 0) {
+                        Check.equal(id, openings.getOpening(j), board + " opening of cell " + j + " flooded from " + i);
+                    }
+                }
+            }
+
+            // Count each opening once, at its first empty cell
+            if (id > openingCount) {
+                Check.equal(openingCount + 1, id, board + " opening ids in order");
+                openingCount = id;
+                largestOpening = Math.max(largestOpening, fillCleared);
+            }
+        }
+
+        // Every opening is a click, and so is every number no opening reveals
+        int threeBV = openingCount;
+        for (int i = 0; i < model.size(); i++) {
+            if (!model.isBomb(i) && model.getNeighboringBombCount(i) != 0 && !revealed[i]) {
+                threeBV++;
+            }
+        }
+        Check.equal(openingCount, openings.getOpeningCount(), board + " opening count");
+        Check.equal(largestOpening, openings.getLargestOpening(), board + " largest opening");
+        Check.equal(threeBV, openings.get3BV(), board + " 3BV");
+    }
+
+    private static BoardModel copy(BoardModel model) {
+        BoardModel copy = new BoardModel(model.getLength(), model.getWidth());
+        byte states[] = new byte[model.size()];
+        model.getStates(states);
+        copy.setStates(states);
+        return copy;
+    }
+}
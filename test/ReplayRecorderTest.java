@@ -0,0 +1,49 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+/*
+ * ReplayRecorderTest checks that a recorded game plays back as it was
+ * played.
+ *
+ * Usage: java -cp <classes> ReplayRecorderTest
+ */
+public class ReplayRecorderTest {
+
+    public static void main(String args[]) {
+        flagsBeforeFirstRevealAreReplayed();
+        Check.passed("ReplayRecorderTest");
+    }
+
+    /*
+     * Flags placed before the first reveal lays out the board are part of
+     * the replay, ahead of the reveal.
+     */
+    private static void flagsBeforeFirstRevealAreReplayed() {
+        GameConfig config = GameConfig.custom(16, 16, 40);
+        GameEngine live = new GameEngine(config);
+        live.setRecorder(new ReplayRecorder());
+        live.newGame(config, 7);
+        live.flag(0, 0);
+        live.flag(15, 15);
+        live.flag(15, 15);
+        live.flag(0, 15);
+        live.reveal(8, 8);
+        Check.equal(2, live.getFlagCount(), "flags placed live");
+
+        Replay replay = live.getRecorder().toReplay();
+        Check.equal(5, replay.getMoveCount(), "moves recorded");
+        Check.equal(Replay.FLAG, replay.getType(0), "first move recorded");
+        Check.equal(Replay.REVEAL, replay.getType(4), "last move recorded");
+
+        GameEngine replayed = new GameEngine(config);
+        new ReplayPlayer(replay, replayed).finish();
+        Check.equal(live.getFlagCount(), replayed.getFlagCount(), "flags placed in the replay");
+        Check.equal(live.getCellsCleared(), replayed.getCellsCleared(), "cells cleared in the replay");
+        for (int i = 0; i < live.getModel().size(); i++) {
+            Check.equal(live.getModel().get(i), replayed.getModel().get(i), "state of cell " + i);
+        }
+    }
+}
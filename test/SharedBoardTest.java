@@ -0,0 +1,145 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/*
+ * SharedBoardTest checks a SharedBoard played by several threads at once:
+ * every cell is cleared and counted exactly once, and a cell flagged by one
+ * player is never cleared over by another revealing it.
+ *
+ * Usage: java -cp <classes> SharedBoardTest
+ */
+public class SharedBoardTest {
+
+    private final static int THREADS = 4;
+    private final static int ROUNDS = 20;
+    private final static GameConfig CONFIG = GameConfig.custom(64, 64, 600);
+
+    public static void main(String args[]) throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            everyCellClearedOnce(round);
+            flagsRaceReveals(round);
+        }
+        Check.passed("SharedBoardTest");
+    }
+
+    /*
+     * Players reveal every safe cell, each in its own order. The moves
+     * together clear each safe cell once, and the game is won.
+     */
+    private static void everyCellClearedOnce(long seed) throws InterruptedException {
+        SharedBoard board = new SharedBoard(CONFIG, 32, 32, seed);
+        AtomicBoardModel model = board.getModel();
+        AtomicInteger cleared = new AtomicInteger();
+
+        run(player -> {
+            SplittableRandom random = new SplittableRandom(seed * THREADS + player);
+            for (int index : shuffled(model.size(), random)) {
+                if (!model.isBomb(index)) {
+                    cleared.addAndGet(board.reveal(model.rowOf(index), model.colOf(index)));
+                }
+            }
+        });
+
+        Check.equal(CONFIG.getSafeCellCount(), cleared.get(), "cells cleared by all the moves");
+        Check.equal(CONFIG.getSafeCellCount(), board.getCellsCleared(), "cells cleared by the board");
+        Check.that(board.getStatus() == GameEngine.Status.WON, "won once every safe cell is cleared");
+        for (int i = 0; i < model.size(); i++) {
+            Check.that(model.isBomb(i) != model.isCleared(i), "cell " + i + " cleared unless a bomb");
+        }
+    }
+
+    /*
+     * One player flags every number while another reveals them. Numbers do
+     * not flood, so a number may end up flagged or cleared, but never both,
+     * and the flag count matches the flags on the board.
+     */
+    private static void flagsRaceReveals(long seed) throws InterruptedException {
+        SharedBoard board = new SharedBoard(CONFIG, 32, 32, seed);
+        AtomicBoardModel model = board.getModel();
+        int numbers[] = numbers(model);
+
+        run(player -> {
+            for (int index : numbers) {
+                if (player % 2 == 0) {
+                    if (!model.isFlagged(index)) {
+                        board.flag(model.rowOf(index), model.colOf(index));
+                    }
+                }
+                else {
+                    board.reveal(model.rowOf(index), model.colOf(index));
+                }
+            }
+        });
+
+        int flags = 0;
+        for (int index : numbers) {
+            Check.that(!(model.isFlagged(index) && model.isCleared(index)), "number " + index + " both flagged and cleared");
+            if (model.isFlagged(index)) {
+                flags++;
+            }
+        }
+        Check.equal(flags, board.getFlagCount(), "flag count");
+    }
+
+    /*
+     * Runs a player on each of THREADS threads, started together.
+     */
+    private static void run(IntConsumer player) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread threads[] = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            int id = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                player.accept(id);
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /*
+     * Gets the cells that are neither bombs nor empty.
+     */
+    private static int[] numbers(BoardModel model) {
+        IntList numbers = new IntList(64);
+        for (int i = 0; i < model.size(); i++) {
+            if (!model.isBomb(i) && model.getNeighboringBombCount(i) > 0) {
+                numbers.add(i);
+            }
+        }
+        return numbers.toArray();
+    }
+
+    /*
+     * Gets the cell indexes in a random order.
+     */
+    private static int[] shuffled(int size, SplittableRandom random) {
+        int order[] = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Author: Sydney Norman
+ * Project: Minesweeper
+ * Date: October 1st, 2017
+ */
+
+/*
+ * SpectatorStreamTest checks spectators falling behind the player by
+ * around a whole ring of entries.
+ *
+ * Usage: java -cp <classes> SpectatorStreamTest
+ */
+public class SpectatorStreamTest {
+
+    private final static int CAPACITY = 16;
+
+    public static void main(String args[]) {
+        lappedByExactlyOneRing();
+        behindByLessThanOneRing();
+        Check.passed("SpectatorStreamTest");
+    }
+
+    /*
+     * A spectator exactly a ring behind catches up from the snapshot. The
+     * slot of its next entry is the one the writer overwrites next, so it
+     * must not be read.
+     */
+    private static void lappedByExactlyOneRing() {
+        BoardModel model = new BoardModel(8, 8);
+        SpectatorStream stream = new SpectatorStream(CAPACITY);
+        stream.newGame(model);
+        SpectatorStream.Spectator spectator = stream.subscribe();
+
+        flag(model, stream, CAPACITY);
+        Check.equal(CAPACITY, spectator.getLag(), "lag");
+
+        spectator.poll();
+        Check.equal(1, spectator.getResyncs(), "resyncs of a spectator lapped by exactly one ring");
+        Check.equal(0, spectator.getLag(), "lag after catching up");
+        checkBoard(model, spectator);
+    }
+
+    /*
+     * A spectator less than a ring behind reads every entry.
+     */
+    private static void behindByLessThanOneRing() {
+        BoardModel model = new BoardModel(8, 8);
+        SpectatorStream stream = new SpectatorStream(CAPACITY);
+        stream.newGame(model);
+        SpectatorStream.Spectator spectator = stream.subscribe();
+
+        flag(model, stream, CAPACITY - 1);
+        Check.equal(CAPACITY - 1, spectator.poll(), "entries read");
+        Check.equal(0, spectator.getResyncs(), "resyncs of a spectator within the ring");
+        checkBoard(model, spectator);
+    }
+
+    /*
+     * Flags cells in one move, publishing an entry for each.
+     */
+    private static void flag(BoardModel model, SpectatorStream stream, int cells) {
+        CellDelta delta = new CellDelta();
+        model.trackChanges(delta);
+        for (int i = 0; i < cells; i++) {
+            model.setFlag(i, true);
+        }
+        model.trackChanges(null);
+        stream.publish(delta, GameEngine.Status.READY);
+    }
+
+    private static void checkBoard(BoardModel model, SpectatorStream.Spectator spectator) {
+        for (int i = 0; i < model.size(); i++) {
+            Check.equal(GameProtocol.visibleState(model.get(i), false), spectator.getBoard().get(i), "state of cell " + i);
+        }
+    }
+}